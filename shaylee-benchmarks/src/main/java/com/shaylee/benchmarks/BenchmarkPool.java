@@ -0,0 +1,119 @@
+package com.shaylee.benchmarks;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.ForkJoinThreadPool;
+import com.shaylee.threadpool.QueueType;
+import com.shaylee.threadpool.ThreadPool;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试用线程池
+ * 功能说明： 按名称创建被测线程池及JDK基线, 线程数相同、队列足够大、等待时长足够长, 保证吞吐测试中不出现拒绝
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+final class BenchmarkPool {
+    /**
+     * 缓存队列容量
+     */
+    static final int QUEUE_CAPACITY = 1 << 16;
+    /**
+     * 准入等待时长(秒)
+     */
+    static final long WAIT_TIME = 60;
+
+    /**
+     * Shaylee线程池(工作窃取线程池时为ForkJoinThreadPool), JDK基线时为null
+     */
+    final AbstractThreadPool threadPool;
+    /**
+     * 提交任务的执行器
+     */
+    final Executor executor;
+    /**
+     * JDK基线执行器, Shaylee线程池时为null
+     */
+    private final ExecutorService jdkExecutor;
+
+    private BenchmarkPool(AbstractThreadPool threadPool, ExecutorService jdkExecutor) {
+        this.threadPool = threadPool;
+        this.jdkExecutor = jdkExecutor;
+        this.executor = threadPool != null ? threadPool::execute : jdkExecutor;
+    }
+
+    /**
+     * 创建线程池
+     *
+     * @param kind    shaylee-sync、shaylee-linked、shaylee-forkjoin、jdk-sync、jdk-linked、forkjoin
+     * @param threads 工作线程数
+     * @return 线程池
+     */
+    static BenchmarkPool create(String kind, int threads) {
+        switch (kind) {
+            case "shaylee-sync":
+                // 同步移交队列的准入许可为 最大线程数-1, 多给一个线程保证并发数与JDK基线一致
+                return new BenchmarkPool(new ThreadPool("bench", threads + 1, threads + 1, 60,
+                        WAIT_TIME, false, QueueType.SYNCHRONOUS, 0), null);
+            case "shaylee-linked":
+                return new BenchmarkPool(new ThreadPool("bench", threads, threads, 60,
+                        WAIT_TIME, false, QueueType.LINKED, QUEUE_CAPACITY), null);
+            case "shaylee-forkjoin":
+                return new BenchmarkPool(new ForkJoinThreadPool("bench", threads, WAIT_TIME, QUEUE_CAPACITY), null);
+            case "jdk-sync":
+                // 同步移交队列没有空闲线程时由调用者执行, 避免基线出现拒绝
+                return new BenchmarkPool(null, new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                        new SynchronousQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy()));
+            case "jdk-linked":
+                return new BenchmarkPool(null, new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(QUEUE_CAPACITY)));
+            case "forkjoin":
+                return new BenchmarkPool(null, new ForkJoinPool(threads));
+            default:
+                throw new IllegalArgumentException("Unknown pool: " + kind);
+        }
+    }
+
+    /**
+     * 创建JDK基线线程池(2个线程、同步移交队列)
+     *
+     * @param handler 拒绝策略
+     * @return 线程池
+     */
+    static BenchmarkPool jdk(RejectedExecutionHandler handler) {
+        return new BenchmarkPool(null, new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), handler));
+    }
+
+    /**
+     * 包装Shaylee线程池
+     *
+     * @param threadPool 线程池
+     * @return 线程池
+     */
+    static BenchmarkPool of(AbstractThreadPool threadPool) {
+        return new BenchmarkPool(threadPool, null);
+    }
+
+    /**
+     * 关闭线程池
+     */
+    void shutdown() throws InterruptedException {
+        if (threadPool != null) {
+            threadPool.shutdownNow();
+            threadPool.awaitTermination(10, TimeUnit.SECONDS);
+        } else {
+            jdkExecutor.shutdownNow();
+            jdkExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
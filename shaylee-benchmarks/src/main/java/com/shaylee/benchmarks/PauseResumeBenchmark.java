@@ -0,0 +1,94 @@
+package com.shaylee.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 暂停/恢复竞争基准测试
+ * 功能说明： toggle组中一个线程不断暂停、恢复线程池, 其余生产者提交任务并等待结果(暂停期间被拒绝的提交立即返回);
+ * baseline组中该线程只读取暂停状态, 两组对比即暂停锁及唤醒对提交路径的影响
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PauseResumeBenchmark {
+
+    @Param({"shaylee-linked", "shaylee-forkjoin"})
+    public String pool;
+
+    private BenchmarkPool target;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        target = BenchmarkPool.create(pool, Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        target.threadPool.resume();
+        target.shutdown();
+    }
+
+    private Object roundTrip() throws Exception {
+        FutureTask<Object> task = new FutureTask<>(() -> Boolean.TRUE);
+        try {
+            target.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            return e;
+        }
+        return task.get();
+    }
+
+    @Benchmark
+    @Group("toggle")
+    @GroupThreads(7)
+    public Object toggleSubmit() throws Exception {
+        return roundTrip();
+    }
+
+    @Benchmark
+    @Group("toggle")
+    @GroupThreads(1)
+    public void toggle() {
+        target.threadPool.pause();
+        target.threadPool.resume();
+    }
+
+    @Benchmark
+    @Group("baseline")
+    @GroupThreads(7)
+    public Object baselineSubmit() throws Exception {
+        return roundTrip();
+    }
+
+    @Benchmark
+    @Group("baseline")
+    @GroupThreads(1)
+    public boolean readPaused() {
+        return target.threadPool.isPaused();
+    }
+}
@@ -0,0 +1,115 @@
+package com.shaylee.benchmarks;
+
+import com.shaylee.threadpool.QueueType;
+import com.shaylee.threadpool.ThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池满载时的提交基准测试
+ * 功能说明： 工作线程全部阻塞、准入许可耗尽后持续提交空任务, 衡量拒绝路径(日志、计数、异常)的开销,
+ * 以及由调用者执行模式与JDK CallerRunsPolicy的对比; 准入等待时长为0, 不包含等待时间
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RejectionBenchmark {
+    private static final Runnable NOOP = () -> {
+    };
+
+    @Param({"shaylee-abort", "shaylee-caller-runs", "jdk-abort", "jdk-caller-runs"})
+    public String pool;
+
+    private BenchmarkPool target;
+    /**
+     * 释放阻塞的工作线程
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+    private Thread setupThread;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        setupThread = Thread.currentThread();
+        switch (pool) {
+            case "shaylee-abort":
+                target = BenchmarkPool.of(new ThreadPool("bench", 2, 2, 60, 0, false, QueueType.SYNCHRONOUS, 0));
+                break;
+            case "shaylee-caller-runs":
+                target = BenchmarkPool.of(new ThreadPool("bench", 2, 2, 60, 0, true, QueueType.SYNCHRONOUS, 0));
+                break;
+            case "jdk-abort":
+                target = BenchmarkPool.jdk(new ThreadPoolExecutor.AbortPolicy());
+                break;
+            case "jdk-caller-runs":
+                target = BenchmarkPool.jdk(new ThreadPoolExecutor.CallerRunsPolicy());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown pool: " + pool);
+        }
+        saturate();
+    }
+
+    /**
+     * 提交阻塞任务直到被拒绝或由调用者执行, 使线程池满载
+     */
+    private void saturate() {
+        Runnable blocker = () -> {
+            // 由调用者执行时直接返回, 说明线程池已满
+            if (Thread.currentThread() == setupThread) {
+                throw new RejectedExecutionException("saturated");
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try {
+            for (int i = 0; i < 64; i++) {
+                target.executor.execute(blocker);
+            }
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+        throw new IllegalStateException("The pool " + pool + " is not saturated");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        target.shutdown();
+    }
+
+    @Benchmark
+    public Object submit() {
+        try {
+            target.executor.execute(NOOP);
+            return null;
+        } catch (RejectedExecutionException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.shaylee.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提交路径基准测试
+ * 功能说明： executeBatch 每次提交一批任务并等待全部完成, 衡量提交吞吐(任务数 = 操作数 x batch);
+ * roundTrip 提交单个任务并等待结果, 衡量提交、移交、唤醒的端到端延迟;
+ * 生产者线程数通过 -t 或 ThreadSweep 指定
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubmitBenchmark {
+
+    @Param({"shaylee-sync", "shaylee-linked", "shaylee-forkjoin", "jdk-sync", "jdk-linked", "forkjoin"})
+    public String pool;
+
+    /**
+     * 每批任务数
+     */
+    @Param({"100"})
+    public int batch;
+
+    /**
+     * 任务内消耗的CPU(Blackhole.consumeCPU的tokens), 0为空任务
+     */
+    @Param({"0"})
+    public int work;
+
+    private BenchmarkPool target;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        target = BenchmarkPool.create(pool, Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        target.shutdown();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void executeBatch() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(batch);
+        int tokens = work;
+        Runnable task = () -> {
+            if (tokens > 0) {
+                Blackhole.consumeCPU(tokens);
+            }
+            latch.countDown();
+        };
+        for (int i = 0; i < batch; i++) {
+            target.executor.execute(task);
+        }
+        latch.await();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object roundTrip() throws Exception {
+        int tokens = work;
+        FutureTask<Object> task = new FutureTask<>(() -> {
+            if (tokens > 0) {
+                Blackhole.consumeCPU(tokens);
+            }
+            return Boolean.TRUE;
+        });
+        target.executor.execute(task);
+        return task.get();
+    }
+}
@@ -0,0 +1,37 @@
+package com.shaylee.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 按不同生产者线程数依次运行基准测试
+ * 用法: java -cp benchmarks.jar com.shaylee.benchmarks.ThreadSweep [基准测试正则] [线程数列表]
+ * 例如: java -cp benchmarks.jar com.shaylee.benchmarks.ThreadSweep SubmitBenchmark 1,4,16,64
+ * 每个线程数的结果写入 jmh-{线程数}.json
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ThreadSweep {
+    private static final String DEFAULT_INCLUDE = SubmitBenchmark.class.getSimpleName();
+    private static final String DEFAULT_THREADS = "1,2,4,8,16,32,64";
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+        String threads = args.length > 1 ? args[1] : DEFAULT_THREADS;
+        for (String t : threads.split(",")) {
+            int n = Integer.parseInt(t.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(n)
+                    .result("jmh-" + n + ".json")
+                    .resultFormat(ResultFormatType.JSON)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.shaylee.redis.bloom;
+
+import java.util.Collection;
+
+/**
+ * Title: 布隆过滤器
+ * 功能说明： 首次重建完成前不过滤(mightContain总是返回true); 重建期间新增的元素同时写入新旧过滤器
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public interface BloomFilter {
+
+    String getName();
+
+    /**
+     * @param element 元素
+     * @return 元素可能存在返回true, 一定不存在返回false
+     */
+    boolean mightContain(String element);
+
+    void put(String element);
+
+    void putAll(Collection<String> elements);
+
+    /**
+     * 用全部元素重建过滤器, 重建期间原过滤器继续使用, 完成后切换
+     *
+     * @param elements 全部元素
+     */
+    void rebuild(Iterable<String> elements);
+}
@@ -0,0 +1,63 @@
+package com.shaylee.redis.bloom;
+
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Title: 布隆过滤器位计算, 与Guava BloomFilter相同的murmur3_128双重哈希, 本地与Redis过滤器共用
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+final class BloomFilterHashing {
+    /**
+     * Redis位图最大位数(512MB)
+     */
+    static final long MAX_BITS = 1L << 32;
+
+    private BloomFilterHashing() {
+    }
+
+    /**
+     * @param expectedInsertions 预计元素数
+     * @param fpp                误判率
+     * @return 位数
+     */
+    static long optimalNumOfBits(long expectedInsertions, double fpp) {
+        long n = Math.max(1L, expectedInsertions);
+        double p = fpp <= 0 ? Double.MIN_VALUE : Math.min(fpp, 0.5D);
+        long bits = (long) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        return Math.max(64L, Math.min(MAX_BITS, bits));
+    }
+
+    /**
+     * @param expectedInsertions 预计元素数
+     * @param numBits            位数
+     * @return 哈希函数个数
+     */
+    static int optimalNumOfHashFunctions(long expectedInsertions, long numBits) {
+        return Math.max(1, (int) Math.round((double) numBits / Math.max(1L, expectedInsertions) * Math.log(2)));
+    }
+
+    /**
+     * @param element          元素
+     * @param numBits          位数
+     * @param numHashFunctions 哈希函数个数
+     * @return 元素对应的位
+     */
+    static long[] offsets(String element, long numBits, int numHashFunctions) {
+        byte[] bytes = Hashing.murmur3_128().hashString(element, StandardCharsets.UTF_8).asBytes();
+        long hash1 = Longs.fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
+        long hash2 = Longs.fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
+        long[] offsets = new long[numHashFunctions];
+        long combined = hash1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            offsets[i] = (combined & Long.MAX_VALUE) % numBits;
+            combined += hash2;
+        }
+        return offsets;
+    }
+}
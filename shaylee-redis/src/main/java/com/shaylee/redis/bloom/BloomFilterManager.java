@@ -0,0 +1,206 @@
+package com.shaylee.redis.bloom;
+
+import com.shaylee.redis.lock.utils.RedisLockUtils;
+import com.shaylee.redis.properties.RedisCacheProperties.BloomFilterProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Title: 布隆过滤器管理
+ * 功能说明： 按键前缀找到对应的过滤器, 元素为完整的缓存键; 不属于任何过滤器的键视为可能存在.
+ * 本节点登记到LOCAL过滤器的键通过登记回调广播给其他节点(见{@link LocalBloomFilterSynchronizer}),
+ * 其他节点收到后只登记到本节点
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class BloomFilterManager {
+    private static Logger logger = LoggerFactory.getLogger(BloomFilterManager.class);
+
+    /**
+     * 前缀: 过滤器, 按前缀长度降序
+     */
+    private final Map<String, BloomFilter> filtersByPrefix = new LinkedHashMap<>();
+    private final Map<String, BloomFilter> filtersByName = new LinkedHashMap<>();
+    /**
+     * 本节点登记LOCAL过滤器的键时的回调(通知其他节点)
+     */
+    private volatile Consumer<Collection<String>> localPutListener;
+
+    public BloomFilterManager(List<BloomFilterProperties> properties, RedisTemplate<String, Object> redisTemplate,
+                              RedisLockUtils redisLockUtils) {
+        List<BloomFilterProperties> sorted = new ArrayList<>();
+        if (properties != null) {
+            for (BloomFilterProperties filter : properties) {
+                if (StringUtils.isEmpty(filter.getName())) {
+                    throw new IllegalArgumentException("Bloom filter name is required");
+                }
+                if (StringUtils.isEmpty(filter.getPrefix())) {
+                    filter.setPrefix(filter.getName() + ":");
+                }
+                sorted.add(filter);
+            }
+        }
+        sorted.sort((a, b) -> b.getPrefix().length() - a.getPrefix().length());
+        for (BloomFilterProperties filter : sorted) {
+            BloomFilter bloomFilter;
+            if (filter.getStorage() == BloomFilterStorage.LOCAL) {
+                bloomFilter = new LocalBloomFilter(filter.getName(), filter.getExpectedInsertions(), filter.getFpp());
+            } else {
+                bloomFilter = new RedisBloomFilter(filter.getName(), filter.getExpectedInsertions(), filter.getFpp(),
+                        filter.getRefreshInterval(), filter.getRebuildTimeout(), redisTemplate, redisLockUtils);
+            }
+            if (filtersByName.put(filter.getName(), bloomFilter) != null) {
+                throw new IllegalArgumentException("Duplicate bloom filter: " + filter.getName());
+            }
+            filtersByPrefix.put(filter.getPrefix(), bloomFilter);
+        }
+    }
+
+    /**
+     * @return 是否配置了过滤器
+     */
+    public boolean isEnabled() {
+        return !filtersByName.isEmpty();
+    }
+
+    /**
+     * @return 是否配置了LOCAL过滤器
+     */
+    public boolean hasLocalFilters() {
+        for (BloomFilter filter : filtersByName.values()) {
+            if (filter instanceof LocalBloomFilter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 设置本节点登记LOCAL过滤器的键时的回调
+     *
+     * @param localPutListener 回调, 参数为登记的键
+     */
+    public void setLocalPutListener(Consumer<Collection<String>> localPutListener) {
+        this.localPutListener = localPutListener;
+    }
+
+    /**
+     * @param name 名称
+     * @return 过滤器, 不存在时为null
+     */
+    public BloomFilter getFilter(String name) {
+        return filtersByName.get(name);
+    }
+
+    /**
+     * @param key 缓存键
+     * @return 键所属的过滤器, 不属于任何过滤器时为null
+     */
+    public BloomFilter filterForKey(String key) {
+        if (key == null || filtersByPrefix.isEmpty()) {
+            return null;
+        }
+        for (Map.Entry<String, BloomFilter> entry : filtersByPrefix.entrySet()) {
+            if (key.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param key 缓存键
+     * @return 键可能存在(或不属于任何过滤器)返回true, 一定不存在返回false
+     */
+    public boolean mightContain(String key) {
+        BloomFilter filter = filterForKey(key);
+        return filter == null || filter.mightContain(key);
+    }
+
+    /**
+     * 登记存在的键
+     *
+     * @param key 缓存键
+     */
+    public void put(String key) {
+        BloomFilter filter = filterForKey(key);
+        if (filter != null) {
+            put(filter, Collections.singletonList(key));
+        }
+    }
+
+    /**
+     * 登记存在的键
+     *
+     * @param keys 缓存键
+     */
+    public void putAll(Collection<String> keys) {
+        if (keys == null || filtersByPrefix.isEmpty()) {
+            return;
+        }
+        Map<BloomFilter, List<String>> grouped = new LinkedHashMap<>();
+        for (String key : keys) {
+            BloomFilter filter = filterForKey(key);
+            if (filter != null) {
+                grouped.computeIfAbsent(filter, f -> new ArrayList<>()).add(key);
+            }
+        }
+        for (Map.Entry<BloomFilter, List<String>> entry : grouped.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 只登记到本节点的LOCAL过滤器, 收到其他节点的登记通知时调用
+     *
+     * @param keys 缓存键
+     */
+    public void putLocal(Collection<String> keys) {
+        for (String key : keys) {
+            BloomFilter filter = filterForKey(key);
+            if (filter instanceof LocalBloomFilter) {
+                filter.put(key);
+            }
+        }
+    }
+
+    /**
+     * 用全部存在的键重建过滤器
+     *
+     * @param name 名称
+     * @param keys 全部存在的缓存键
+     */
+    public void rebuild(String name, Iterable<String> keys) {
+        BloomFilter filter = filtersByName.get(name);
+        if (filter == null) {
+            throw new IllegalArgumentException("Bloom filter not found: " + name);
+        }
+        filter.rebuild(keys);
+    }
+
+    private void put(BloomFilter filter, Collection<String> keys) {
+        try {
+            filter.putAll(keys);
+        } catch (RuntimeException e) {
+            // 缓存已写入, 过滤器写入失败时这些键在重建前会被误判为不存在
+            logger.error("Bloom filter {} put failed, keys: {}", filter.getName(), keys, e);
+            return;
+        }
+        Consumer<Collection<String>> listener = localPutListener;
+        if (listener != null && filter instanceof LocalBloomFilter) {
+            listener.accept(keys);
+        }
+    }
+}
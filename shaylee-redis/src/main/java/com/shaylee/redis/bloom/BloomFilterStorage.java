@@ -0,0 +1,20 @@
+package com.shaylee.redis.bloom;
+
+/**
+ * Title: 布隆过滤器存储位置
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public enum BloomFilterStorage {
+    /**
+     * Redis位图, 所有节点共享
+     */
+    REDIS,
+    /**
+     * 进程内存, 每个节点各自重建, 新登记的键经Redis发布/订阅广播到所有节点;
+     * 广播丢失时未收到的节点在重建前会误判该键不存在
+     */
+    LOCAL
+}
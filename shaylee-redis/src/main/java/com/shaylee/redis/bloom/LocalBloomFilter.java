@@ -0,0 +1,110 @@
+package com.shaylee.redis.bloom;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Title: 进程内布隆过滤器, 每个节点各自重建, 只适合所有节点都能完整重建的元素集合
+ * 功能说明： 通过{@link BloomFilterManager}登记的键由{@link LocalBloomFilterSynchronizer}广播到其他节点;
+ * 广播是尽力而为的, 未收到通知的节点在下次重建前会把该键判断为不存在(不读缓存、不加载), 需定期重建
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class LocalBloomFilter implements BloomFilter {
+    private final String name;
+    private final long numBits;
+    private final int numHashFunctions;
+    /**
+     * 当前过滤器, 首次重建前为null
+     */
+    private volatile AtomicLongArray current;
+    /**
+     * 重建中的过滤器
+     */
+    private volatile AtomicLongArray building;
+
+    public LocalBloomFilter(String name, long expectedInsertions, double fpp) {
+        this.name = name;
+        this.numBits = Math.min((long) Integer.MAX_VALUE * Long.SIZE,
+                BloomFilterHashing.optimalNumOfBits(expectedInsertions, fpp));
+        this.numHashFunctions = BloomFilterHashing.optimalNumOfHashFunctions(expectedInsertions, numBits);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean mightContain(String element) {
+        AtomicLongArray bits = current;
+        if (bits == null) {
+            return true;
+        }
+        for (long offset : BloomFilterHashing.offsets(element, numBits, numHashFunctions)) {
+            if ((bits.get((int) (offset >>> 6)) & (1L << offset)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void put(String element) {
+        long[] offsets = BloomFilterHashing.offsets(element, numBits, numHashFunctions);
+        AtomicLongArray bits = current;
+        AtomicLongArray next = building;
+        while (true) {
+            set(bits, offsets);
+            set(next, offsets);
+            // 两次读取之间重建可能已开始或已切换过滤器, 写入后重新检查, 保证写入重建后的过滤器
+            AtomicLongArray nowBits = current;
+            AtomicLongArray nowNext = building;
+            if (nowBits == bits && (nowNext == null || nowNext == next)) {
+                return;
+            }
+            bits = nowBits;
+            next = nowNext;
+        }
+    }
+
+    @Override
+    public void putAll(Collection<String> elements) {
+        for (String element : elements) {
+            put(element);
+        }
+    }
+
+    @Override
+    public synchronized void rebuild(Iterable<String> elements) {
+        AtomicLongArray bits = new AtomicLongArray((int) ((numBits + Long.SIZE - 1) / Long.SIZE));
+        building = bits;
+        try {
+            for (String element : elements) {
+                set(bits, BloomFilterHashing.offsets(element, numBits, numHashFunctions));
+            }
+            current = bits;
+        } finally {
+            building = null;
+        }
+    }
+
+    private static void set(AtomicLongArray bits, long[] offsets) {
+        if (bits == null) {
+            return;
+        }
+        for (long offset : offsets) {
+            int index = (int) (offset >>> 6);
+            long mask = 1L << offset;
+            long word;
+            do {
+                word = bits.get(index);
+                if ((word & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(index, word, word | mask));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.shaylee.redis.bloom;
+
+import com.shaylee.redis.cache.KeyListMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 进程内布隆过滤器跨节点登记
+ * 功能说明： 本节点登记到LOCAL过滤器的键通过Redis发布/订阅广播给其他节点, 其他节点收到后只登记到本节点的过滤器;
+ * 通知格式见{@link KeyListMessage}, 忽略本节点发出的通知.
+ * 通知丢失(发布失败、订阅断线、节点尚未订阅)时, 该键在未收到通知的节点上重建前会被判断为不存在
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class LocalBloomFilterSynchronizer implements MessageListener, DisposableBean {
+    private static Logger logger = LoggerFactory.getLogger(LocalBloomFilterSynchronizer.class);
+
+    private final BloomFilterManager bloomFilterManager;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String channel;
+    /**
+     * 节点ID
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public LocalBloomFilterSynchronizer(BloomFilterManager bloomFilterManager,
+                                        RedisTemplate<String, Object> redisTemplate, String channel) {
+        this.bloomFilterManager = bloomFilterManager;
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        bloomFilterManager.setLocalPutListener(this::publish);
+    }
+
+    /**
+     * @return 节点ID
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 通知其他节点登记键
+     *
+     * @param keys 本节点登记的键
+     */
+    void publish(Collection<String> keys) {
+        byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+        byte[] body = KeyListMessage.encode(nodeId, keys).getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channelBytes, body));
+        } catch (Exception e) {
+            logger.warn("Failed to publish bloom filter put, other nodes see these keys after rebuild, keys: {}",
+                    keys, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (nodeId.equals(KeyListMessage.nodeId(body))) {
+            return;
+        }
+        List<String> keys;
+        try {
+            keys = KeyListMessage.keys(body);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignored malformed bloom filter put", e);
+            return;
+        }
+        bloomFilterManager.putLocal(keys);
+    }
+
+    @Override
+    public void destroy() {
+        bloomFilterManager.setLocalPutListener(null);
+    }
+}
@@ -0,0 +1,247 @@
+package com.shaylee.redis.bloom;
+
+import com.shaylee.redis.lock.utils.RedisLockUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: Redis位图布隆过滤器, 所有节点共享
+ * 功能说明： 状态哈希 bloom:{名称} 记录当前代(current)、重建中的代(next)及上一代(previous, 切换后保留一段时间),
+ * 每一代的位图为 bloom:{名称}:代; 各节点按refreshInterval缓存状态, 写入时同时写入current、next及未过期的previous.
+ * 重建时先登记next并等待一个refreshInterval, 保证所有节点开始双写后再写入全部元素, 完成后切换current
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class RedisBloomFilter implements BloomFilter {
+    private static Logger logger = LoggerFactory.getLogger(RedisBloomFilter.class);
+
+    private static final String KEY_PREFIX = "bloom:";
+    private static final String FIELD_CURRENT = "current";
+    private static final String FIELD_NEXT = "next";
+    private static final String FIELD_PREVIOUS = "previous";
+    private static final String FIELD_PREVIOUS_UNTIL = "previousUntil";
+    /**
+     * 重建时每个管道写入的元素数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final String name;
+    private final long numBits;
+    private final int numHashFunctions;
+    private final long refreshMillis;
+    private final long rebuildTimeout;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisLockUtils redisLockUtils;
+    /**
+     * 状态哈希的键, 名称作为hash tag, 集群模式下状态及各代位图在同一个槽
+     */
+    private final String metaKey;
+    private volatile Meta meta;
+
+    public RedisBloomFilter(String name, long expectedInsertions, double fpp, long refreshInterval, long rebuildTimeout,
+                            RedisTemplate<String, Object> redisTemplate, RedisLockUtils redisLockUtils) {
+        this.name = name;
+        this.numBits = BloomFilterHashing.optimalNumOfBits(expectedInsertions, fpp);
+        this.numHashFunctions = BloomFilterHashing.optimalNumOfHashFunctions(expectedInsertions, numBits);
+        this.refreshMillis = TimeUnit.SECONDS.toMillis(refreshInterval);
+        this.rebuildTimeout = rebuildTimeout;
+        this.redisTemplate = redisTemplate;
+        this.redisLockUtils = redisLockUtils;
+        this.metaKey = KEY_PREFIX + "{" + name + "}";
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean mightContain(String element) {
+        try {
+            Meta current = meta(false);
+            if (current.current <= 0) {
+                return true;
+            }
+            String bitmapKey = bitmapKey(current.current);
+            long[] offsets = BloomFilterHashing.offsets(element, numBits, numHashFunctions);
+            List<Object> bits = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                    for (long offset : offsets) {
+                        redisOperations.opsForValue().getBit(bitmapKey, offset);
+                    }
+                    return null;
+                }
+            });
+            for (Object bit : bits) {
+                if (!Boolean.TRUE.equals(bit)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // 过滤器不可用时不拦截
+            logger.warn("Bloom filter {} check failed, treat as present", name, e);
+            return true;
+        }
+    }
+
+    @Override
+    public void put(String element) {
+        putAll(Collections.singletonList(element));
+    }
+
+    @Override
+    public void putAll(Collection<String> elements) {
+        if (elements == null || elements.isEmpty()) {
+            return;
+        }
+        List<String> bitmapKeys = meta(false).writeKeys(System.currentTimeMillis());
+        if (bitmapKeys.isEmpty()) {
+            return;
+        }
+        setBits(bitmapKeys, elements);
+    }
+
+    @Override
+    public void rebuild(Iterable<String> elements) {
+        String lockKey = metaKey + ":rebuild";
+        String lockValue = UUID.randomUUID().toString();
+        if (!redisLockUtils.setNxPx(lockKey, lockValue, rebuildTimeout)) {
+            throw new IllegalStateException("Bloom filter " + name + " is rebuilding");
+        }
+        try {
+            Meta before = meta(true);
+            long generation = Math.max(before.current, before.next) + 1;
+            String bitmapKey = bitmapKey(generation);
+            redisTemplate.delete(bitmapKey);
+            redisTemplate.opsForHash().put(metaKey, FIELD_NEXT, generation);
+            // 等待所有节点读取到next, 此后新增的元素会同时写入新位图
+            Thread.sleep(refreshMillis);
+
+            List<String> batch = new ArrayList<>(REBUILD_BATCH_SIZE);
+            List<String> bitmapKeys = Collections.singletonList(bitmapKey);
+            for (String element : elements) {
+                batch.add(element);
+                if (batch.size() >= REBUILD_BATCH_SIZE) {
+                    setBits(bitmapKeys, batch);
+                    batch.clear();
+                }
+            }
+            setBits(bitmapKeys, batch);
+
+            // 切换, 上一代位图保留3个refreshInterval, 期间状态未刷新的节点仍可读取
+            long grace = Math.max(refreshMillis * 3, TimeUnit.SECONDS.toMillis(1));
+            Map<String, Object> switched = new HashMap<>();
+            switched.put(FIELD_CURRENT, generation);
+            switched.put(FIELD_PREVIOUS, before.current);
+            switched.put(FIELD_PREVIOUS_UNTIL, System.currentTimeMillis() + grace);
+            redisTemplate.opsForHash().putAll(metaKey, switched);
+            redisTemplate.opsForHash().delete(metaKey, FIELD_NEXT);
+            if (before.current > 0) {
+                redisTemplate.expire(bitmapKey(before.current), grace * 2, TimeUnit.MILLISECONDS);
+            }
+            meta(true);
+            logger.info("Bloom filter {} rebuilt, generation: {}", name, generation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding bloom filter " + name, e);
+        } finally {
+            redisLockUtils.delByKV(lockKey, lockValue);
+        }
+    }
+
+    private void setBits(List<String> bitmapKeys, Collection<String> elements) {
+        if (elements.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                for (String element : elements) {
+                    long[] offsets = BloomFilterHashing.offsets(element, numBits, numHashFunctions);
+                    for (String bitmapKey : bitmapKeys) {
+                        for (long offset : offsets) {
+                            redisOperations.opsForValue().setBit(bitmapKey, offset, true);
+                        }
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private Meta meta(boolean refresh) {
+        Meta current = meta;
+        long now = System.currentTimeMillis();
+        if (refresh || current == null || now - current.loadedAt >= refreshMillis) {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(metaKey);
+            current = new Meta(now, number(fields.get(FIELD_CURRENT)), number(fields.get(FIELD_NEXT)),
+                    number(fields.get(FIELD_PREVIOUS)), number(fields.get(FIELD_PREVIOUS_UNTIL)));
+            meta = current;
+        }
+        return current;
+    }
+
+    private String bitmapKey(long generation) {
+        return metaKey + ":" + generation;
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * 过滤器状态
+     */
+    private class Meta {
+        private final long loadedAt;
+        private final long current;
+        private final long next;
+        private final long previous;
+        private final long previousUntil;
+
+        Meta(long loadedAt, long current, long next, long previous, long previousUntil) {
+            this.loadedAt = loadedAt;
+            this.current = current;
+            this.next = next;
+            this.previous = previous;
+            this.previousUntil = previousUntil;
+        }
+
+        /**
+         * 新增元素需要写入的位图, 首次重建开始前为空
+         */
+        List<String> writeKeys(long now) {
+            List<String> keys = new ArrayList<>(3);
+            if (current > 0) {
+                keys.add(bitmapKey(current));
+            }
+            if (next > 0 && next != current) {
+                keys.add(bitmapKey(next));
+            }
+            if (previous > 0 && previousUntil > now) {
+                keys.add(bitmapKey(previous));
+            }
+            return keys;
+        }
+    }
+}
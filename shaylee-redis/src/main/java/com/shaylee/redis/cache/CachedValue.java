@@ -0,0 +1,70 @@
+package com.shaylee.redis.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+
+import java.lang.reflect.Type;
+
+/**
+ * Title: @Cached写入Redis的值, 记录写入时间、逻辑过期时间及加载耗时, 用于提前过期及后台刷新
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+@Data
+public class CachedValue {
+    /**
+     * 转换方法结果用; value声明为Object, 反序列化时不带类型信息的数值及集合元素按JSON默认类型读取,
+     * Long可能读成Integer、Float读成Double
+     */
+    private static final ObjectMapper VALUE_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * 方法结果
+     */
+    private Object value;
+    /**
+     * 写入时间(毫秒时间戳)
+     */
+    private long createdAt;
+    /**
+     * 逻辑过期时间(毫秒时间戳)
+     */
+    private long expireAt;
+    /**
+     * 加载耗时(毫秒)
+     */
+    private long loadMillis;
+
+    public CachedValue() {
+    }
+
+    public CachedValue(Object value, long createdAt, long expireAt, long loadMillis) {
+        this.value = value;
+        this.createdAt = createdAt;
+        this.expireAt = expireAt;
+        this.loadMillis = loadMillis;
+    }
+
+    /**
+     * 把方法结果转换为方法声明的返回类型, 已是该类型(且没有泛型参数)时不转换
+     *
+     * @param returnType 方法声明的返回类型
+     * @return 方法结果为指定类型的缓存值, 不修改本对象(可能被本地缓存共享)
+     * @throws IllegalArgumentException 方法结果不能转换为指定类型
+     */
+    public CachedValue convertTo(Type returnType) {
+        if (value == null) {
+            return this;
+        }
+        JavaType type = VALUE_MAPPER.getTypeFactory().constructType(returnType);
+        if (!type.hasGenericTypes() && type.getRawClass().isInstance(value)) {
+            return this;
+        }
+        return new CachedValue(VALUE_MAPPER.convertValue(value, type), createdAt, expireAt, loadMillis);
+    }
+}
@@ -0,0 +1,217 @@
+package com.shaylee.redis.cache;
+
+import com.shaylee.redis.properties.RedisCacheProperties.HotKeyProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * 热点键探测
+ * 功能说明： 用Count-Min草图(4行计数器)按窗口估计每个键的读取次数, 估计值达到阈值的键进入热点键表,
+ * 热点键表最多topK个键, 已满时替换估计值最小的键. 窗口结束(下一次读取时)移除本窗口估计值低于阈值的键并清零计数器;
+ * 估计值只会偏大(哈希冲突), 不会漏掉真正的热点键
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class HotKeyDetector {
+    private static Logger logger = LoggerFactory.getLogger(HotKeyDetector.class);
+
+    private static final int DEPTH = 4;
+
+    private final boolean enabled;
+    private final long window;
+    private final int threshold;
+    private final int topK;
+    private final long ttl;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+    /**
+     * 热点键: 估计的读取次数
+     */
+    private final ConcurrentMap<String, Long> hotKeys = new ConcurrentHashMap<>();
+    private final AtomicBoolean rolling = new AtomicBoolean();
+    private volatile long windowStart = System.currentTimeMillis();
+    /**
+     * 窗口结束时的回调, 参数为热点键(按估计值降序)
+     */
+    private volatile Consumer<Map<String, Long>> windowListener;
+
+    public HotKeyDetector(HotKeyProperties properties) {
+        this.enabled = properties != null && properties.isEnabled();
+        if (!enabled) {
+            this.window = 0L;
+            this.threshold = Integer.MAX_VALUE;
+            this.topK = 0;
+            this.ttl = 0L;
+            this.mask = 0;
+            this.counters = null;
+            return;
+        }
+        int width = Integer.highestOneBit(Math.max(16, properties.getSketchWidth()) - 1) << 1;
+        this.window = Math.max(1L, properties.getWindow());
+        this.threshold = Math.max(1, properties.getThreshold());
+        this.topK = Math.max(1, properties.getTopK());
+        this.ttl = Math.max(1L, properties.getTtl());
+        this.mask = width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+    }
+
+    /**
+     * @return 是否开启
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return 最多同时缓存的热点键数
+     */
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * @return 热点键本地缓存的过期时长(毫秒)
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * 记录一次读取
+     *
+     * @param key 键
+     */
+    public void record(String key) {
+        if (!enabled || key == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= window) {
+            roll(now);
+        }
+        int h1 = spread(key.hashCode());
+        int h2 = spread(h1 * 0x9E3779B9) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = i * (mask + 1) + ((h1 + i * h2) & mask);
+            estimate = Math.min(estimate, counters.incrementAndGet(index));
+        }
+        if (estimate >= threshold) {
+            promote(key, estimate);
+        }
+    }
+
+    /**
+     * @param key 键
+     * @return 是否热点键
+     */
+    public boolean isHot(String key) {
+        return enabled && key != null && hotKeys.containsKey(key);
+    }
+
+    /**
+     * @return 热点键及估计的读取次数, 按估计值降序
+     */
+    public Map<String, Long> getHotKeys() {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(hotKeys.entrySet());
+        entries.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * 设置窗口结束时的回调
+     *
+     * @param windowListener 回调, 参数为热点键
+     */
+    public void setWindowListener(Consumer<Map<String, Long>> windowListener) {
+        this.windowListener = windowListener;
+    }
+
+    private void promote(String key, long estimate) {
+        if (hotKeys.replace(key, estimate) != null) {
+            return;
+        }
+        if (hotKeys.size() >= topK) {
+            Map.Entry<String, Long> min = null;
+            for (Map.Entry<String, Long> entry : hotKeys.entrySet()) {
+                if (min == null || entry.getValue() < min.getValue()) {
+                    min = entry;
+                }
+            }
+            if (min == null || min.getValue() >= estimate || !hotKeys.remove(min.getKey(), min.getValue())) {
+                return;
+            }
+        }
+        if (hotKeys.putIfAbsent(key, estimate) == null) {
+            logger.info("Hot key detected: {}, reads in window: {}", key, estimate);
+        }
+    }
+
+    /**
+     * 窗口结束, 只有一个线程执行; 清零期间的少量计数会丢失
+     */
+    private void roll(long now) {
+        if (!rolling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (now - windowStart < window) {
+                return;
+            }
+            if (now - windowStart >= window * 2) {
+                // 上一个完整窗口内没有读取
+                hotKeys.clear();
+            } else {
+                for (Map.Entry<String, Long> entry : hotKeys.entrySet()) {
+                    if (estimate(entry.getKey()) < threshold) {
+                        hotKeys.remove(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            for (int i = 0; i < counters.length(); i++) {
+                counters.set(i, 0);
+            }
+            windowStart = now;
+        } finally {
+            rolling.set(false);
+        }
+        Consumer<Map<String, Long>> listener = windowListener;
+        if (listener != null) {
+            listener.accept(getHotKeys());
+        }
+    }
+
+    private int estimate(String key) {
+        int h1 = spread(key.hashCode());
+        int h2 = spread(h1 * 0x9E3779B9) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, counters.get(i * (mask + 1) + ((h1 + i * h2) & mask)));
+        }
+        return estimate;
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
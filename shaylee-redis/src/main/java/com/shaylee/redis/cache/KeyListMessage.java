@@ -0,0 +1,77 @@
+package com.shaylee.redis.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Title: 节点间广播的键列表消息
+ * 功能说明： 格式为 节点ID + 换行 + 每个键的(长度 + ':' + 键), 长度为键的字符数;
+ * 键按长度截取, 可以包含换行、冒号等任意字符
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public final class KeyListMessage {
+    private static final char HEADER_SEPARATOR = '\n';
+    private static final char LENGTH_SEPARATOR = ':';
+
+    private KeyListMessage() {
+    }
+
+    /**
+     * @param nodeId 发送节点ID, 不能包含换行
+     * @param keys   键
+     * @return 消息
+     */
+    public static String encode(String nodeId, Collection<String> keys) {
+        StringBuilder message = new StringBuilder(nodeId).append(HEADER_SEPARATOR);
+        for (String key : keys) {
+            message.append(key.length()).append(LENGTH_SEPARATOR).append(key);
+        }
+        return message.toString();
+    }
+
+    /**
+     * @param message 消息
+     * @return 发送节点ID, 格式不正确时为null
+     */
+    public static String nodeId(String message) {
+        int end = message.indexOf(HEADER_SEPARATOR);
+        return end < 0 ? null : message.substring(0, end);
+    }
+
+    /**
+     * @param message 消息
+     * @return 消息中的键
+     * @throws IllegalArgumentException 格式不正确
+     */
+    public static List<String> keys(String message) {
+        int start = message.indexOf(HEADER_SEPARATOR);
+        if (start < 0) {
+            throw new IllegalArgumentException("Missing node id");
+        }
+        List<String> keys = new ArrayList<>();
+        int pos = start + 1;
+        while (pos < message.length()) {
+            int colon = message.indexOf(LENGTH_SEPARATOR, pos);
+            if (colon <= pos) {
+                throw new IllegalArgumentException("Missing key length at " + pos);
+            }
+            int length;
+            try {
+                length = Integer.parseInt(message.substring(pos, colon));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid key length at " + pos, e);
+            }
+            int end = colon + 1 + length;
+            if (length < 0 || end > message.length() || end < 0) {
+                throw new IllegalArgumentException("Invalid key length at " + pos);
+            }
+            keys.add(message.substring(colon + 1, end));
+            pos = end;
+        }
+        return keys;
+    }
+}
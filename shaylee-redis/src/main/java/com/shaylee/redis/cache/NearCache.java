@@ -0,0 +1,395 @@
+package com.shaylee.redis.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.shaylee.redis.properties.RedisCacheProperties.NearCacheProperties;
+import com.shaylee.redis.properties.RedisCacheProperties.RegionProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * 本地缓存(L1)
+ * 功能说明： 按键前缀划分区域, 每个区域一个有容量及过期上限的Guava缓存, 缓存Redis读到的反序列化对象;
+ * 写操作在Redis写入后失效本地缓存. 读Redis前取键的版本号, 写入本地缓存时版本号已变化(期间有失效)则放弃,
+ * 避免并发读把旧值写回本地缓存. 空值不缓存.
+ * 开启热点键探测时, 不属于任何区域的热点键进入热点区域, 过期时长较短, 失效方式与其他区域相同.
+ * 注意: 命中时返回的是同一个对象, 调用方不应修改
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class NearCache {
+    /**
+     * 版本号分段数
+     */
+    private static final int STAMP_STRIPES = 4096;
+
+    /**
+     * 区域, 按前缀长度降序
+     */
+    private final List<Region> regions;
+    /**
+     * 热点区域, 未开启热点键探测时为null
+     */
+    private final Region hotRegion;
+    private final HotKeyDetector hotKeyDetector;
+    /**
+     * 键的版本号(按键哈希分段), 失效时递增
+     */
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    /**
+     * 本节点写入失效键时的回调(通知其他节点)
+     */
+    private volatile Consumer<String> invalidationListener;
+
+    public NearCache(NearCacheProperties properties) {
+        this(properties, null);
+    }
+
+    public NearCache(NearCacheProperties properties, HotKeyDetector hotKeyDetector) {
+        List<Region> regions = new ArrayList<>();
+        if (properties != null && properties.isEnabled() && properties.getRegions() != null) {
+            for (RegionProperties region : properties.getRegions()) {
+                if (region.getPrefix() == null) {
+                    continue;
+                }
+                long maximumSize = region.getMaximumSize() != null ? region.getMaximumSize() : properties.getMaximumSize();
+                long expireAfterWrite = region.getExpireAfterWrite() != null
+                        ? region.getExpireAfterWrite() : properties.getExpireAfterWrite();
+                regions.add(new Region(region.getPrefix(), maximumSize, expireAfterWrite, TimeUnit.SECONDS));
+            }
+        }
+        regions.sort((a, b) -> b.prefix.length() - a.prefix.length());
+        this.regions = Collections.unmodifiableList(regions);
+        if (hotKeyDetector != null && hotKeyDetector.isEnabled()) {
+            this.hotKeyDetector = hotKeyDetector;
+            this.hotRegion = new Region("", hotKeyDetector.getTopK(), hotKeyDetector.getTtl(), TimeUnit.MILLISECONDS);
+        } else {
+            this.hotKeyDetector = null;
+            this.hotRegion = null;
+        }
+    }
+
+    /**
+     * @return 是否有缓存区域
+     */
+    public boolean isEnabled() {
+        return !regions.isEmpty() || hotRegion != null;
+    }
+
+    /**
+     * @return 热点区域, 未开启热点键探测时为null
+     */
+    public Region getHotRegion() {
+        return hotRegion;
+    }
+
+    /**
+     * 记录读取, 用于探测热点键; 属于区域的键已在本地缓存, 不记录
+     *
+     * @param key 键
+     */
+    public void recordAccess(String key) {
+        if (hotKeyDetector != null && configuredRegion(key) == null) {
+            hotKeyDetector.record(key);
+        }
+    }
+
+    /**
+     * @return 缓存区域
+     */
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    /**
+     * 键所属的区域
+     *
+     * @param key 键
+     * @return 区域, 不缓存时为null
+     */
+    public Region region(String key) {
+        Region region = configuredRegion(key);
+        if (region == null && hotRegion != null && hotKeyDetector.isHot(key)) {
+            return hotRegion;
+        }
+        return region;
+    }
+
+    /**
+     * 读Redis前获取键的版本号
+     *
+     * @param key 键
+     * @return 版本号
+     */
+    public long stamp(String key) {
+        return stamps.get(stripe(key));
+    }
+
+    /**
+     * 读取缓存的值
+     *
+     * @param key 键
+     * @return 值, 未命中时为null
+     */
+    public Object get(String key) {
+        Region region = region(key);
+        if (region == null) {
+            return null;
+        }
+        Object value = region.cache.getIfPresent(key);
+        return value instanceof NearHash ? null : value;
+    }
+
+    /**
+     * 缓存从Redis读到的值
+     *
+     * @param key   键
+     * @param value 值
+     * @param stamp 读Redis前的版本号
+     */
+    public void put(String key, Object value, long stamp) {
+        Region region = region(key);
+        if (region == null || value == null) {
+            return;
+        }
+        if (stamp(key) != stamp) {
+            return;
+        }
+        region.cache.put(key, value);
+        recheck(region, key, stamp);
+    }
+
+    /**
+     * 读取缓存的哈希字段
+     *
+     * @param key   键
+     * @param field 字段
+     * @return 值, 未命中时为null
+     */
+    public Object getField(String key, String field) {
+        NearHash hash = hash(key);
+        return hash == null ? null : hash.fields.get(field);
+    }
+
+    /**
+     * 缓存从Redis读到的哈希字段
+     *
+     * @param key   键
+     * @param field 字段
+     * @param value 值
+     * @param stamp 读Redis前的版本号
+     */
+    public void putField(String key, String field, Object value, long stamp) {
+        Region region = region(key);
+        if (region == null || field == null || value == null) {
+            return;
+        }
+        if (stamp(key) != stamp) {
+            return;
+        }
+        Object cached = region.cache.asMap().putIfAbsent(key, new NearHash());
+        if (cached == null) {
+            cached = region.cache.asMap().get(key);
+        }
+        if (!(cached instanceof NearHash)) {
+            return;
+        }
+        ((NearHash) cached).fields.put(field, value);
+        recheck(region, key, stamp);
+    }
+
+    /**
+     * 读取缓存的完整哈希
+     *
+     * @param key 键
+     * @return 哈希的副本, 未命中时为null
+     */
+    public Map<String, Object> getHash(String key) {
+        NearHash hash = hash(key);
+        return hash == null || !hash.complete ? null : new HashMap<>(hash.fields);
+    }
+
+    /**
+     * 缓存从Redis读到的完整哈希
+     *
+     * @param key   键
+     * @param map   哈希
+     * @param stamp 读Redis前的版本号
+     */
+    public void putHash(String key, Map<String, Object> map, long stamp) {
+        Region region = region(key);
+        if (region == null || map == null || map.isEmpty()) {
+            return;
+        }
+        if (stamp(key) != stamp) {
+            return;
+        }
+        NearHash hash = new NearHash();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                hash.fields.put(entry.getKey(), entry.getValue());
+            }
+        }
+        hash.complete = true;
+        region.cache.put(key, hash);
+        recheck(region, key, stamp);
+    }
+
+    /**
+     * 设置本节点写入失效键时的回调
+     *
+     * @param invalidationListener 回调, 参数为失效的键
+     */
+    public void setInvalidationListener(Consumer<String> invalidationListener) {
+        this.invalidationListener = invalidationListener;
+    }
+
+    /**
+     * 失效键, 本节点Redis写入/删除后调用, 并通知其他节点
+     *
+     * @param key 键
+     */
+    public void invalidate(String key) {
+        if (!invalidateLocal(key)) {
+            return;
+        }
+        Consumer<String> listener = invalidationListener;
+        if (listener != null) {
+            listener.accept(key);
+        }
+    }
+
+    /**
+     * 只失效本节点的键, 收到其他节点的失效通知时调用
+     *
+     * @param key 键
+     * @return 是否需要通知其他节点: 键属于配置的区域, 或开启了热点区域(其他节点可能把该键缓存为热点键,
+     * 本节点的热点判断不能代表其他节点)
+     */
+    public boolean invalidateLocal(String key) {
+        Region region = configuredRegion(key);
+        if (region == null) {
+            if (hotRegion == null || key == null) {
+                return false;
+            }
+            // 已降级的热点键可能仍在热点区域中, 总是失效
+            stamps.incrementAndGet(stripe(key));
+            hotRegion.cache.invalidate(key);
+            return true;
+        }
+        stamps.incrementAndGet(stripe(key));
+        region.cache.invalidate(key);
+        return true;
+    }
+
+    /**
+     * 失效多个键
+     *
+     * @param keys 键
+     */
+    public void invalidateAll(Collection<String> keys) {
+        if (keys == null || !isEnabled()) {
+            return;
+        }
+        for (String key : keys) {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * 清空所有区域
+     */
+    public void clear() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            stamps.incrementAndGet(i);
+        }
+        for (Region region : regions) {
+            region.cache.invalidateAll();
+        }
+        if (hotRegion != null) {
+            hotRegion.cache.invalidateAll();
+        }
+    }
+
+    private Region configuredRegion(String key) {
+        if (key == null) {
+            return null;
+        }
+        for (Region region : regions) {
+            if (key.startsWith(region.prefix)) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    private NearHash hash(String key) {
+        Region region = region(key);
+        if (region == null) {
+            return null;
+        }
+        Object value = region.cache.getIfPresent(key);
+        return value instanceof NearHash ? (NearHash) value : null;
+    }
+
+    /**
+     * 写入后版本号已变化说明与失效并发, 失效可能发生在写入之前, 再失效一次
+     */
+    private void recheck(Region region, String key, long stamp) {
+        if (stamp(key) != stamp) {
+            region.cache.invalidate(key);
+        }
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    /**
+     * 缓存区域
+     */
+    public static class Region {
+        private final String prefix;
+        private final Cache<String, Object> cache;
+
+        Region(String prefix, long maximumSize, long expireAfterWrite, TimeUnit unit) {
+            this.prefix = prefix;
+            this.cache = CacheBuilder.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(expireAfterWrite, unit)
+                    .recordStats()
+                    .build();
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public Cache<String, Object> getCache() {
+            return cache;
+        }
+    }
+
+    /**
+     * 缓存的哈希, hGet逐个缓存字段, hGetAll缓存完整哈希
+     */
+    private static class NearHash {
+        private final Map<String, Object> fields = new ConcurrentHashMap<>();
+        /**
+         * 是否包含全部字段
+         */
+        private volatile boolean complete;
+    }
+}
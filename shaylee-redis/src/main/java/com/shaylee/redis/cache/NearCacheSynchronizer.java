@@ -0,0 +1,142 @@
+package com.shaylee.redis.cache;
+
+import com.shaylee.redis.properties.RedisCacheProperties.SyncProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 本地缓存跨节点失效
+ * 功能说明： 本节点写入失效的键在batchInterval内合并, 通过Redis发布/订阅广播给其他节点,
+ * 其他节点收到后只失效本地缓存; 通知格式见{@link KeyListMessage}, 忽略本节点发出的通知.
+ * 通知丢失(发布失败、订阅断线)时, 本地缓存由区域的写入后过期时长兜底
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class NearCacheSynchronizer implements MessageListener, DisposableBean {
+    private static Logger logger = LoggerFactory.getLogger(NearCacheSynchronizer.class);
+
+    private final NearCache nearCache;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final SyncProperties properties;
+    /**
+     * 节点ID
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+    /**
+     * 待通知的键
+     */
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * 是否已安排发送
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+
+    public NearCacheSynchronizer(NearCache nearCache, RedisTemplate<String, Object> redisTemplate,
+                                 SyncProperties properties) {
+        this.nearCache = nearCache;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "near-cache-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        nearCache.setInvalidationListener(this::enqueue);
+    }
+
+    /**
+     * @return 节点ID
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 登记本节点失效的键, 合并后发送
+     *
+     * @param key 键
+     */
+    void enqueue(String key) {
+        pending.add(key);
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::flush, properties.getBatchInterval(), TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // 已关闭
+                scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * 发送所有待通知的键
+     */
+    void flush() {
+        scheduled.set(false);
+        int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        while (!pending.isEmpty()) {
+            List<String> keys = new ArrayList<>();
+            String key;
+            while (keys.size() < maxBatchSize && (key = pending.poll()) != null) {
+                keys.add(key);
+            }
+            if (!keys.isEmpty()) {
+                publish(KeyListMessage.encode(nodeId, keys));
+            }
+        }
+    }
+
+    private void publish(String message) {
+        byte[] channel = properties.getChannel().getBytes(StandardCharsets.UTF_8);
+        byte[] body = message.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+        } catch (Exception e) {
+            logger.warn("Failed to publish near cache invalidation, entries will expire by TTL", e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (nodeId.equals(KeyListMessage.nodeId(body))) {
+            return;
+        }
+        List<String> keys;
+        try {
+            keys = KeyListMessage.keys(body);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignored malformed near cache invalidation, entries will expire by TTL", e);
+            return;
+        }
+        for (String key : keys) {
+            nearCache.invalidateLocal(key);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        nearCache.setInvalidationListener(null);
+        scheduler.shutdown();
+        flush();
+    }
+}
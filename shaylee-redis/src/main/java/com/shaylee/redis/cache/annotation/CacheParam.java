@@ -0,0 +1,23 @@
+package com.shaylee.redis.cache.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Title: 缓存参数，用于组建缓存键
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+@Target({ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface CacheParam {
+    /**
+     * 参数为对象时取其中的属性组建缓存键，可以为多个，基本类型则不需要设置该值
+     * <p>例1：public User get(@CacheParam Long id)
+     * <p>例2：public List<Order> list(@CacheParam({"userId","status"}) OrderQuery query)
+     */
+    String[] fields() default {};
+}
@@ -0,0 +1,87 @@
+package com.shaylee.redis.cache.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Title: 缓存注解, 方法结果按 key + @CacheParam参数 缓存到Redis, 未命中时执行方法并写入缓存
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface Cached {
+
+    /**
+     * 缓存键前缀, 完整的键为 key:参数1:参数2...
+     *
+     * @return
+     */
+    String key();
+
+    /**
+     * 过期时间(秒)
+     *
+     * @return
+     */
+    long ttl() default 60 * 60L;
+
+    /**
+     * 未命中时是否先获取Redis锁, 多个节点同时未命中时只有一个节点执行方法
+     *
+     * @return
+     */
+    boolean lock() default false;
+
+    /**
+     * 锁的过期时间(秒)
+     *
+     * @return
+     */
+    long lockExpire() default 10L;
+
+    /**
+     * 获取锁失败时等待其他节点写入缓存的最长时间(毫秒), 超时后自行执行方法
+     *
+     * @return
+     */
+    long lockWait() default 3000L;
+
+    /**
+     * 等待本节点其他线程加载同一个键的最长时间(毫秒), 超时后自行执行方法
+     *
+     * @return
+     */
+    long loadWait() default 3000L;
+
+    /**
+     * 提前过期系数(XFetch的beta), 临近过期时按执行耗时以一定概率提前重新加载, 越大越早; 0为不提前
+     *
+     * @return
+     */
+    double earlyExpiry() default 1.0D;
+
+    /**
+     * 剩余有效期低于ttl的该比例时在后台线程刷新缓存, 调用方直接返回旧值; 0为不刷新
+     *
+     * @return
+     */
+    double refreshAhead() default 0D;
+
+    /**
+     * 后台刷新使用的Executor Bean名称(如托管线程池名), 为空时使用内置的刷新线程
+     *
+     * @return
+     */
+    String refreshExecutor() default "";
+
+    /**
+     * 方法返回null时是否缓存空值, 过期时长为redis-cache.null-expire, 防止不存在的数据反复穿透到方法
+     *
+     * @return
+     */
+    boolean cacheNull() default false;
+}
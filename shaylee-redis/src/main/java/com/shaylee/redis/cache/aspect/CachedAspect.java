@@ -0,0 +1,395 @@
+package com.shaylee.redis.cache.aspect;
+
+import com.shaylee.redis.bloom.BloomFilterManager;
+import com.shaylee.redis.cache.CachedValue;
+import com.shaylee.redis.cache.annotation.CacheParam;
+import com.shaylee.redis.cache.annotation.Cached;
+import com.shaylee.redis.lock.utils.RedisLockUtils;
+import com.shaylee.redis.properties.RedisCacheProperties;
+import com.shaylee.redis.service.CacheService;
+import org.apache.commons.lang3.StringUtils;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Title: 缓存切面实现
+ * 功能说明： 命中时直接返回; 未命中时同一个键在本节点只有一个线程执行方法, 其余线程等待其结果,
+ * 开启lock时跨节点只有获得Redis锁的节点执行方法; 临近过期时按XFetch算法由一个线程提前重新加载,
+ * 或在后台线程刷新(refreshAhead), 其余线程返回旧值. 方法返回null时按cacheNull缓存空值;
+ * 键属于布隆过滤器且一定不存在时直接返回null, 不读缓存也不执行方法
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+@Aspect
+@Component
+public class CachedAspect implements BeanFactoryAware, DisposableBean {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final String LOCK_PREFIX = "CACHED_LOCK_";
+    private static final String KEY_SEPARATOR = ":";
+    /**
+     * 等待其他节点写入缓存时的轮询间隔(毫秒)
+     */
+    private static final long LOCK_POLL_INTERVAL = 50L;
+
+    @Value("${spring.aop.proxy-target-class:#{true}}")
+    private Boolean proxyTargetClass;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private RedisLockUtils redisLockUtils;
+
+    @Autowired
+    private RedisCacheProperties redisCacheProperties;
+
+    @Autowired
+    private BloomFilterManager bloomFilterManager;
+
+    private BeanFactory beanFactory;
+
+    /**
+     * 正在加载的键
+     */
+    private final ConcurrentMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    /**
+     * 后台刷新的Executor
+     */
+    private final ConcurrentMap<String, Executor> refreshExecutors = new ConcurrentHashMap<>();
+    private volatile ThreadPoolExecutor defaultRefreshExecutor;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = beanFactory;
+    }
+
+    @Pointcut(value = "@annotation(com.shaylee.redis.cache.annotation.Cached)")
+    public void cachedPointcut() {
+
+    }
+
+    @Around(value = "cachedPointcut()")
+    public Object dealCache(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method;
+        if (proxyTargetClass) {
+            method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        } else {
+            method = this.getMethodByClazz(joinPoint);
+        }
+        Cached cached = method.getAnnotation(Cached.class);
+        if (cached == null) {
+            throw new RuntimeException("==========>cache exception: The cache parameter cannot be retrieved!!!");
+        }
+        String key = buildCacheKey(cached, method, joinPoint.getArgs());
+        if (!bloomFilterManager.mightContain(key)) {
+            return null;
+        }
+
+        CachedValue current = read(key, joinPoint);
+        if (current == null) {
+            return load(joinPoint, cached, key);
+        }
+        if (current.getValue() == null) {
+            // 空值只按过期时间失效, 不提前加载
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (shouldRefreshAhead(cached, current, now)) {
+            refreshAsync(joinPoint, cached, key);
+        } else if (shouldExpireEarly(cached, current, now)) {
+            // 只有一个线程提前加载, 其余线程返回旧值
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            if (loading.putIfAbsent(key, future) == null) {
+                try {
+                    return loadInto(future, joinPoint, cached, key, false);
+                } catch (Throwable e) {
+                    logger.warn("========={}========> early reload fail, return cached value, key:{}",
+                            this.getClass().getSimpleName(), key, e);
+                }
+            }
+        }
+        return current.getValue();
+    }
+
+    /**
+     * 未命中时加载, 同一个键只有一个线程执行方法; 其余线程最多等待loadWait, 超时后自行执行方法
+     */
+    private Object load(ProceedingJoinPoint joinPoint, Cached cached, String key) throws Throwable {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.get(cached.loadWait(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            } catch (TimeoutException e) {
+                logger.warn("========={}========> wait for loading timeout, load by self, key:{}",
+                        this.getClass().getSimpleName(), key);
+                return cached.lock() ? loadWithLock(joinPoint, cached, key) : loadAndStore(joinPoint, cached, key);
+            }
+        }
+        return loadInto(future, joinPoint, cached, key, cached.lock());
+    }
+
+    /**
+     * 执行方法并把结果交给等待的线程
+     */
+    private Object loadInto(CompletableFuture<Object> future, ProceedingJoinPoint joinPoint, Cached cached,
+                            String key, boolean lock) throws Throwable {
+        try {
+            Object value = lock ? loadWithLock(joinPoint, cached, key) : loadAndStore(joinPoint, cached, key);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 获得Redis锁的节点执行方法, 其他节点等待其写入缓存, 超时后自行执行
+     */
+    private Object loadWithLock(ProceedingJoinPoint joinPoint, Cached cached, String key) throws Throwable {
+        String lockKey = LOCK_PREFIX + key;
+        String lockValue = UUID.randomUUID().toString();
+        if (redisLockUtils.setNxPx(lockKey, lockValue, cached.lockExpire())) {
+            try {
+                // 获取锁之前其他节点可能已经写入
+                CachedValue current = read(key, joinPoint);
+                if (current != null) {
+                    return current.getValue();
+                }
+                return loadAndStore(joinPoint, cached, key);
+            } finally {
+                redisLockUtils.delByKV(lockKey, lockValue);
+            }
+        }
+        long deadline = System.currentTimeMillis() + cached.lockWait();
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(LOCK_POLL_INTERVAL);
+            CachedValue current = read(key, joinPoint);
+            if (current != null) {
+                return current.getValue();
+            }
+        }
+        logger.warn("========={}========> wait for cache timeout, load without lock, key:{}",
+                this.getClass().getSimpleName(), key);
+        return loadAndStore(joinPoint, cached, key);
+    }
+
+    private Object loadAndStore(ProceedingJoinPoint joinPoint, Cached cached, String key) throws Throwable {
+        long start = System.currentTimeMillis();
+        Object value = joinPoint.proceed();
+        long end = System.currentTimeMillis();
+        long ttl;
+        if (value != null) {
+            ttl = cached.ttl();
+        } else if (cached.cacheNull()) {
+            ttl = redisCacheProperties.getNullExpire();
+        } else {
+            return null;
+        }
+        cacheService.set(key, new CachedValue(value, end, end + TimeUnit.SECONDS.toMillis(ttl), end - start), ttl);
+        return value;
+    }
+
+    /**
+     * 在后台线程刷新, 同一个键只有一个刷新任务; Executor拒绝时在调用线程刷新,
+     * 取不到Executor或提交失败时放弃本次刷新, 不影响之后的加载
+     */
+    private void refreshAsync(ProceedingJoinPoint joinPoint, Cached cached, String key) {
+        Executor executor;
+        try {
+            executor = refreshExecutor(cached);
+        } catch (RuntimeException e) {
+            logger.warn("========={}========> refresh executor unavailable, key:{}", this.getClass().getSimpleName(), key, e);
+            return;
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, future) != null) {
+            return;
+        }
+        Runnable refresh = () -> {
+            try {
+                loadInto(future, joinPoint, cached, key, false);
+            } catch (Throwable e) {
+                logger.warn("========={}========> refresh cache fail, key:{}", this.getClass().getSimpleName(), key, e);
+            }
+        };
+        try {
+            executor.execute(refresh);
+        } catch (RejectedExecutionException e) {
+            refresh.run();
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            loading.remove(key, future);
+            logger.warn("========={}========> submit refresh fail, key:{}", this.getClass().getSimpleName(), key, e);
+        }
+    }
+
+    private boolean shouldRefreshAhead(Cached cached, CachedValue current, long now) {
+        return cached.refreshAhead() > 0
+                && current.getExpireAt() - now < TimeUnit.SECONDS.toMillis(cached.ttl()) * cached.refreshAhead();
+    }
+
+    /**
+     * XFetch: now - 加载耗时 * beta * ln(random) >= 过期时间 时提前加载, 加载越慢、越临近过期, 概率越大
+     */
+    private boolean shouldExpireEarly(Cached cached, CachedValue current, long now) {
+        if (cached.earlyExpiry() <= 0) {
+            return false;
+        }
+        double random = ThreadLocalRandom.current().nextDouble();
+        return now - Math.max(1L, current.getLoadMillis()) * cached.earlyExpiry() * Math.log(random) >= current.getExpireAt();
+    }
+
+    /**
+     * 读取缓存值, 方法结果转换为方法声明的返回类型; 不能转换时(如返回类型已修改)按未命中处理
+     */
+    private CachedValue read(String key, ProceedingJoinPoint joinPoint) {
+        Object value = cacheService.get(key);
+        if (!(value instanceof CachedValue)) {
+            return null;
+        }
+        Type returnType = ((MethodSignature) joinPoint.getSignature()).getMethod().getGenericReturnType();
+        try {
+            return ((CachedValue) value).convertTo(returnType);
+        } catch (IllegalArgumentException e) {
+            logger.warn("========={}========> cached value does not match the return type, reload, key:{}",
+                    this.getClass().getSimpleName(), key, e);
+            return null;
+        }
+    }
+
+    private Executor refreshExecutor(Cached cached) {
+        String name = cached.refreshExecutor();
+        if (StringUtils.isEmpty(name)) {
+            return defaultRefreshExecutor();
+        }
+        return refreshExecutors.computeIfAbsent(name, n -> beanFactory.getBean(n, Executor.class));
+    }
+
+    private ThreadPoolExecutor defaultRefreshExecutor() {
+        ThreadPoolExecutor executor = defaultRefreshExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = defaultRefreshExecutor;
+                if (executor == null) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1024), r -> {
+                        Thread t = new Thread(r, "cache-refresh-" + threadNumber.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    executor.allowCoreThreadTimeOut(true);
+                    defaultRefreshExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        ThreadPoolExecutor executor = defaultRefreshExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 构造缓存键
+     *
+     * @param cached 注解
+     * @param method 注解标记的方法
+     * @param args   方法上的参数
+     * @return 缓存键
+     */
+    private String buildCacheKey(Cached cached, Method method, Object[] args) throws IllegalAccessException {
+        StringBuilder key = new StringBuilder(cached.key());
+
+        // 按使用@CacheParam注解的参数下标取args中对应的参数值拼接
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (!annotation.annotationType().equals(CacheParam.class)) {
+                    continue;
+                }
+                String[] fields = ((CacheParam) annotation).fields();
+                if (fields.length == 0) {
+                    // 普通数据类型直接拼接
+                    key.append(KEY_SEPARATOR).append(args[i]);
+                    continue;
+                }
+                // 对象类型拼接指定的属性
+                for (String field : fields) {
+                    key.append(KEY_SEPARATOR).append(args[i] == null ? null : getFieldValue(args[i], field));
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 获取本类及父类的属性值
+     */
+    private Object getFieldValue(Object target, String name) throws IllegalAccessException {
+        Class<?> clazz = target.getClass();
+        while (clazz != null && clazz != Object.class) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    field.setAccessible(true);
+                    return field.get(target);
+                }
+            }
+            clazz = clazz.getSuperclass();
+        }
+        throw new RuntimeException("缓存参数不存在: " + target.getClass().getName() + "." + name);
+    }
+
+    /**
+     * 支持JDK动态代理
+     */
+    private Method getMethodByClazz(JoinPoint joinPoint) throws Exception {
+        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
+        Method method = methodSignature.getMethod();
+        // JDK动态代理，代理对象的方法不会有注解，要取注解只能从目标对象取
+        Class<?> clazz = joinPoint.getTarget().getClass();
+        return clazz.getDeclaredMethod(methodSignature.getName(), method.getParameterTypes());
+    }
+}
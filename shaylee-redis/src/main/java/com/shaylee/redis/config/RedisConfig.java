@@ -1,10 +1,20 @@
 package com.shaylee.redis.config;
 
+import com.shaylee.redis.bloom.BloomFilterManager;
+import com.shaylee.redis.bloom.LocalBloomFilterSynchronizer;
+import com.shaylee.redis.cache.HotKeyDetector;
+import com.shaylee.redis.cache.NearCache;
+import com.shaylee.redis.cache.NearCacheSynchronizer;
+import com.shaylee.redis.lock.utils.RedisLockUtils;
+import com.shaylee.redis.properties.RedisCacheProperties;
+import com.shaylee.redis.serializer.CodecRedisSerializer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import javax.annotation.Resource;
@@ -24,13 +34,72 @@ public class RedisConfig {
     private RedisConnectionFactory factory;
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate() {
+    public RedisTemplate<String, Object> redisTemplate(RedisCacheProperties redisCacheProperties) {
         RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        // 值使用配置的编码格式, 同时可以读取原有GenericJackson2JsonRedisSerializer写入的JSON
+        CodecRedisSerializer valueSerializer = new CodecRedisSerializer(redisCacheProperties.getCodec());
         redisTemplate.setKeySerializer(new StringRedisSerializer(StandardCharsets.UTF_8));
         redisTemplate.setHashKeySerializer(new StringRedisSerializer(StandardCharsets.UTF_8));
-        redisTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
-        redisTemplate.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.setValueSerializer(valueSerializer);
+        redisTemplate.setHashValueSerializer(valueSerializer);
         redisTemplate.setConnectionFactory(factory);
         return redisTemplate;
     }
+
+    @Bean
+    public BloomFilterManager bloomFilterManager(RedisCacheProperties redisCacheProperties,
+                                                 RedisTemplate<String, Object> redisTemplate,
+                                                 RedisLockUtils redisLockUtils) {
+        return new BloomFilterManager(redisCacheProperties.getBloomFilters(), redisTemplate, redisLockUtils);
+    }
+
+    @Bean
+    public LocalBloomFilterSynchronizer localBloomFilterSynchronizer(BloomFilterManager bloomFilterManager,
+                                                                     RedisTemplate<String, Object> redisTemplate,
+                                                                     RedisCacheProperties redisCacheProperties) {
+        return new LocalBloomFilterSynchronizer(bloomFilterManager, redisTemplate,
+                redisCacheProperties.getBloomFilterChannel());
+    }
+
+    @Bean
+    public RedisMessageListenerContainer bloomFilterListenerContainer(BloomFilterManager bloomFilterManager,
+                                                                      LocalBloomFilterSynchronizer localBloomFilterSynchronizer,
+                                                                      RedisCacheProperties redisCacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        // 没有LOCAL过滤器时不订阅
+        if (bloomFilterManager.hasLocalFilters()) {
+            container.addMessageListener(localBloomFilterSynchronizer,
+                    new ChannelTopic(redisCacheProperties.getBloomFilterChannel()));
+        }
+        return container;
+    }
+
+    @Bean
+    public HotKeyDetector hotKeyDetector(RedisCacheProperties redisCacheProperties) {
+        return new HotKeyDetector(redisCacheProperties.getHotKey());
+    }
+
+    @Bean
+    public NearCache nearCache(RedisCacheProperties redisCacheProperties, HotKeyDetector hotKeyDetector) {
+        return new NearCache(redisCacheProperties.getNearCache(), hotKeyDetector);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "redis-cache.near-cache.sync", name = "enabled", havingValue = "true")
+    public NearCacheSynchronizer nearCacheSynchronizer(NearCache nearCache, RedisTemplate<String, Object> redisTemplate,
+                                                       RedisCacheProperties redisCacheProperties) {
+        return new NearCacheSynchronizer(nearCache, redisTemplate, redisCacheProperties.getNearCache().getSync());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "redis-cache.near-cache.sync", name = "enabled", havingValue = "true")
+    public RedisMessageListenerContainer nearCacheListenerContainer(NearCacheSynchronizer nearCacheSynchronizer,
+                                                                    RedisCacheProperties redisCacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(nearCacheSynchronizer,
+                new ChannelTopic(redisCacheProperties.getNearCache().getSync().getChannel()));
+        return container;
+    }
 }
@@ -0,0 +1,31 @@
+package com.shaylee.redis.config;
+
+import com.shaylee.redis.cache.HotKeyDetector;
+import com.shaylee.redis.cache.NearCache;
+import com.shaylee.redis.metrics.HotKeyMeterBinder;
+import com.shaylee.redis.metrics.NearCacheMeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Title: Redis缓存指标配置(存在Micrometer时生效)
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+public class RedisMetricsConfiguration {
+
+    @Bean
+    public NearCacheMeterBinder nearCacheMeterBinder(NearCache nearCache) {
+        return new NearCacheMeterBinder(nearCache);
+    }
+
+    @Bean
+    public HotKeyMeterBinder hotKeyMeterBinder(HotKeyDetector hotKeyDetector) {
+        return new HotKeyMeterBinder(hotKeyDetector);
+    }
+}
@@ -0,0 +1,64 @@
+package com.shaylee.redis.config;
+
+import com.shaylee.redis.bloom.BloomFilterManager;
+import com.shaylee.redis.cache.NearCache;
+import com.shaylee.redis.properties.RedisCacheProperties;
+import com.shaylee.redis.serializer.CodecRedisSerializer;
+import com.shaylee.redis.service.AsyncCacheService;
+import com.shaylee.redis.service.ReactiveCacheService;
+import com.shaylee.redis.service.impl.AsyncRedisServiceImpl;
+import com.shaylee.redis.service.impl.ReactiveRedisServiceImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Title: 异步/响应式Redis配置(存在Reactor及Lettuce时生效)
+ * 功能说明： 只有Lettuce提供ReactiveRedisConnectionFactory, 只使用Jedis时不注册;
+ * 本配置随组件扫描先于Spring Boot自动配置解析, 此时连接工厂尚未注册, 因此按类而不按Bean判断,
+ * Lettuce在类路径上但使用自定义的非Lettuce连接工厂时以redis-cache.reactive.enabled=false关闭
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+@Configuration
+@ConditionalOnClass(name = {"reactor.core.publisher.Flux", "io.lettuce.core.RedisClient"})
+@ConditionalOnProperty(prefix = "redis-cache.reactive", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RedisReactiveConfiguration {
+
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(ReactiveRedisConnectionFactory reactiveRedisConnectionFactory,
+                                                                       RedisCacheProperties redisCacheProperties) {
+        // 与redisTemplate相同的序列化, 两者读写的数据互通
+        CodecRedisSerializer valueSerializer = new CodecRedisSerializer(redisCacheProperties.getCodec());
+        StringRedisSerializer keySerializer = new StringRedisSerializer(StandardCharsets.UTF_8);
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(keySerializer)
+                .key(keySerializer)
+                .value(valueSerializer)
+                .hashKey(keySerializer)
+                .hashValue(valueSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(reactiveRedisConnectionFactory, serializationContext);
+    }
+
+    @Bean
+    public ReactiveCacheService reactiveCacheService(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                                                     NearCache nearCache, BloomFilterManager bloomFilterManager,
+                                                     RedisCacheProperties redisCacheProperties) {
+        return new ReactiveRedisServiceImpl(reactiveRedisTemplate, nearCache, bloomFilterManager, redisCacheProperties);
+    }
+
+    @Bean
+    public AsyncCacheService asyncCacheService(ReactiveCacheService reactiveCacheService) {
+        return new AsyncRedisServiceImpl(reactiveCacheService);
+    }
+}
@@ -0,0 +1,51 @@
+package com.shaylee.redis.metrics;
+
+import com.shaylee.redis.cache.HotKeyDetector;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热点键Micrometer指标
+ * 功能说明： redis.hot-keys 为当前热点键数; redis.hot-key.reads 以 key 标签列出每个热点键在上一个窗口的估计读取次数,
+ * 每个窗口结束时更新, 最多topK个
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class HotKeyMeterBinder implements MeterBinder {
+    public static final String TAG_KEY = "key";
+
+    private final HotKeyDetector hotKeyDetector;
+
+    public HotKeyMeterBinder(HotKeyDetector hotKeyDetector) {
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!hotKeyDetector.isEnabled()) {
+            return;
+        }
+        Gauge.builder("redis.hot-keys", hotKeyDetector, detector -> detector.getHotKeys().size())
+                .description("Number of hot keys cached locally")
+                .register(registry);
+        MultiGauge reads = MultiGauge.builder("redis.hot-key.reads")
+                .description("Estimated reads of each hot key in the last window")
+                .register(registry);
+        hotKeyDetector.setWindowListener(hotKeys -> {
+            List<MultiGauge.Row<?>> rows = new ArrayList<>(hotKeys.size());
+            for (Map.Entry<String, Long> entry : hotKeys.entrySet()) {
+                rows.add(MultiGauge.Row.of(Tags.of(TAG_KEY, entry.getKey()), entry.getValue()));
+            }
+            reads.register(rows, true);
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package com.shaylee.redis.metrics;
+
+import com.shaylee.redis.cache.NearCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+/**
+ * 本地缓存Micrometer指标
+ * 功能说明： 为每个缓存区域注册命中/未命中、淘汰、容量指标(cache.gets、cache.evictions、cache.size等),
+ * 以 cache=near-cache 及 prefix 标签区分区域; 热点区域为 cache=hot-key-cache
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class NearCacheMeterBinder implements MeterBinder {
+    public static final String CACHE_NAME = "near-cache";
+    public static final String HOT_KEY_CACHE_NAME = "hot-key-cache";
+    public static final String TAG_PREFIX = "prefix";
+
+    private final NearCache nearCache;
+
+    public NearCacheMeterBinder(NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (NearCache.Region region : nearCache.getRegions()) {
+            new GuavaCacheMetrics(region.getCache(), CACHE_NAME, Tags.of(TAG_PREFIX, region.getPrefix()))
+                    .bindTo(registry);
+        }
+        NearCache.Region hotRegion = nearCache.getHotRegion();
+        if (hotRegion != null) {
+            new GuavaCacheMetrics(hotRegion.getCache(), HOT_KEY_CACHE_NAME, Tags.empty()).bindTo(registry);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.shaylee.redis.properties;
+
+import com.shaylee.redis.bloom.BloomFilterStorage;
+import com.shaylee.redis.serializer.CodecType;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Title: Redis缓存配置
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+@Getter
+@Setter
+@ToString
+@Component("redisCacheProperties")
+@ConfigurationProperties(prefix = "redis-cache")
+public class RedisCacheProperties {
+
+    /**
+     * 本地缓存(L1)配置
+     */
+    private NearCacheProperties nearCache = new NearCacheProperties();
+    /**
+     * 批量操作配置
+     */
+    private BatchProperties batch = new BatchProperties();
+    /**
+     * 值编码配置
+     */
+    private CodecProperties codec = new CodecProperties();
+    /**
+     * 缓存空值(不存在的数据)的过期时长(单位：秒)
+     */
+    private long nullExpire = 60L;
+    /**
+     * 布隆过滤器, 按键前缀划分
+     */
+    private List<BloomFilterProperties> bloomFilters = new ArrayList<>();
+    /**
+     * LOCAL布隆过滤器广播新增键的频道, 同一组节点须一致
+     */
+    private String bloomFilterChannel = "bloom-filter:put";
+    /**
+     * 热点键探测配置
+     */
+    private HotKeyProperties hotKey = new HotKeyProperties();
+    /**
+     * 异步/响应式接口配置
+     */
+    private ReactiveProperties reactive = new ReactiveProperties();
+
+    @Getter
+    @Setter
+    @ToString
+    public static class ReactiveProperties {
+        /**
+         * 是否注册AsyncCacheService/ReactiveCacheService(还需要Reactor及Lettuce连接);
+         * Lettuce在类路径上但使用自定义的非Lettuce连接工厂时需关闭
+         */
+        private boolean enabled = true;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class HotKeyProperties {
+        /**
+         * 是否探测热点键并缓存到本地
+         */
+        private boolean enabled = false;
+        /**
+         * 统计窗口(单位：毫秒)
+         */
+        private long window = 1000L;
+        /**
+         * 一个窗口内读取次数达到该值的键为热点键
+         */
+        private int threshold = 1000;
+        /**
+         * 最多同时缓存的热点键数
+         */
+        private int topK = 100;
+        /**
+         * 热点键本地缓存的写入后过期时长(单位：毫秒)
+         */
+        private long ttl = 2000L;
+        /**
+         * 计数草图每行的计数器数, 向上取2的幂
+         */
+        private int sketchWidth = 8192;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class BloomFilterProperties {
+        /**
+         * 名称
+         */
+        private String name;
+        /**
+         * 键前缀, 为空时为 名称 + ":"
+         */
+        private String prefix;
+        /**
+         * 预计元素数
+         */
+        private long expectedInsertions = 1000000L;
+        /**
+         * 误判率
+         */
+        private double fpp = 0.01D;
+        /**
+         * 存储位置
+         */
+        private BloomFilterStorage storage = BloomFilterStorage.REDIS;
+        /**
+         * 重新读取Redis中过滤器状态的间隔(单位：秒), 即其他节点重建后本节点切换的最长延迟
+         */
+        private long refreshInterval = 5L;
+        /**
+         * 重建的最长时长(单位：秒), 超过后其他节点可以重新开始重建
+         */
+        private long rebuildTimeout = 3600L;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class CodecProperties {
+        /**
+         * 写入使用的编码格式, 读取时根据数据自动识别
+         */
+        private CodecType type = CodecType.JSON;
+        /**
+         * 是否压缩较大的值
+         */
+        private boolean compress = false;
+        /**
+         * 编码后超过该大小才压缩(单位：字节)
+         */
+        private int compressThreshold = 2048;
+        /**
+         * 类型别名(别名: 类名), SMILE编码时以别名代替类名写入, 读取时两者均可识别; 别名一经使用不可修改
+         */
+        private Map<String, String> typeAliases = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class BatchProperties {
+        /**
+         * 每个管道最多包含的命令数, 超出时拆分为多个管道
+         */
+        private int pipelineSize = 500;
+        /**
+         * 并行执行管道的线程数(集群模式按槽分组后并行, 单机模式超出pipelineSize拆分后并行)
+         */
+        private int parallelism = 4;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class NearCacheProperties {
+        /**
+         * 是否开启本地缓存
+         */
+        private boolean enabled = false;
+        /**
+         * 每个区域的最大缓存数, 区域未配置时使用
+         */
+        private long maximumSize = 10000L;
+        /**
+         * 写入后过期时长(单位：秒), 区域未配置时使用
+         */
+        private long expireAfterWrite = 60L;
+        /**
+         * 缓存区域, 只有匹配区域前缀的键才进入本地缓存, 多个前缀匹配时取最长的前缀
+         */
+        private List<RegionProperties> regions = new ArrayList<>();
+        /**
+         * 跨节点失效配置
+         */
+        private SyncProperties sync = new SyncProperties();
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class SyncProperties {
+        /**
+         * 是否通过Redis发布/订阅通知其他节点失效本地缓存
+         */
+        private boolean enabled = false;
+        /**
+         * 失效通知频道
+         */
+        private String channel = "near-cache:invalidate";
+        /**
+         * 合并失效通知的间隔(单位：毫秒)
+         */
+        private long batchInterval = 10L;
+        /**
+         * 每条通知最多包含的键数
+         */
+        private int maxBatchSize = 500;
+    }
+
+    @Getter
+    @Setter
+    @ToString
+    public static class RegionProperties {
+        /**
+         * 键前缀
+         */
+        private String prefix;
+        /**
+         * 最大缓存数, 为空时使用near-cache.maximum-size
+         */
+        private Long maximumSize;
+        /**
+         * 写入后过期时长(单位：秒), 为空时使用near-cache.expire-after-write
+         */
+        private Long expireAfterWrite;
+    }
+}
@@ -0,0 +1,81 @@
+package com.shaylee.redis.serializer;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.impl.ClassNameIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.apache.commons.lang3.ClassUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 类型别名解析
+ * 功能说明： 注册的类以短别名作为类型ID写入, 其余类型及读取时未注册的ID按完整类名处理,
+ * 因此可以读取原有JSON中的完整类名
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class AliasTypeIdResolver extends TypeIdResolverBase {
+    private final ClassNameIdResolver classNameIdResolver;
+    private final Map<Class<?>, String> aliasByClass = new HashMap<>();
+    private final Map<String, Class<?>> classByAlias = new HashMap<>();
+
+    /**
+     * @param typeAliases 别名: 类名
+     * @param validator   类型校验
+     */
+    public AliasTypeIdResolver(Map<String, String> typeAliases, PolymorphicTypeValidator validator) {
+        super(TypeFactory.defaultInstance().constructType(Object.class), TypeFactory.defaultInstance());
+        this.classNameIdResolver = new ClassNameIdResolver(_baseType, _typeFactory, validator);
+        if (typeAliases == null) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : typeAliases.entrySet()) {
+            Class<?> clazz;
+            try {
+                clazz = ClassUtils.getClass(entry.getValue());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Type alias class not found: " + entry.getValue(), e);
+            }
+            if (classByAlias.containsKey(entry.getKey()) || aliasByClass.containsKey(clazz)) {
+                throw new IllegalArgumentException("Duplicate type alias: " + entry.getKey() + "=" + entry.getValue());
+            }
+            classByAlias.put(entry.getKey(), clazz);
+            aliasByClass.put(clazz, entry.getKey());
+        }
+    }
+
+    @Override
+    public String idFromValue(Object value) {
+        return idFromValueAndType(value, value.getClass());
+    }
+
+    @Override
+    public String idFromValueAndType(Object value, Class<?> suggestedType) {
+        String alias = aliasByClass.get(suggestedType);
+        return alias != null ? alias : classNameIdResolver.idFromValueAndType(value, suggestedType);
+    }
+
+    @Override
+    public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+        Class<?> clazz = classByAlias.get(id);
+        return clazz != null ? context.constructType(clazz) : classNameIdResolver.typeFromId(context, id);
+    }
+
+    @Override
+    public String getDescForKnownTypeIds() {
+        return "type alias or class name";
+    }
+
+    @Override
+    public JsonTypeInfo.Id getMechanism() {
+        return JsonTypeInfo.Id.CUSTOM;
+    }
+}
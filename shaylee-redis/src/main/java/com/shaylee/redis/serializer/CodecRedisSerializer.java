@@ -0,0 +1,194 @@
+package com.shaylee.redis.serializer;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.shaylee.redis.properties.RedisCacheProperties.CodecProperties;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 可选编码格式的值序列化
+ * 功能说明： 写入时使用配置的编码格式, 超过阈值时压缩; 非原有JSON格式的数据以 魔数 + 标志 两个字节开头,
+ * 标志低4位为编码格式ID, COMPRESSED位表示数据经过Deflate压缩. 读取时根据首字节识别,
+ * 不以魔数开头的数据按原有JSON格式读取, 因此可以在线切换编码格式
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class CodecRedisSerializer implements RedisSerializer<Object> {
+    /**
+     * 魔数, JSON文本不会以该字节开头
+     */
+    static final byte MAGIC = (byte) 0xC5;
+    static final int HEADER_LENGTH = 2;
+    static final int CODEC_MASK = 0x0F;
+    static final int COMPRESSED = 0x10;
+
+    private final CodecType type;
+    private final int compressThreshold;
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final ObjectMapper smileMapper;
+
+    public CodecRedisSerializer(CodecProperties properties) {
+        this.type = properties.getType() != null ? properties.getType() : CodecType.JSON;
+        this.compressThreshold = properties.isCompress() ? properties.getCompressThreshold() : Integer.MAX_VALUE;
+        this.smileMapper = smileMapper(properties);
+    }
+
+    private static ObjectMapper smileMapper(CodecProperties properties) {
+        PolymorphicTypeValidator validator = LaissezFaireSubTypeValidator.instance;
+        ObjectMapper mapper = new ObjectMapper(new SmileFactory());
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.registerModule(new SimpleModule().addSerializer(new NullValueSerializer()));
+        // 与GenericJackson2JsonRedisSerializer相同的类型信息, 类型ID可使用别名
+        mapper.setDefaultTyping(new ObjectMapper.DefaultTypeResolverBuilder(ObjectMapper.DefaultTyping.NON_FINAL, validator)
+                .init(JsonTypeInfo.Id.CLASS, new AliasTypeIdResolver(properties.getTypeAliases(), validator))
+                .inclusion(JsonTypeInfo.As.PROPERTY));
+        return mapper;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] data = encode(type, value);
+        boolean compress = data.length >= compressThreshold;
+        if (type == CodecType.JSON && !compress) {
+            return data;
+        }
+        if (compress) {
+            data = deflate(data);
+        }
+        byte[] bytes = new byte[HEADER_LENGTH + data.length];
+        bytes[0] = MAGIC;
+        bytes[1] = (byte) (type.getId() | (compress ? COMPRESSED : 0));
+        System.arraycopy(data, 0, bytes, HEADER_LENGTH, data.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("Truncated cache value header");
+        }
+        int flags = bytes[1] & 0xFF;
+        CodecType codec = CodecType.of(flags & CODEC_MASK);
+        if (codec == null) {
+            throw new SerializationException("Unknown cache value codec: " + (flags & CODEC_MASK));
+        }
+        byte[] data = Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+        if ((flags & COMPRESSED) != 0) {
+            data = inflate(data);
+        }
+        return decode(codec, data);
+    }
+
+    private byte[] encode(CodecType codec, Object value) {
+        if (codec == CodecType.JSON) {
+            return jsonSerializer.serialize(value);
+        }
+        try {
+            return smileMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+        }
+    }
+
+    private Object decode(CodecType codec, byte[] data) {
+        if (codec == CodecType.JSON) {
+            return jsonSerializer.deserialize(data);
+        }
+        try {
+            return smileMapper.readValue(data, Object.class);
+        } catch (Exception e) {
+            throw new SerializationException("Could not read Smile: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 空值标记为final类, 默认类型信息不会写入类型ID, 与GenericJackson2JsonRedisSerializer一样显式写入
+     */
+    private static class NullValueSerializer extends StdSerializer<NullValue> {
+        private static final long serialVersionUID = 1L;
+
+        NullValueSerializer() {
+            super(NullValue.class);
+        }
+
+        @Override
+        public void serialize(NullValue value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("@class", NullValue.class.getName());
+            gen.writeEndObject();
+        }
+
+        @Override
+        public void serializeWithType(NullValue value, JsonGenerator gen, SerializerProvider provider,
+                                      TypeSerializer typeSer) throws IOException {
+            serialize(value, gen, provider);
+        }
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("Truncated compressed cache value");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationException("Could not inflate cache value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.shaylee.redis.serializer;
+
+/**
+ * Title: 缓存值编码格式
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public enum CodecType {
+    /**
+     * JSON(GenericJackson2JsonRedisSerializer), 不压缩时与原有格式完全一致
+     */
+    JSON(0),
+    /**
+     * Smile二进制JSON, 类型名可使用注册的短别名
+     */
+    SMILE(1);
+
+    private final int id;
+
+    CodecType(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public static CodecType of(int id) {
+        for (CodecType type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,107 @@
+package com.shaylee.redis.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Title: 异步缓存服务类
+ * 功能说明： 与CacheService相同的操作, 调用时立即发送命令并返回, 多个调用可以同时进行; 不存在的值结果为null.
+ * 结果在Redis客户端的I/O线程完成, 回调中不应阻塞, 耗时处理使用thenXxxAsync指定线程池
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public interface AsyncCacheService {
+
+    CompletableFuture<Void> set(String key, Object value, long expire);
+
+    CompletableFuture<Void> set(String key, Object value);
+
+    CompletableFuture<Object> get(String key, long expire);
+
+    CompletableFuture<Object> get(String key);
+
+    /**
+     * 读取缓存, 未命中时加载并写入缓存; 键属于布隆过滤器且一定不存在时直接返回null,
+     * 加载结果为null时缓存空值(redis-cache.null-expire), 过期前不再加载
+     *
+     * @param key    键
+     * @param expire 过期时长(单位：秒)
+     * @param loader 加载方法
+     * @param <T>    值类型
+     * @return 值, 不存在时为null
+     */
+    <T> CompletableFuture<T> get(String key, long expire, Supplier<CompletableFuture<T>> loader);
+
+    CompletableFuture<Void> setNull(String key);
+
+    CompletableFuture<Void> setNull(String key, long expire);
+
+    CompletableFuture<Void> delete(String key);
+
+    CompletableFuture<Void> delete(Collection<String> keys);
+
+    CompletableFuture<Object> hGet(String key, String field);
+
+    CompletableFuture<Map<String, Object>> hGetAll(String key);
+
+    CompletableFuture<Void> hMSet(String key, Map<String, Object> map);
+
+    CompletableFuture<Void> hMSet(String key, Map<String, Object> map, long expire);
+
+    CompletableFuture<Void> hSet(String key, String field, Object value);
+
+    CompletableFuture<Void> hSet(String key, String field, Object value, long expire);
+
+    CompletableFuture<Void> expire(String key, long expire);
+
+    CompletableFuture<Void> hDel(String key, Object... fields);
+
+    CompletableFuture<Void> leftPush(String key, Object value);
+
+    CompletableFuture<Void> leftPush(String key, Object value, long expire);
+
+    CompletableFuture<Object> rightPop(String key);
+
+    /**
+     * 批量读取, 按redis-cache.batch分批流水线发送
+     *
+     * @param keys 键
+     * @return 键值(按键的顺序), 不存在的键不包含在结果中
+     */
+    CompletableFuture<Map<String, Object>> multiGet(Collection<String> keys);
+
+    /**
+     * 批量写入, 使用默认过期时长
+     *
+     * @param map 键值
+     */
+    CompletableFuture<Void> multiSet(Map<String, Object> map);
+
+    /**
+     * 批量写入, 按redis-cache.batch分批流水线发送
+     *
+     * @param map    键值
+     * @param expire 过期时长(单位：秒)
+     */
+    CompletableFuture<Void> multiSet(Map<String, Object> map, long expire);
+
+    /**
+     * 批量读取哈希, 按redis-cache.batch分批流水线发送
+     *
+     * @param keys 键
+     * @return 键及哈希(按键的顺序), 不存在的键为空哈希
+     */
+    CompletableFuture<Map<String, Map<String, Object>>> multiHGetAll(Collection<String> keys);
+
+    /**
+     * 批量删除
+     *
+     * @param keys 键
+     * @return 删除的键数
+     */
+    CompletableFuture<Long> multiDelete(Collection<String> keys);
+}
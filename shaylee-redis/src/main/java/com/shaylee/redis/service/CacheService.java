@@ -4,6 +4,7 @@ import org.springframework.stereotype.Component;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Title: 缓存服务类
@@ -23,6 +24,33 @@ public interface CacheService {
 
     Object get(String key);
 
+    /**
+     * 读取缓存, 未命中时加载并写入缓存; 键属于布隆过滤器且一定不存在时直接返回null,
+     * 加载结果为null时缓存空值(redis-cache.null-expire), 过期前不再加载
+     *
+     * @param key    键
+     * @param expire 过期时长(单位：秒)
+     * @param loader 加载方法
+     * @param <T>    值类型
+     * @return 值, 不存在时为null
+     */
+    <T> T get(String key, long expire, Supplier<T> loader);
+
+    /**
+     * 缓存空值, get读取时返回null, 使用redis-cache.null-expire过期时长
+     *
+     * @param key 键
+     */
+    void setNull(String key);
+
+    /**
+     * 缓存空值, get读取时返回null
+     *
+     * @param key    键
+     * @param expire 过期时长(单位：秒)
+     */
+    void setNull(String key, long expire);
+
     void delete(String key);
 
     void delete(Collection<String> keys);
@@ -48,4 +76,43 @@ public interface CacheService {
     void leftPush(String key, Object value, long expire);
 
     Object rightPop(String key);
+
+    /**
+     * 批量读取
+     *
+     * @param keys 键
+     * @return 键值(按键的顺序), 不存在的键不包含在结果中
+     */
+    Map<String, Object> multiGet(Collection<String> keys);
+
+    /**
+     * 批量写入, 使用默认过期时长
+     *
+     * @param map 键值
+     */
+    void multiSet(Map<String, Object> map);
+
+    /**
+     * 批量写入
+     *
+     * @param map    键值
+     * @param expire 过期时长(单位：秒)
+     */
+    void multiSet(Map<String, Object> map, long expire);
+
+    /**
+     * 批量读取哈希
+     *
+     * @param keys 键
+     * @return 键及哈希(按键的顺序), 不存在的键为空哈希
+     */
+    Map<String, Map<String, Object>> multiHGetAll(Collection<String> keys);
+
+    /**
+     * 批量删除
+     *
+     * @param keys 键
+     * @return 删除的键数
+     */
+    long multiDelete(Collection<String> keys);
 }
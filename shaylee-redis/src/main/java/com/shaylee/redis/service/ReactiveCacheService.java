@@ -0,0 +1,108 @@
+package com.shaylee.redis.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Title: 响应式缓存服务类
+ * 功能说明： 与CacheService相同的操作, 命令不阻塞调用线程, 订阅时执行; 不存在的值为空的Mono.
+ * 结果在Redis客户端的I/O线程发出, 后续处理不应阻塞
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public interface ReactiveCacheService {
+
+    Mono<Void> set(String key, Object value, long expire);
+
+    Mono<Void> set(String key, Object value);
+
+    Mono<Object> get(String key, long expire);
+
+    Mono<Object> get(String key);
+
+    /**
+     * 读取缓存, 未命中时订阅加载方法并写入缓存; 键属于布隆过滤器且一定不存在时直接为空,
+     * 加载结果为空时缓存空值(redis-cache.null-expire), 过期前不再加载
+     *
+     * @param key    键
+     * @param expire 过期时长(单位：秒)
+     * @param loader 加载方法
+     * @param <T>    值类型
+     * @return 值, 不存在时为空
+     */
+    <T> Mono<T> get(String key, long expire, Supplier<Mono<T>> loader);
+
+    Mono<Void> setNull(String key);
+
+    Mono<Void> setNull(String key, long expire);
+
+    Mono<Void> delete(String key);
+
+    Mono<Void> delete(Collection<String> keys);
+
+    Mono<Object> hGet(String key, String field);
+
+    Mono<Map<String, Object>> hGetAll(String key);
+
+    Mono<Void> hMSet(String key, Map<String, Object> map);
+
+    Mono<Void> hMSet(String key, Map<String, Object> map, long expire);
+
+    Mono<Void> hSet(String key, String field, Object value);
+
+    Mono<Void> hSet(String key, String field, Object value, long expire);
+
+    Mono<Void> expire(String key, long expire);
+
+    Mono<Void> hDel(String key, Object... fields);
+
+    Mono<Void> leftPush(String key, Object value);
+
+    Mono<Void> leftPush(String key, Object value, long expire);
+
+    Mono<Object> rightPop(String key);
+
+    /**
+     * 批量读取, 按redis-cache.batch分批流水线发送
+     *
+     * @param keys 键
+     * @return 键值(按键的顺序), 不存在的键不包含在结果中
+     */
+    Mono<Map<String, Object>> multiGet(Collection<String> keys);
+
+    /**
+     * 批量写入, 使用默认过期时长
+     *
+     * @param map 键值
+     */
+    Mono<Void> multiSet(Map<String, Object> map);
+
+    /**
+     * 批量写入, 按redis-cache.batch分批流水线发送
+     *
+     * @param map    键值
+     * @param expire 过期时长(单位：秒)
+     */
+    Mono<Void> multiSet(Map<String, Object> map, long expire);
+
+    /**
+     * 批量读取哈希, 按redis-cache.batch分批流水线发送
+     *
+     * @param keys 键
+     * @return 键及哈希(按键的顺序), 不存在的键为空哈希
+     */
+    Mono<Map<String, Map<String, Object>>> multiHGetAll(Collection<String> keys);
+
+    /**
+     * 批量删除
+     *
+     * @param keys 键
+     * @return 删除的键数
+     */
+    Mono<Long> multiDelete(Collection<String> keys);
+}
@@ -0,0 +1,151 @@
+package com.shaylee.redis.service.impl;
+
+import com.shaylee.redis.service.AsyncCacheService;
+import com.shaylee.redis.service.ReactiveCacheService;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Title: 异步Redis缓存服务实现
+ * 功能说明： 委托ReactiveCacheService, 调用时即订阅发送命令, 空的结果为null
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class AsyncRedisServiceImpl implements AsyncCacheService {
+    private final ReactiveCacheService reactiveCacheService;
+
+    public AsyncRedisServiceImpl(ReactiveCacheService reactiveCacheService) {
+        this.reactiveCacheService = reactiveCacheService;
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String key, Object value, long expire) {
+        return reactiveCacheService.set(key, value, expire).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String key, Object value) {
+        return reactiveCacheService.set(key, value).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Object> get(String key, long expire) {
+        return reactiveCacheService.get(key, expire).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Object> get(String key) {
+        return reactiveCacheService.get(key).toFuture();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> get(String key, long expire, Supplier<CompletableFuture<T>> loader) {
+        return reactiveCacheService.get(key, expire, () -> Mono.fromFuture(loader.get())).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> setNull(String key) {
+        return reactiveCacheService.setNull(key).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> setNull(String key, long expire) {
+        return reactiveCacheService.setNull(key, expire).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String key) {
+        return reactiveCacheService.delete(key).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(Collection<String> keys) {
+        return reactiveCacheService.delete(keys).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Object> hGet(String key, String field) {
+        return reactiveCacheService.hGet(key, field).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> hGetAll(String key) {
+        return reactiveCacheService.hGetAll(key).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> hMSet(String key, Map<String, Object> map) {
+        return reactiveCacheService.hMSet(key, map).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> hMSet(String key, Map<String, Object> map, long expire) {
+        return reactiveCacheService.hMSet(key, map, expire).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> hSet(String key, String field, Object value) {
+        return reactiveCacheService.hSet(key, field, value).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> hSet(String key, String field, Object value, long expire) {
+        return reactiveCacheService.hSet(key, field, value, expire).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> expire(String key, long expire) {
+        return reactiveCacheService.expire(key, expire).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> hDel(String key, Object... fields) {
+        return reactiveCacheService.hDel(key, fields).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> leftPush(String key, Object value) {
+        return reactiveCacheService.leftPush(key, value).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> leftPush(String key, Object value, long expire) {
+        return reactiveCacheService.leftPush(key, value, expire).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Object> rightPop(String key) {
+        return reactiveCacheService.rightPop(key).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> multiGet(Collection<String> keys) {
+        return reactiveCacheService.multiGet(keys).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> multiSet(Map<String, Object> map) {
+        return reactiveCacheService.multiSet(map).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> multiSet(Map<String, Object> map, long expire) {
+        return reactiveCacheService.multiSet(map, expire).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Map<String, Object>>> multiHGetAll(Collection<String> keys) {
+        return reactiveCacheService.multiHGetAll(keys).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> multiDelete(Collection<String> keys) {
+        return reactiveCacheService.multiDelete(keys).toFuture();
+    }
+}
@@ -0,0 +1,387 @@
+package com.shaylee.redis.service.impl;
+
+import com.shaylee.redis.bloom.BloomFilter;
+import com.shaylee.redis.bloom.BloomFilterManager;
+import com.shaylee.redis.bloom.RedisBloomFilter;
+import com.shaylee.redis.cache.NearCache;
+import com.shaylee.redis.constant.CacheConstant;
+import com.shaylee.redis.properties.RedisCacheProperties;
+import com.shaylee.redis.service.ReactiveCacheService;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Title: 响应式Redis缓存服务实现
+ * 功能说明： 基于Lettuce的ReactiveRedisTemplate, 本地缓存、空值及布隆过滤器的处理与RedisServiceImpl一致.
+ * 批量操作按pipelineSize分批, 最多parallelism批同时在途, 同一连接上的命令不等待前一条的响应, 即流水线发送;
+ * 集群模式下跨槽的多键命令由Lettuce按槽拆分
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class ReactiveRedisServiceImpl implements ReactiveCacheService {
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final NearCache nearCache;
+    private final BloomFilterManager bloomFilterManager;
+    private final RedisCacheProperties redisCacheProperties;
+    private final int pipelineSize;
+    private final int parallelism;
+
+    public ReactiveRedisServiceImpl(ReactiveRedisTemplate<String, Object> redisTemplate, NearCache nearCache,
+                                    BloomFilterManager bloomFilterManager, RedisCacheProperties redisCacheProperties) {
+        this.redisTemplate = redisTemplate;
+        this.nearCache = nearCache;
+        this.bloomFilterManager = bloomFilterManager;
+        this.redisCacheProperties = redisCacheProperties;
+        this.pipelineSize = Math.max(1, redisCacheProperties.getBatch().getPipelineSize());
+        this.parallelism = Math.max(1, redisCacheProperties.getBatch().getParallelism());
+    }
+
+    @Override
+    public Mono<Void> set(String key, Object value, long expire){
+        Mono<Boolean> write;
+        if(expire != CacheConstant.NOT_EXPIRE){
+            write = redisTemplate.opsForValue().set(key, value, Duration.ofSeconds(expire));
+        }else{
+            write = redisTemplate.opsForValue().set(key, value);
+        }
+        return write.then(invalidate(key)).then(bloomPut(Collections.singletonList(key)));
+    }
+
+    @Override
+    public Mono<Void> set(String key, Object value){
+        return set(key, value, CacheConstant.DEFAULT_EXPIRE);
+    }
+
+    @Override
+    public Mono<Object> get(String key, long expire) {
+        return getValue(key, expire).filter(value -> !(value instanceof NullValue));
+    }
+
+    @Override
+    public Mono<Object> get(String key) {
+        return getValue(key).filter(value -> !(value instanceof NullValue));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(String key, long expire, Supplier<Mono<T>> loader) {
+        Mono<Optional<T>> load = Mono.defer(loader)
+                .flatMap(loaded -> set(key, loaded, expire).thenReturn(Optional.of(loaded)))
+                .switchIfEmpty(Mono.defer(() -> setNull(key).thenReturn(Optional.<T>empty())));
+        // 布隆过滤器判断一定不存在时不读缓存、不加载
+        return mightContain(key).flatMap(present -> {
+            if(!present){
+                return Mono.<T>empty();
+            }
+            return getValue(key)
+                    .map(value -> value instanceof NullValue ? Optional.<T>empty() : Optional.of((T) value))
+                    .switchIfEmpty(load)
+                    .flatMap(value -> value.isPresent() ? Mono.just(value.get()) : Mono.<T>empty());
+        });
+    }
+
+    @Override
+    public Mono<Void> setNull(String key) {
+        return setNull(key, redisCacheProperties.getNullExpire());
+    }
+
+    @Override
+    public Mono<Void> setNull(String key, long expire) {
+        return redisTemplate.opsForValue().set(key, NullValue.INSTANCE, Duration.ofSeconds(expire))
+                .then(invalidate(key));
+    }
+
+    /**
+     * 读取缓存, 空值标记原样返回
+     */
+    private Mono<Object> getValue(String key) {
+        return Mono.defer(() -> {
+            nearCache.recordAccess(key);
+            Object value = nearCache.get(key);
+            if(value != null){
+                return Mono.just(value);
+            }
+            return getValue(key, CacheConstant.NOT_EXPIRE);
+        });
+    }
+
+    private Mono<Object> getValue(String key, long expire) {
+        // 续期的读取需要访问Redis, 不读本地缓存
+        return Mono.defer(() -> {
+            long stamp = nearCache.stamp(key);
+            Mono<Object> value = redisTemplate.opsForValue().get(key)
+                    .doOnNext(v -> nearCache.put(key, v, stamp));
+            if(expire != CacheConstant.NOT_EXPIRE){
+                value = value.flatMap(v -> expire(key, expire).thenReturn(v));
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public Mono<Void> delete(String key) {
+        return redisTemplate.delete(key).then(invalidate(key));
+    }
+
+    @Override
+    public Mono<Void> delete(Collection<String> keys) {
+        return multiDelete(keys).then();
+    }
+
+    @Override
+    public Mono<Object> hGet(String key, String field) {
+        return Mono.defer(() -> {
+            nearCache.recordAccess(key);
+            Object value = nearCache.getField(key, field);
+            if(value != null){
+                return Mono.just(value);
+            }
+            long stamp = nearCache.stamp(key);
+            return redisTemplate.opsForHash().get(key, field)
+                    .doOnNext(v -> nearCache.putField(key, field, v, stamp));
+        });
+    }
+
+    @Override
+    public Mono<Map<String, Object>> hGetAll(String key){
+        return Mono.defer(() -> {
+            nearCache.recordAccess(key);
+            Map<String, Object> cached = nearCache.getHash(key);
+            if(cached != null){
+                return Mono.just(cached);
+            }
+            long stamp = nearCache.stamp(key);
+            return entries(key).doOnNext(map -> nearCache.putHash(key, map, stamp));
+        });
+    }
+
+    @Override
+    public Mono<Void> hMSet(String key, Map<String, Object> map){
+        return hMSet(key, map, CacheConstant.DEFAULT_EXPIRE);
+    }
+
+    @Override
+    public Mono<Void> hMSet(String key, Map<String, Object> map, long expire){
+        Mono<Void> write = redisTemplate.opsForHash().putAll(key, map)
+                .then(invalidate(key))
+                .then(bloomPut(Collections.singletonList(key)));
+        return expire != CacheConstant.NOT_EXPIRE ? write.then(expire(key, expire)) : write;
+    }
+
+    @Override
+    public Mono<Void> hSet(String key, String field, Object value) {
+        return hSet(key, field, value, CacheConstant.DEFAULT_EXPIRE);
+    }
+
+    @Override
+    public Mono<Void> hSet(String key, String field, Object value, long expire) {
+        Mono<Void> write = redisTemplate.opsForHash().put(key, field, value)
+                .then(invalidate(key))
+                .then(bloomPut(Collections.singletonList(key)));
+        return expire != CacheConstant.NOT_EXPIRE ? write.then(expire(key, expire)) : write;
+    }
+
+    @Override
+    public Mono<Void> expire(String key, long expire){
+        return redisTemplate.expire(key, Duration.ofSeconds(expire)).then();
+    }
+
+    @Override
+    public Mono<Void> hDel(String key, Object... fields){
+        return redisTemplate.opsForHash().remove(key, fields).then(invalidate(key));
+    }
+
+    @Override
+    public Mono<Void> leftPush(String key, Object value){
+        return leftPush(key, value, CacheConstant.DEFAULT_EXPIRE);
+    }
+
+    @Override
+    public Mono<Void> leftPush(String key, Object value, long expire){
+        Mono<Void> write = redisTemplate.opsForList().leftPush(key, value).then();
+        return expire != CacheConstant.NOT_EXPIRE ? write.then(expire(key, expire)) : write;
+    }
+
+    @Override
+    public Mono<Object> rightPop(String key){
+        return redisTemplate.opsForList().rightPop(key);
+    }
+
+    @Override
+    public Mono<Map<String, Object>> multiGet(Collection<String> keys){
+        if(keys == null || keys.isEmpty()){
+            return Mono.just(new LinkedHashMap<>());
+        }
+        return Mono.defer(() -> {
+            List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+            Object[] values = new Object[distinctKeys.size()];
+            List<String> misses = new ArrayList<>();
+            List<Integer> missIndexes = new ArrayList<>();
+            for(int i = 0; i < values.length; i++){
+                nearCache.recordAccess(distinctKeys.get(i));
+                values[i] = nearCache.get(distinctKeys.get(i));
+                if(values[i] == null){
+                    misses.add(distinctKeys.get(i));
+                    missIndexes.add(i);
+                }
+            }
+            if(misses.isEmpty()){
+                return Mono.just(toResult(distinctKeys, values));
+            }
+            long[] stamps = stamps(misses);
+            return Flux.fromIterable(misses)
+                    .buffer(pipelineSize)
+                    .flatMapSequential(batch -> redisTemplate.opsForValue().multiGet(batch), parallelism)
+                    .collectList()
+                    .map(batches -> {
+                        int i = 0;
+                        for(List<Object> loaded : batches){
+                            for(Object value : loaded){
+                                nearCache.put(misses.get(i), value, stamps[i]);
+                                values[missIndexes.get(i)] = value;
+                                i++;
+                            }
+                        }
+                        return toResult(distinctKeys, values);
+                    });
+        });
+    }
+
+    @Override
+    public Mono<Void> multiSet(Map<String, Object> map){
+        return multiSet(map, CacheConstant.DEFAULT_EXPIRE);
+    }
+
+    @Override
+    public Mono<Void> multiSet(Map<String, Object> map, long expire){
+        if(map == null || map.isEmpty()){
+            return Mono.empty();
+        }
+        List<String> keys = new ArrayList<>(map.keySet());
+        Flux<List<String>> batches = Flux.fromIterable(keys).buffer(pipelineSize);
+        Mono<Void> write;
+        if(expire != CacheConstant.NOT_EXPIRE){
+            // 没有带过期时长的MSET, 逐键SET EX
+            Duration timeout = Duration.ofSeconds(expire);
+            write = batches.flatMap(batch -> Flux.fromIterable(batch)
+                    .flatMap(key -> redisTemplate.opsForValue().set(key, map.get(key), timeout), batch.size())
+                    .then(), parallelism).then();
+        }else{
+            write = batches.flatMap(batch -> {
+                Map<String, Object> values = new LinkedHashMap<>();
+                for(String key : batch){
+                    values.put(key, map.get(key));
+                }
+                return redisTemplate.opsForValue().multiSet(values);
+            }, parallelism).then();
+        }
+        return write.then(Mono.fromRunnable(() -> nearCache.invalidateAll(keys))).then(bloomPut(keys));
+    }
+
+    @Override
+    public Mono<Map<String, Map<String, Object>>> multiHGetAll(Collection<String> keys){
+        if(keys == null || keys.isEmpty()){
+            return Mono.just(new LinkedHashMap<>());
+        }
+        return Mono.defer(() -> {
+            Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+            List<String> misses = new ArrayList<>();
+            for(String key : new LinkedHashSet<>(keys)){
+                nearCache.recordAccess(key);
+                Map<String, Object> cached = nearCache.getHash(key);
+                result.put(key, cached);
+                if(cached == null){
+                    misses.add(key);
+                }
+            }
+            if(misses.isEmpty()){
+                return Mono.just(result);
+            }
+            long[] stamps = stamps(misses);
+            return Flux.fromIterable(misses)
+                    .flatMapSequential(this::entries, pipelineSize * parallelism)
+                    .collectList()
+                    .map(loaded -> {
+                        for(int i = 0; i < misses.size(); i++){
+                            nearCache.putHash(misses.get(i), loaded.get(i), stamps[i]);
+                            result.put(misses.get(i), loaded.get(i));
+                        }
+                        return result;
+                    });
+        });
+    }
+
+    @Override
+    public Mono<Long> multiDelete(Collection<String> keys){
+        if(keys == null || keys.isEmpty()){
+            return Mono.just(0L);
+        }
+        List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        return Flux.fromIterable(distinctKeys)
+                .buffer(pipelineSize)
+                .flatMap(batch -> redisTemplate.delete(batch.toArray(new String[0])), parallelism)
+                .reduce(0L, Long::sum)
+                .flatMap(deleted -> Mono.fromRunnable(() -> nearCache.invalidateAll(distinctKeys)).thenReturn(deleted));
+    }
+
+    private Mono<Map<String, Object>> entries(String key){
+        ReactiveHashOperations<String, String, Object> hashOperations = redisTemplate.opsForHash();
+        return hashOperations.entries(key).collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private Mono<Void> invalidate(String key){
+        return Mono.fromRunnable(() -> nearCache.invalidate(key));
+    }
+
+    private Mono<Boolean> mightContain(String key){
+        BloomFilter filter = bloomFilterManager.filterForKey(key);
+        if(filter == null){
+            return Mono.just(true);
+        }
+        Mono<Boolean> check = Mono.fromCallable(() -> filter.mightContain(key));
+        // Redis过滤器是同步访问, 不能在I/O线程执行
+        return filter instanceof RedisBloomFilter ? check.subscribeOn(Schedulers.boundedElastic()) : check;
+    }
+
+    private Mono<Void> bloomPut(Collection<String> keys){
+        if(!bloomFilterManager.isEnabled()){
+            return Mono.empty();
+        }
+        return Mono.<Void>fromRunnable(() -> bloomFilterManager.putAll(keys)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private long[] stamps(List<String> keys){
+        long[] stamps = new long[keys.size()];
+        for(int i = 0; i < stamps.length; i++){
+            stamps[i] = nearCache.stamp(keys.get(i));
+        }
+        return stamps;
+    }
+
+    private static Map<String, Object> toResult(List<String> keys, Object[] values){
+        Map<String, Object> result = new LinkedHashMap<>();
+        for(int i = 0; i < values.length; i++){
+            if(values[i] != null && !(values[i] instanceof NullValue)){
+                result.put(keys.get(i), values[i]);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,153 @@
+package com.shaylee.redis.service.impl;
+
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 多键批量执行器
+ * 功能说明： 把键拆分为每批最多pipelineSize个键, 集群模式先按槽排序, 同一槽的键相邻, 每批只涉及少数节点
+ * (集群模式下一批键可能跨槽, 只能用管道逐键执行, 不能用MGET/DEL等多键命令);
+ * 只有一批时在调用线程执行, 多批时并行执行, 结果按键的原始顺序合并
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+class RedisBatchExecutor {
+    private final int pipelineSize;
+    private final ThreadPoolExecutor executor;
+
+    RedisBatchExecutor(int pipelineSize, int parallelism) {
+        this.pipelineSize = Math.max(1, pipelineSize);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, parallelism), Math.max(1, parallelism),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "redis-batch-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 分批执行并按键的顺序合并结果
+     *
+     * @param keys    键
+     * @param cluster 是否集群模式
+     * @param command 批量命令, 返回与该批键一一对应的结果
+     * @param <T>     结果类型
+     * @return 与键一一对应的结果
+     */
+    @SuppressWarnings("unchecked")
+    <T> List<T> execute(List<String> keys, boolean cluster, Function<List<String>, List<T>> command) {
+        List<int[]> batches = partition(keys, cluster);
+        Object[] results = new Object[keys.size()];
+        run(batches, batch -> {
+            List<String> batchKeys = keys(keys, batch);
+            List<T> batchResults = command.apply(batchKeys);
+            for (int i = 0; i < batch.length; i++) {
+                results[batch[i]] = batchResults == null || i >= batchResults.size() ? null : batchResults.get(i);
+            }
+        });
+        return (List<T>) Arrays.asList(results);
+    }
+
+    /**
+     * 分批执行无结果的命令
+     *
+     * @param keys    键
+     * @param cluster 是否集群模式
+     * @param command 批量命令
+     */
+    void run(List<String> keys, boolean cluster, Consumer<List<String>> command) {
+        run(partition(keys, cluster), batch -> command.accept(keys(keys, batch)));
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private void run(List<int[]> batches, Consumer<int[]> task) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        if (batches.size() == 1) {
+            task.accept(batches.get(0));
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(batches.size() - 1);
+        for (int i = 1; i < batches.size(); i++) {
+            int[] batch = batches.get(i);
+            futures.add(executor.submit(() -> task.accept(batch)));
+        }
+        RuntimeException failure = null;
+        try {
+            task.accept(batches.get(0));
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for redis batch", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 拆分键的下标, 集群模式下按槽排序后拆分
+     */
+    private List<int[]> partition(List<String> keys, boolean cluster) {
+        Integer[] indexes = new Integer[keys.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        if (cluster) {
+            int[] slots = new int[keys.size()];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = ClusterSlotHashUtil.calculateSlot(keys.get(i));
+            }
+            Arrays.sort(indexes, Comparator.comparingInt(i -> slots[i]));
+        }
+        List<int[]> batches = new ArrayList<>();
+        for (int from = 0; from < indexes.length; from += pipelineSize) {
+            int to = Math.min(indexes.length, from + pipelineSize);
+            int[] batch = new int[to - from];
+            for (int i = from; i < to; i++) {
+                batch[i - from] = indexes[i];
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static List<String> keys(List<String> keys, int[] batch) {
+        List<String> batchKeys = new ArrayList<>(batch.length);
+        for (int index : batch) {
+            batchKeys.add(keys.get(index));
+        }
+        return batchKeys;
+    }
+}
@@ -1,15 +1,32 @@
 package com.shaylee.redis.service.impl;
 
+import com.shaylee.redis.bloom.BloomFilterManager;
+import com.shaylee.redis.cache.NearCache;
 import com.shaylee.redis.constant.CacheConstant;
+import com.shaylee.redis.properties.RedisCacheProperties;
 import com.shaylee.redis.service.CacheService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.RedisClusterConnection;
 import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Title: Redis缓存服务实现
@@ -22,13 +39,40 @@ import java.util.concurrent.TimeUnit;
 public class RedisServiceImpl implements CacheService {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
+    @Autowired
+    private NearCache nearCache;
+    @Autowired
+    private RedisCacheProperties redisCacheProperties;
+    @Autowired
+    private BloomFilterManager bloomFilterManager;
+
+    private RedisBatchExecutor batchExecutor;
+    /**
+     * 是否集群模式, 首次批量操作时判断
+     */
+    private volatile Boolean cluster;
+
+    @PostConstruct
+    public void init() {
+        RedisCacheProperties.BatchProperties batch = redisCacheProperties.getBatch();
+        batchExecutor = new RedisBatchExecutor(batch.getPipelineSize(), batch.getParallelism());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        batchExecutor.shutdown();
+    }
 
     @Override
     public void set(String key, Object value, long expire){
-        redisTemplate.opsForValue().set(key, value);
         if(expire != CacheConstant.NOT_EXPIRE){
-            expire(key, expire);
+            // SET EX, 写入和过期时长一条命令
+            redisTemplate.opsForValue().set(key, value, expire, TimeUnit.SECONDS);
+        }else{
+            redisTemplate.opsForValue().set(key, value);
         }
+        nearCache.invalidate(key);
+        bloomFilterManager.put(key);
     }
 
     @Override
@@ -38,37 +82,112 @@ public class RedisServiceImpl implements CacheService {
 
     @Override
     public Object get(String key, long expire) {
+        return unwrap(getValue(key, expire));
+    }
+
+    @Override
+    public Object get(String key) {
+        return unwrap(getValue(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, long expire, Supplier<T> loader) {
+        // 布隆过滤器判断一定不存在时不读缓存、不加载
+        if(!bloomFilterManager.mightContain(key)){
+            return null;
+        }
+        Object value = getValue(key);
+        if(value instanceof NullValue){
+            return null;
+        }
+        if(value != null){
+            return (T) value;
+        }
+        T loaded = loader.get();
+        if(loaded == null){
+            setNull(key);
+        }else{
+            set(key, loaded, expire);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void setNull(String key) {
+        setNull(key, redisCacheProperties.getNullExpire());
+    }
+
+    @Override
+    public void setNull(String key, long expire) {
+        redisTemplate.opsForValue().set(key, NullValue.INSTANCE, expire, TimeUnit.SECONDS);
+        nearCache.invalidate(key);
+    }
+
+    /**
+     * 读取缓存, 空值标记原样返回
+     */
+    private Object getValue(String key) {
+        nearCache.recordAccess(key);
+        Object value = nearCache.get(key);
+        if(value != null){
+            return value;
+        }
+        return getValue(key, CacheConstant.NOT_EXPIRE);
+    }
+
+    private Object getValue(String key, long expire) {
+        // 续期的读取需要访问Redis, 不读本地缓存
+        long stamp = nearCache.stamp(key);
         Object value = redisTemplate.opsForValue().get(key);
+        nearCache.put(key, value, stamp);
         if(expire != CacheConstant.NOT_EXPIRE){
             expire(key, expire);
         }
         return value;
     }
 
-    @Override
-    public Object get(String key) {
-        return get(key, CacheConstant.NOT_EXPIRE);
+    private static Object unwrap(Object value) {
+        return value instanceof NullValue ? null : value;
     }
 
     @Override
     public void delete(String key) {
         redisTemplate.delete(key);
+        nearCache.invalidate(key);
     }
 
     @Override
     public void delete(Collection<String> keys) {
         redisTemplate.delete(keys);
+        nearCache.invalidateAll(keys);
     }
 
     @Override
     public Object hGet(String key, String field) {
-        return redisTemplate.opsForHash().get(key, field);
+        nearCache.recordAccess(key);
+        Object value = nearCache.getField(key, field);
+        if(value != null){
+            return value;
+        }
+        long stamp = nearCache.stamp(key);
+        value = redisTemplate.opsForHash().get(key, field);
+        nearCache.putField(key, field, value, stamp);
+        return value;
     }
 
     @Override
     public Map<String, Object> hGetAll(String key){
+        nearCache.recordAccess(key);
+        Map<String, Object> cached = nearCache.getHash(key);
+        if(cached != null){
+            return cached;
+        }
+        long stamp = nearCache.stamp(key);
         HashOperations<String, String, Object> hashOperations = redisTemplate.opsForHash();
-        return hashOperations.entries(key);
+        Map<String, Object> map = hashOperations.entries(key);
+        nearCache.putHash(key, map, stamp);
+        return map;
     }
 
     @Override
@@ -79,6 +198,8 @@ public class RedisServiceImpl implements CacheService {
     @Override
     public void hMSet(String key, Map<String, Object> map, long expire){
         redisTemplate.opsForHash().putAll(key, map);
+        nearCache.invalidate(key);
+        bloomFilterManager.put(key);
 
         if(expire != CacheConstant.NOT_EXPIRE){
             expire(key, expire);
@@ -93,6 +214,8 @@ public class RedisServiceImpl implements CacheService {
     @Override
     public void hSet(String key, String field, Object value, long expire) {
         redisTemplate.opsForHash().put(key, field, value);
+        nearCache.invalidate(key);
+        bloomFilterManager.put(key);
 
         if(expire != CacheConstant.NOT_EXPIRE){
             expire(key, expire);
@@ -107,6 +230,7 @@ public class RedisServiceImpl implements CacheService {
     @Override
     public void hDel(String key, Object... fields){
         redisTemplate.opsForHash().delete(key, fields);
+        nearCache.invalidate(key);
     }
 
     @Override
@@ -127,4 +251,171 @@ public class RedisServiceImpl implements CacheService {
     public Object rightPop(String key){
         return redisTemplate.opsForList().rightPop(key);
     }
+
+    @Override
+    public Map<String, Object> multiGet(Collection<String> keys){
+        Map<String, Object> result = new LinkedHashMap<>();
+        if(keys == null || keys.isEmpty()){
+            return result;
+        }
+        List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        Object[] values = new Object[distinctKeys.size()];
+        List<String> misses = new ArrayList<>();
+        List<Integer> missIndexes = new ArrayList<>();
+        for(int i = 0; i < values.length; i++){
+            nearCache.recordAccess(distinctKeys.get(i));
+            values[i] = nearCache.get(distinctKeys.get(i));
+            if(values[i] == null){
+                misses.add(distinctKeys.get(i));
+                missIndexes.add(i);
+            }
+        }
+        if(!misses.isEmpty()){
+            long[] stamps = stamps(misses);
+            boolean cluster = isCluster();
+            List<Object> loaded = batchExecutor.execute(misses, cluster, batch -> cluster
+                    ? pipelined(batch, (operations, key) -> operations.opsForValue().get(key))
+                    : redisTemplate.opsForValue().multiGet(batch));
+            for(int i = 0; i < misses.size(); i++){
+                Object value = loaded.get(i);
+                nearCache.put(misses.get(i), value, stamps[i]);
+                values[missIndexes.get(i)] = value;
+            }
+        }
+        for(int i = 0; i < values.length; i++){
+            if(values[i] != null && !(values[i] instanceof NullValue)){
+                result.put(distinctKeys.get(i), values[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void multiSet(Map<String, Object> map){
+        multiSet(map, CacheConstant.DEFAULT_EXPIRE);
+    }
+
+    @Override
+    public void multiSet(Map<String, Object> map, long expire){
+        if(map == null || map.isEmpty()){
+            return;
+        }
+        List<String> keys = new ArrayList<>(map.keySet());
+        boolean cluster = isCluster();
+        batchExecutor.run(keys, cluster, batch -> {
+            if(expire != CacheConstant.NOT_EXPIRE){
+                pipelined(batch, (operations, key) -> operations.opsForValue().set(key, map.get(key), expire, TimeUnit.SECONDS));
+            }else if(cluster){
+                pipelined(batch, (operations, key) -> operations.opsForValue().set(key, map.get(key)));
+            }else{
+                Map<String, Object> values = new LinkedHashMap<>();
+                for(String key : batch){
+                    values.put(key, map.get(key));
+                }
+                redisTemplate.opsForValue().multiSet(values);
+            }
+        });
+        nearCache.invalidateAll(keys);
+        bloomFilterManager.putAll(keys);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Object>> multiHGetAll(Collection<String> keys){
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        if(keys == null || keys.isEmpty()){
+            return result;
+        }
+        List<String> misses = new ArrayList<>();
+        for(String key : new LinkedHashSet<>(keys)){
+            nearCache.recordAccess(key);
+            Map<String, Object> cached = nearCache.getHash(key);
+            result.put(key, cached);
+            if(cached == null){
+                misses.add(key);
+            }
+        }
+        if(!misses.isEmpty()){
+            long[] stamps = stamps(misses);
+            List<Object> loaded = batchExecutor.execute(misses, isCluster(),
+                    batch -> pipelined(batch, (operations, key) -> operations.opsForHash().entries(key)));
+            for(int i = 0; i < misses.size(); i++){
+                Map<String, Object> map = loaded.get(i) == null
+                        ? new HashMap<>() : (Map<String, Object>) loaded.get(i);
+                nearCache.putHash(misses.get(i), map, stamps[i]);
+                result.put(misses.get(i), map);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long multiDelete(Collection<String> keys){
+        if(keys == null || keys.isEmpty()){
+            return 0L;
+        }
+        List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        AtomicLong deleted = new AtomicLong();
+        boolean cluster = isCluster();
+        batchExecutor.run(distinctKeys, cluster, batch -> {
+            if(cluster){
+                for(Object result : pipelined(batch, (operations, key) -> operations.delete(key))){
+                    if(Boolean.TRUE.equals(result)){
+                        deleted.incrementAndGet();
+                    }
+                }
+            }else{
+                Long count = redisTemplate.delete(batch);
+                deleted.addAndGet(count == null ? 0L : count);
+            }
+        });
+        nearCache.invalidateAll(distinctKeys);
+        return deleted.get();
+    }
+
+    /**
+     * 在一个管道中逐键执行命令
+     *
+     * @param keys    键
+     * @param command 命令
+     * @return 与键一一对应的结果
+     */
+    private List<Object> pipelined(List<String> keys, PipelineCommand command){
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                for(String key : keys){
+                    command.execute(redisOperations, key);
+                }
+                return null;
+            }
+        });
+    }
+
+    private long[] stamps(List<String> keys){
+        long[] stamps = new long[keys.size()];
+        for(int i = 0; i < stamps.length; i++){
+            stamps[i] = nearCache.stamp(keys.get(i));
+        }
+        return stamps;
+    }
+
+    private boolean isCluster(){
+        Boolean cluster = this.cluster;
+        if(cluster == null){
+            cluster = Boolean.TRUE.equals(redisTemplate.execute(
+                    (RedisCallback<Boolean>) connection -> connection instanceof RedisClusterConnection));
+            this.cluster = cluster;
+        }
+        return cluster;
+    }
+
+    /**
+     * 管道中对单个键执行的命令
+     */
+    private interface PipelineCommand {
+        void execute(RedisOperations<String, Object> operations, String key);
+    }
 }
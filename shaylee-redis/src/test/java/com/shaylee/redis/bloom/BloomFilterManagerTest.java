@@ -0,0 +1,79 @@
+package com.shaylee.redis.bloom;
+
+import com.shaylee.redis.properties.RedisCacheProperties.BloomFilterProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Title: 布隆过滤器管理测试
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class BloomFilterManagerTest {
+
+    @Test
+    public void localPutReachesOtherNodes() {
+        BloomFilterManager nodeA = localManager();
+        BloomFilterManager nodeB = localManager();
+        nodeA.setLocalPutListener(nodeB::putLocal);
+        nodeB.setLocalPutListener(nodeA::putLocal);
+        nodeA.rebuild("user", Collections.emptyList());
+        nodeB.rebuild("user", Collections.emptyList());
+        assertFalse(nodeB.mightContain("user:1"));
+
+        nodeA.put("user:1");
+        nodeA.putAll(Arrays.asList("user:2", "order:1"));
+        for (String key : Arrays.asList("user:1", "user:2")) {
+            assertTrue(nodeA.mightContain(key));
+            assertTrue(nodeB.mightContain(key));
+        }
+        // 不属于任何过滤器的键视为可能存在
+        assertTrue(nodeB.mightContain("order:1"));
+    }
+
+    @Test
+    public void receivedPutIsNotForwarded() {
+        BloomFilterManager manager = localManager();
+        List<String> published = new ArrayList<>();
+        manager.setLocalPutListener(published::addAll);
+        manager.rebuild("user", Collections.emptyList());
+
+        manager.putLocal(Arrays.asList("user:1", "order:1"));
+        assertTrue(manager.mightContain("user:1"));
+        assertTrue(published.isEmpty());
+
+        manager.rebuild("user", Collections.singletonList("user:2"));
+        assertTrue(published.isEmpty());
+
+        manager.putAll(Arrays.asList("user:3", "order:2"));
+        assertEquals(Collections.singletonList("user:3"), published);
+    }
+
+    @Test
+    public void withoutListenerPutsStayLocal() {
+        BloomFilterManager manager = localManager();
+        assertTrue(manager.hasLocalFilters());
+        manager.rebuild("user", Collections.emptyList());
+        manager.put("user:1");
+        assertTrue(manager.mightContain("user:1"));
+        assertFalse(new BloomFilterManager(null, null, null).hasLocalFilters());
+    }
+
+    private static BloomFilterManager localManager() {
+        BloomFilterProperties properties = new BloomFilterProperties();
+        properties.setName("user");
+        properties.setExpectedInsertions(1000);
+        properties.setStorage(BloomFilterStorage.LOCAL);
+        return new BloomFilterManager(Collections.singletonList(properties), null, null);
+    }
+}
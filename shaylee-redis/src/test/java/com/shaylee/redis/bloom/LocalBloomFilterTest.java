@@ -0,0 +1,173 @@
+package com.shaylee.redis.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Title: 布隆过滤器位计算及进程内布隆过滤器测试
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class LocalBloomFilterTest {
+
+    @Test
+    public void optimalSizing() {
+        // 与Guava BloomFilter相同的公式
+        assertEquals(9585L, BloomFilterHashing.optimalNumOfBits(1000, 0.01D));
+        assertEquals(7, BloomFilterHashing.optimalNumOfHashFunctions(1000, 9585L));
+        assertEquals(64L, BloomFilterHashing.optimalNumOfBits(1, 0.5D));
+        assertEquals(BloomFilterHashing.MAX_BITS, BloomFilterHashing.optimalNumOfBits(Long.MAX_VALUE / 1024, 0.001D));
+        assertTrue(BloomFilterHashing.optimalNumOfBits(0, 0D) >= 64L);
+        assertEquals(1, BloomFilterHashing.optimalNumOfHashFunctions(1000, 64L));
+    }
+
+    @Test
+    public void offsetsAreStableAndInRange() {
+        long numBits = 9585L;
+        for (int i = 0; i < 1000; i++) {
+            String element = "user:" + i;
+            long[] offsets = BloomFilterHashing.offsets(element, numBits, 7);
+            assertEquals(7, offsets.length);
+            for (long offset : offsets) {
+                assertTrue(offset >= 0 && offset < numBits);
+            }
+            assertArrayEquals(offsets, BloomFilterHashing.offsets(element, numBits, 7));
+        }
+    }
+
+    @Test
+    public void allowsEverythingBeforeFirstRebuild() {
+        LocalBloomFilter filter = new LocalBloomFilter("user", 1000, 0.01D);
+        filter.put("user:1");
+        assertTrue(filter.mightContain("user:1"));
+        assertTrue(filter.mightContain("user:2"));
+    }
+
+    @Test
+    public void noFalseNegativesAndBoundedFalsePositives() {
+        LocalBloomFilter filter = new LocalBloomFilter("user", 10000, 0.01D);
+        filter.rebuild(elements("user:", 10000));
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("user:" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("order:" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+
+        filter.put("user:new");
+        assertTrue(filter.mightContain("user:new"));
+    }
+
+    @Test
+    public void rebuildDropsRemovedElements() {
+        LocalBloomFilter filter = new LocalBloomFilter("user", 1000, 0.001D);
+        filter.rebuild(elements("user:", 1000));
+        filter.rebuild(elements("user:", 10));
+        int remaining = 0;
+        for (int i = 10; i < 1000; i++) {
+            if (filter.mightContain("user:" + i)) {
+                remaining++;
+            }
+        }
+        assertTrue(remaining < 10, "stale elements: " + remaining);
+    }
+
+    @Test
+    public void putDuringRebuildIsKept() {
+        LocalBloomFilter filter = new LocalBloomFilter("user", 1000, 0.001D);
+        filter.rebuild(elements("user:", 100));
+        List<String> source = elements("user:", 200);
+        // 重建读取数据源期间写入的新元素不在数据源中, 重建后仍然存在
+        Iterable<String> elements = () -> new Iterator<String>() {
+            private final Iterator<String> it = source.iterator();
+            private int n;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (++n == 100) {
+                    filter.put("user:written-during-rebuild");
+                }
+                return it.next();
+            }
+        };
+        filter.rebuild(elements);
+        assertTrue(filter.mightContain("user:written-during-rebuild"));
+        for (String element : source) {
+            assertTrue(filter.mightContain(element));
+        }
+    }
+
+    @Test
+    public void noFalseNegativesWhileRebuildingConcurrently() throws InterruptedException {
+        LocalBloomFilter filter = new LocalBloomFilter("user", 100000, 0.01D);
+        // 模拟数据库: 先写入数据源再写入过滤器, 重建时读取数据源的快照
+        List<String> source = elements("user:", 1000);
+        Iterable<String> snapshot = () -> {
+            synchronized (source) {
+                return new ArrayList<>(source).iterator();
+            }
+        };
+        filter.rebuild(snapshot);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger falseNegatives = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            try {
+                for (int i = 0; running.get() && i < 50000; i++) {
+                    String element = "new:" + i;
+                    synchronized (source) {
+                        source.add(element);
+                    }
+                    filter.put(element);
+                    if (!filter.mightContain(element)) {
+                        falseNegatives.incrementAndGet();
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        });
+        writer.start();
+        for (int i = 0; i < 50; i++) {
+            filter.rebuild(snapshot);
+        }
+        running.set(false);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, falseNegatives.get());
+        synchronized (source) {
+            for (String element : source) {
+                assertTrue(filter.mightContain(element), "lost " + element);
+            }
+        }
+    }
+
+    private static List<String> elements(String prefix, int count) {
+        List<String> elements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            elements.add(prefix + i);
+        }
+        return elements;
+    }
+}
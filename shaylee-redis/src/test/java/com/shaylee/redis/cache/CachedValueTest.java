@@ -0,0 +1,93 @@
+package com.shaylee.redis.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.shaylee.redis.properties.RedisCacheProperties.CodecProperties;
+import com.shaylee.redis.serializer.CodecRedisSerializer;
+import com.shaylee.redis.serializer.CodecType;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Title: @Cached缓存值的类型转换测试
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class CachedValueTest {
+
+    @Test
+    public void longRoundTrip() {
+        for (CodecType type : CodecType.values()) {
+            CachedValue cached = roundTrip(type, new CachedValue(7L, 1L, 2L, 3L));
+            assertEquals(Long.valueOf(7L), cached.convertTo(Long.class).getValue());
+            assertEquals(Long.valueOf(7L), cached.convertTo(long.class).getValue());
+        }
+    }
+
+    @Test
+    public void untypedNumbers() {
+        // 不带类型信息的数值(如其它客户端写入的数据)读成Integer/Double
+        String json = "{\"@class\":\"" + CachedValue.class.getName()
+                + "\",\"value\":[\"java.util.ArrayList\",[1,2]],\"createdAt\":1,\"expireAt\":2,\"loadMillis\":3}";
+        CachedValue cached = (CachedValue) serializer(CodecType.JSON).deserialize(json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(Integer.class, ((List<?>) cached.getValue()).get(0).getClass());
+        List<?> list = (List<?>) cached.convertTo(new TypeReference<List<Long>>() {
+        }.getType()).getValue();
+        assertEquals(Arrays.asList(1L, 2L), list);
+        assertEquals(2L, cached.getExpireAt());
+    }
+
+    @Test
+    public void listOfLongRoundTrip() {
+        Type listOfLong = new TypeReference<List<Long>>() {
+        }.getType();
+        for (CodecType type : CodecType.values()) {
+            CachedValue cached = roundTrip(type, new CachedValue(Arrays.asList(1L, 2L, 3L), 1L, 2L, 3L));
+            List<?> list = (List<?>) cached.convertTo(listOfLong).getValue();
+            assertEquals(Arrays.asList(1L, 2L, 3L), list);
+            assertEquals(Long.class, list.get(0).getClass());
+        }
+    }
+
+    @Test
+    public void floatRoundTrip() {
+        CachedValue cached = roundTrip(CodecType.JSON, new CachedValue(1.5F, 1L, 2L, 3L));
+        assertEquals(1.5F, cached.convertTo(Float.class).getValue());
+    }
+
+    @Test
+    public void sameTypeIsNotConverted() {
+        CachedValue cached = new CachedValue("value", 1L, 2L, 3L);
+        assertSame(cached, cached.convertTo(String.class));
+        assertSame(cached, cached.convertTo(Object.class));
+        CachedValue empty = new CachedValue(null, 1L, 2L, 3L);
+        assertNull(empty.convertTo(Long.class).getValue());
+    }
+
+    @Test
+    public void incompatibleType() {
+        CachedValue cached = new CachedValue("not a number", 1L, 2L, 3L);
+        assertThrows(IllegalArgumentException.class, () -> cached.convertTo(Long.class));
+    }
+
+    private static CachedValue roundTrip(CodecType type, CachedValue value) {
+        CodecRedisSerializer serializer = serializer(type);
+        return (CachedValue) serializer.deserialize(serializer.serialize(value));
+    }
+
+    private static CodecRedisSerializer serializer(CodecType type) {
+        CodecProperties properties = new CodecProperties();
+        properties.setType(type);
+        return new CodecRedisSerializer(properties);
+    }
+}
@@ -0,0 +1,173 @@
+package com.shaylee.redis.cache;
+
+import com.shaylee.redis.properties.RedisCacheProperties.HotKeyProperties;
+import com.shaylee.redis.properties.RedisCacheProperties.NearCacheProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Title: 热点键探测测试
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class HotKeyDetectorTest {
+    private static final long WINDOW = 200L;
+
+    @Test
+    public void disabledDetectsNothing() {
+        HotKeyDetector detector = new HotKeyDetector(null);
+        assertFalse(detector.isEnabled());
+        record(detector, "user:1", 10000);
+        assertFalse(detector.isHot("user:1"));
+        assertTrue(detector.getHotKeys().isEmpty());
+    }
+
+    @Test
+    public void promotesAtThreshold() {
+        HotKeyDetector detector = detector(10, 100);
+        record(detector, "user:1", 9);
+        assertFalse(detector.isHot("user:1"));
+        detector.record("user:1");
+        assertTrue(detector.isHot("user:1"));
+        assertEquals(Long.valueOf(10), detector.getHotKeys().get("user:1"));
+        assertFalse(detector.isHot("user:2"));
+        assertFalse(detector.isHot(null));
+    }
+
+    @Test
+    public void hotKeysSortedByEstimate() {
+        HotKeyDetector detector = detector(5, 100);
+        record(detector, "user:1", 5);
+        record(detector, "user:2", 20);
+        record(detector, "user:3", 10);
+        List<String> keys = new ArrayList<>(detector.getHotKeys().keySet());
+        assertEquals("user:2", keys.get(0));
+        assertEquals("user:3", keys.get(1));
+        assertEquals("user:1", keys.get(2));
+    }
+
+    @Test
+    public void fullTableReplacesColdestKey() {
+        HotKeyDetector detector = detector(5, 1);
+        record(detector, "user:1", 5);
+        assertTrue(detector.isHot("user:1"));
+        // 估计值不大于表中最小值时不替换
+        record(detector, "user:2", 5);
+        assertTrue(detector.isHot("user:1"));
+        assertFalse(detector.isHot("user:2"));
+        detector.record("user:2");
+        assertTrue(detector.isHot("user:2"));
+        assertFalse(detector.isHot("user:1"));
+        assertEquals(1, detector.getHotKeys().size());
+    }
+
+    @Test
+    public void demotesKeyColdInLastWindow() throws InterruptedException {
+        HotKeyDetector detector = detector(5, 100, WINDOW);
+        AtomicReference<Map<String, Long>> lastWindow = new AtomicReference<>();
+        detector.setWindowListener(lastWindow::set);
+        record(detector, "user:1", 5);
+
+        Thread.sleep(WINDOW + WINDOW / 4);
+        detector.record("user:other");
+        // 结束的窗口内仍达到阈值, 保留
+        assertTrue(detector.isHot("user:1"));
+        assertNotNull(lastWindow.get());
+        assertTrue(lastWindow.get().containsKey("user:1"));
+
+        Thread.sleep(WINDOW + WINDOW / 4);
+        detector.record("user:other");
+        assertFalse(detector.isHot("user:1"));
+        assertTrue(lastWindow.get().isEmpty());
+    }
+
+    @Test
+    public void clearsAfterIdleWindow() throws InterruptedException {
+        HotKeyDetector detector = detector(5, 100, WINDOW);
+        record(detector, "user:1", 50);
+        Thread.sleep(WINDOW * 2 + WINDOW / 4);
+        detector.record("user:other");
+        assertFalse(detector.isHot("user:1"));
+    }
+
+    @Test
+    public void hotRegionCachesHotKeysOutsideRegions() {
+        NearCache nearCache = new NearCache(new NearCacheProperties(), detector(5, 100));
+        assertTrue(nearCache.isEnabled());
+        for (int i = 0; i < 5; i++) {
+            nearCache.recordAccess("user:1");
+        }
+        assertSame(nearCache.getHotRegion(), nearCache.region("user:1"));
+        assertNull(nearCache.region("user:2"));
+
+        Object value = new Object();
+        nearCache.put("user:1", value, nearCache.stamp("user:1"));
+        assertSame(value, nearCache.get("user:1"));
+        nearCache.put("user:2", value, nearCache.stamp("user:2"));
+        assertNull(nearCache.get("user:2"));
+    }
+
+    @Test
+    public void hotRegionInvalidationIsAlwaysBroadcast() {
+        NearCache nearCache = new NearCache(new NearCacheProperties(), detector(5, 100));
+        List<String> published = new ArrayList<>();
+        nearCache.setInvalidationListener(published::add);
+        for (int i = 0; i < 5; i++) {
+            nearCache.recordAccess("user:1");
+        }
+        nearCache.put("user:1", "v1", nearCache.stamp("user:1"));
+
+        nearCache.invalidate("user:1");
+        assertNull(nearCache.get("user:1"));
+        // 本节点不是热点的键在其他节点可能是热点, 同样通知
+        nearCache.invalidate("user:2");
+        assertEquals(2, published.size());
+        assertEquals("user:1", published.get(0));
+        assertEquals("user:2", published.get(1));
+    }
+
+    @Test
+    public void noBroadcastWithoutHotRegion() {
+        NearCache nearCache = new NearCache(new NearCacheProperties(), new HotKeyDetector(null));
+        List<String> published = new ArrayList<>();
+        nearCache.setInvalidationListener(published::add);
+        assertFalse(nearCache.isEnabled());
+        nearCache.invalidate("user:1");
+        assertTrue(published.isEmpty());
+        assertFalse(nearCache.invalidateLocal("user:1"));
+    }
+
+    private static HotKeyDetector detector(int threshold, int topK) {
+        return detector(threshold, topK, 60000L);
+    }
+
+    private static HotKeyDetector detector(int threshold, int topK, long window) {
+        HotKeyProperties properties = new HotKeyProperties();
+        properties.setEnabled(true);
+        properties.setWindow(window);
+        properties.setThreshold(threshold);
+        properties.setTopK(topK);
+        properties.setTtl(60000L);
+        properties.setSketchWidth(1024);
+        return new HotKeyDetector(properties);
+    }
+
+    private static void record(HotKeyDetector detector, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            detector.record(key);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.shaylee.redis.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Title: 节点间键列表消息测试
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class KeyListMessageTest {
+
+    @Test
+    public void separatorsInKeys() {
+        List<String> keys = Arrays.asList("user:1", "a\nb", "12:34", "", "键:中文\n");
+        String message = KeyListMessage.encode("node", keys);
+        assertEquals("node", KeyListMessage.nodeId(message));
+        assertEquals(keys, KeyListMessage.keys(message));
+    }
+
+    @Test
+    public void noKeys() {
+        String message = KeyListMessage.encode("node", Collections.emptyList());
+        assertEquals("node", KeyListMessage.nodeId(message));
+        assertTrue(KeyListMessage.keys(message).isEmpty());
+    }
+
+    @Test
+    public void malformed() {
+        assertNull(KeyListMessage.nodeId("node"));
+        assertThrows(IllegalArgumentException.class, () -> KeyListMessage.keys("node"));
+        // 未分长度的旧格式
+        assertThrows(IllegalArgumentException.class, () -> KeyListMessage.keys("node\nuser:1\nuser:2"));
+        assertThrows(IllegalArgumentException.class, () -> KeyListMessage.keys("node\n9:user:1"));
+        assertThrows(IllegalArgumentException.class, () -> KeyListMessage.keys("node\n-1:x"));
+        assertThrows(IllegalArgumentException.class, () -> KeyListMessage.keys("node\nuser"));
+    }
+}
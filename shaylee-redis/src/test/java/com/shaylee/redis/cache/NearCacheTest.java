@@ -0,0 +1,166 @@
+package com.shaylee.redis.cache;
+
+import com.shaylee.redis.properties.RedisCacheProperties.NearCacheProperties;
+import com.shaylee.redis.properties.RedisCacheProperties.RegionProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Title: 本地缓存(L1)测试
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class NearCacheTest {
+
+    @Test
+    public void longestPrefixWins() {
+        NearCache nearCache = nearCache("user:", "user:vip:");
+        assertEquals("user:vip:", nearCache.region("user:vip:1").getPrefix());
+        assertEquals("user:", nearCache.region("user:1").getPrefix());
+        assertNull(nearCache.region("order:1"));
+        assertNull(nearCache.region(null));
+        assertFalse(nearCache.invalidateLocal("order:1"));
+        assertTrue(nearCache.invalidateLocal("user:1"));
+    }
+
+    @Test
+    public void disabledWithoutRegions() {
+        NearCache nearCache = new NearCache(new NearCacheProperties());
+        assertFalse(nearCache.isEnabled());
+        nearCache.put("user:1", "v1", nearCache.stamp("user:1"));
+        assertNull(nearCache.get("user:1"));
+    }
+
+    @Test
+    public void putAndInvalidate() {
+        NearCache nearCache = nearCache("user:");
+        nearCache.put("user:1", "v1", nearCache.stamp("user:1"));
+        nearCache.put("user:2", null, nearCache.stamp("user:2"));
+        nearCache.put("order:1", "o1", nearCache.stamp("order:1"));
+        assertEquals("v1", nearCache.get("user:1"));
+        assertNull(nearCache.get("user:2"));
+        assertNull(nearCache.get("order:1"));
+
+        nearCache.invalidate("user:1");
+        assertNull(nearCache.get("user:1"));
+    }
+
+    @Test
+    public void stalePutIsDropped() {
+        NearCache nearCache = nearCache("user:");
+        // 读Redis期间键被失效, 读到的可能是旧值, 不写入本地缓存
+        long stamp = nearCache.stamp("user:1");
+        nearCache.invalidate("user:1");
+        nearCache.put("user:1", "old", stamp);
+        assertNull(nearCache.get("user:1"));
+
+        nearCache.put("user:1", "new", nearCache.stamp("user:1"));
+        assertEquals("new", nearCache.get("user:1"));
+    }
+
+    @Test
+    public void stalePutAfterClearIsDropped() {
+        NearCache nearCache = nearCache("user:");
+        long stamp = nearCache.stamp("user:1");
+        nearCache.clear();
+        nearCache.put("user:1", "old", stamp);
+        assertNull(nearCache.get("user:1"));
+    }
+
+    @Test
+    public void staleFieldAndHashAreDropped() {
+        NearCache nearCache = nearCache("user:");
+        long stamp = nearCache.stamp("user:1");
+        nearCache.invalidate("user:1");
+        nearCache.putField("user:1", "name", "old", stamp);
+        Map<String, Object> hash = new HashMap<>();
+        hash.put("name", "old");
+        nearCache.putHash("user:1", hash, stamp);
+        assertNull(nearCache.getField("user:1", "name"));
+        assertNull(nearCache.getHash("user:1"));
+    }
+
+    @Test
+    public void fieldsAndHashes() {
+        NearCache nearCache = nearCache("user:");
+        nearCache.putField("user:1", "name", "adrian", nearCache.stamp("user:1"));
+        assertEquals("adrian", nearCache.getField("user:1", "name"));
+        // 只缓存了部分字段, 不能作为完整哈希返回
+        assertNull(nearCache.getHash("user:1"));
+        assertNull(nearCache.get("user:1"));
+
+        Map<String, Object> hash = new HashMap<>();
+        hash.put("name", "shaylee");
+        hash.put("age", 3);
+        nearCache.putHash("user:2", hash, nearCache.stamp("user:2"));
+        Map<String, Object> cached = nearCache.getHash("user:2");
+        assertEquals(hash, cached);
+        // 返回副本, 修改不影响缓存
+        cached.put("name", "changed");
+        assertEquals("shaylee", nearCache.getField("user:2", "name"));
+
+        nearCache.invalidate("user:2");
+        assertNull(nearCache.getHash("user:2"));
+        assertNull(nearCache.getField("user:2", "name"));
+    }
+
+    @Test
+    public void concurrentReadNeverCachesStaleValue() throws InterruptedException {
+        NearCache nearCache = nearCache("user:");
+        String key = "user:1";
+        // 模拟Redis中的值: 写入者先写Redis再失效本地缓存, 读取者先取版本号再读Redis
+        AtomicLong redis = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        int readers = 4;
+        CountDownLatch done = new CountDownLatch(readers);
+        for (int i = 0; i < readers; i++) {
+            new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        Object cached = nearCache.get(key);
+                        if (cached != null) {
+                            continue;
+                        }
+                        long stamp = nearCache.stamp(key);
+                        nearCache.put(key, redis.get(), stamp);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        for (int i = 1; i <= 20000; i++) {
+            redis.set(i);
+            nearCache.invalidate(key);
+        }
+        running.set(false);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        // 所有读取结束后缓存中只能是最新值或为空
+        Object cached = nearCache.get(key);
+        assertTrue(cached == null || (Long) cached == redis.get(), "stale value cached: " + cached);
+    }
+
+    private static NearCache nearCache(String... prefixes) {
+        NearCacheProperties properties = new NearCacheProperties();
+        properties.setEnabled(true);
+        for (String prefix : prefixes) {
+            RegionProperties region = new RegionProperties();
+            region.setPrefix(prefix);
+            properties.getRegions().add(region);
+        }
+        return new NearCache(properties);
+    }
+}
@@ -0,0 +1,175 @@
+package com.shaylee.redis.serializer;
+
+import com.shaylee.redis.properties.RedisCacheProperties.CodecProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Title: 可选编码格式的值序列化测试
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-01
+ */
+public class CodecRedisSerializerTest {
+
+    @Test
+    public void jsonWritesLegacyFormat() {
+        CodecRedisSerializer serializer = serializer(CodecType.JSON, false);
+        User user = new User(1L, "adrian");
+        byte[] bytes = serializer.serialize(user);
+        // 未压缩的JSON与原有格式相同, 不写入头部
+        assertNotEquals(CodecRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(user, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void smileRoundTrip() {
+        CodecRedisSerializer serializer = serializer(CodecType.SMILE, false);
+        User user = new User(2L, "shaylee");
+        byte[] bytes = serializer.serialize(user);
+        assertEquals(CodecRedisSerializer.MAGIC, bytes[0]);
+        assertEquals(CodecType.SMILE.getId(), bytes[1] & CodecRedisSerializer.CODEC_MASK);
+        assertEquals(0, bytes[1] & CodecRedisSerializer.COMPRESSED);
+        assertEquals(user, serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void compressedRoundTrip() {
+        User user = new User(3L, repeat("compressible", 200));
+        for (CodecType type : CodecType.values()) {
+            CodecRedisSerializer serializer = serializer(type, true);
+            byte[] bytes = serializer.serialize(user);
+            assertEquals(CodecRedisSerializer.MAGIC, bytes[0]);
+            assertEquals(type.getId(), bytes[1] & CodecRedisSerializer.CODEC_MASK);
+            assertEquals(CodecRedisSerializer.COMPRESSED, bytes[1] & CodecRedisSerializer.COMPRESSED);
+            assertTrue(bytes.length < user.getName().length());
+            assertEquals(user, serializer.deserialize(bytes));
+        }
+    }
+
+    @Test
+    public void smallValueIsNotCompressed() {
+        CodecRedisSerializer serializer = serializer(CodecType.SMILE, true);
+        byte[] bytes = serializer.serialize(new User(4L, "small"));
+        assertEquals(0, bytes[1] & CodecRedisSerializer.COMPRESSED);
+    }
+
+    @Test
+    public void readsLegacyJsonWithoutMagic() {
+        User user = new User(5L, "legacy");
+        byte[] legacy = new GenericJackson2JsonRedisSerializer().serialize(user);
+        // 切换为SMILE并开启压缩后仍能读取原有数据
+        assertEquals(user, serializer(CodecType.SMILE, true).deserialize(legacy));
+        assertEquals(user, serializer(CodecType.JSON, false).deserialize(legacy));
+    }
+
+    @Test
+    public void readsValuesWrittenByOtherCodec() {
+        User user = new User(6L, repeat("switch", 100));
+        CodecRedisSerializer json = serializer(CodecType.JSON, true);
+        CodecRedisSerializer smile = serializer(CodecType.SMILE, false);
+        assertEquals(user, json.deserialize(smile.serialize(user)));
+        assertEquals(user, smile.deserialize(json.serialize(user)));
+    }
+
+    @Test
+    public void nullValueRoundTrip() {
+        // 空值标记按类型识别(与RedisServiceImpl相同)
+        for (CodecType type : CodecType.values()) {
+            CodecRedisSerializer serializer = serializer(type, false);
+            assertTrue(serializer.deserialize(serializer.serialize(NullValue.INSTANCE)) instanceof NullValue);
+        }
+    }
+
+    @Test
+    public void nullAndEmpty() {
+        CodecRedisSerializer serializer = serializer(CodecType.SMILE, true);
+        assertEquals(0, serializer.serialize(null).length);
+        assertNull(serializer.deserialize(null));
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    public void rejectsCorruptHeader() {
+        CodecRedisSerializer serializer = serializer(CodecType.JSON, false);
+        assertThrows(SerializationException.class,
+                () -> serializer.deserialize(new byte[]{CodecRedisSerializer.MAGIC}));
+        assertThrows(SerializationException.class,
+                () -> serializer.deserialize(new byte[]{CodecRedisSerializer.MAGIC, 0x0F, 1}));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(
+                new byte[]{CodecRedisSerializer.MAGIC, (byte) CodecRedisSerializer.COMPRESSED, 1, 2, 3}));
+    }
+
+    private static CodecRedisSerializer serializer(CodecType type, boolean compress) {
+        CodecProperties properties = new CodecProperties();
+        properties.setType(type);
+        properties.setCompress(compress);
+        properties.setCompressThreshold(256);
+        return new CodecRedisSerializer(properties);
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    public static class User {
+        private Long id;
+        private String name;
+
+        public User() {
+        }
+
+        User(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof User)) {
+                return false;
+            }
+            User user = (User) o;
+            return Objects.equals(id, user.id) && Objects.equals(name, user.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.shaylee.threadpool;
+
+import com.shaylee.threadpool.metrics.TaskMetrics;
+import com.shaylee.threadpool.metrics.ThreadPoolStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 线程池基类
+ * 功能说明： 各类型线程池(标准、工作窃取、定时)共有的命名、监控、暂停/恢复、关闭、卡死任务检测及任务提交接口;
+ * 只有某类线程池支持的调整(如最大线程数、自动调优、公平分配)由具体线程池类提供
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public abstract class AbstractThreadPool {
+    /**
+     * 卡死任务检测器(未开启时为null)
+     */
+    private volatile StuckTaskDetector stuckTaskDetector;
+
+    /**
+     * 线程池名称 getter
+     *
+     * @return 线程池名称
+     */
+    public abstract String getPoolName();
+
+    /**
+     * 线程池类型 getter
+     *
+     * @return 线程池类型
+     */
+    public abstract PoolType getType();
+
+    /**
+     * 工作线程模式 getter
+     *
+     * @return 实际生效的工作线程模式
+     */
+    public abstract ThreadMode getThreadMode();
+
+    /**
+     * 内核线程数 getter
+     *
+     * @return 内核线程数
+     */
+    public abstract int getCorePoolSize();
+
+    /**
+     * 最大线程数 getter
+     *
+     * @return 最大线程数
+     */
+    public abstract int getMaximumPoolSize();
+
+    /**
+     * 准入等待时长 getter
+     *
+     * @return 等待时长（秒）, 没有准入等待时为0
+     */
+    public abstract long getTimeOut();
+
+    /**
+     * 繁忙时是否由调用者执行
+     *
+     * @return 由调用者执行返回true
+     */
+    public abstract boolean isCallerRuns();
+
+    /**
+     * 拒绝请求次数 getter
+     *
+     * @return 拒绝请求次数
+     */
+    public abstract long getRejectedTimes();
+
+    /**
+     * 最近一次拒绝的错误信息 getter
+     *
+     * @return 错误信息
+     */
+    public abstract String getRejectedErrMsg();
+
+    /**
+     * 排队任务数 getter
+     *
+     * @return 排队任务数
+     */
+    public abstract int getQueueSize();
+
+    /**
+     * 等待准入的调用者数 getter
+     *
+     * @return 等待准入的调用者数
+     */
+    public abstract int getWaitingCallers();
+
+    /**
+     * 当前线程数 getter
+     *
+     * @return 当前线程数
+     */
+    public abstract int getThreadNumber();
+
+    /**
+     * 活动线程数 getter
+     *
+     * @return 活动线程数
+     */
+    public abstract int getActiveThread();
+
+    /**
+     * 任务指标(准入等待、排队等待、执行时长直方图及失败数) getter
+     *
+     * @return 任务指标
+     */
+    public abstract TaskMetrics getMetrics();
+
+    /**
+     * 完成任务数 getter
+     *
+     * @return 完成任务数
+     */
+    public abstract long getCompletedTasks();
+
+    /**
+     * 获取所有线程堆栈
+     *
+     * @return 所有线程堆栈(list)
+     */
+    public abstract List<ThreadStack> getAllThreadStacks();
+
+    /**
+     * 是否暂停执行
+     *
+     * @return 如果暂停了返回true否则返回false
+     */
+    public abstract boolean isPaused();
+
+    /**
+     * 暂停执行
+     */
+    public abstract void pause();
+
+    /**
+     * 恢复继续执行
+     */
+    public abstract void resume();
+
+    /**
+     * 是否将提交线程的上下文(MDC、请求、安全等)传递到工作线程
+     *
+     * @return 传递返回true
+     */
+    public abstract boolean isPropagateContext();
+
+    /**
+     * 开启或关闭上下文传递
+     *
+     * @param propagateContext 是否传递
+     */
+    public abstract void setPropagateContext(boolean propagateContext);
+
+    /**
+     * 关闭线程池: 不再接收新任务, 已接收的任务继续执行完
+     */
+    public abstract void shutdown();
+
+    /**
+     * 是否已关闭
+     *
+     * @return 已关闭返回true
+     */
+    public abstract boolean isShutdown();
+
+    /**
+     * 立即关闭线程池: 中断执行中的任务, 返回尚未执行的任务
+     *
+     * @return 尚未执行的任务
+     */
+    public abstract List<Runnable> shutdownNow();
+
+    /**
+     * 等待关闭后的线程池执行完所有任务
+     *
+     * @param timeout 最长等待时长
+     * @param unit    时长单位
+     * @return 全部执行完返回true, 超时返回false
+     * @throws InterruptedException 等待时被中断
+     */
+    public abstract boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 关闭后是否所有任务都已执行完
+     *
+     * @return 已终止返回true
+     */
+    public abstract boolean isTerminated();
+
+    /**
+     * 提交请求线程池
+     *
+     * @param r Runnable请求
+     * @return Future对象
+     */
+    public abstract Future<?> submit(Runnable r);
+
+    /**
+     * 提交请求线程池
+     *
+     * @param c Callable请求
+     * @return Future对象
+     */
+    public abstract Future<?> submit(Callable<?> c);
+
+    /**
+     * 执行任务(经过暂停检查及准入控制)
+     *
+     * @param r Runnable请求
+     */
+    public abstract void execute(Runnable r);
+
+    /**
+     * 执行中任务登记表
+     */
+    abstract RunningTasks runningTasks();
+
+    /**
+     * 线程工厂
+     */
+    abstract ShayleeThreadFactory threadFactory();
+
+    /**
+     * 获取线程池统计快照(线程数、队列、完成/失败/拒绝数以及准入等待、排队、执行时长分位数)
+     *
+     * @return 统计快照
+     */
+    public ThreadPoolStats getStats() {
+        TaskMetrics metrics = getMetrics();
+        ThreadPoolStats stats = new ThreadPoolStats();
+        stats.setPoolName(getPoolName());
+        stats.setCorePoolSize(getCorePoolSize());
+        stats.setMaximumPoolSize(getMaximumPoolSize());
+        stats.setPoolSize(getThreadNumber());
+        stats.setActiveCount(getActiveThread());
+        stats.setQueueSize(getQueueSize());
+        stats.setWaitingCallers(getWaitingCallers());
+        stats.setPaused(isPaused());
+        stats.setCompletedTasks(getCompletedTasks());
+        stats.setFailedTasks(metrics.getFailedTasks());
+        stats.setExpiredTasks(metrics.getExpiredTasks());
+        stats.setStuckTasks(metrics.getStuckTasks());
+        stats.setCurrentStuckTasks(metrics.getCurrentStuckTasks());
+        stats.setRejectedTasks(getRejectedTimes());
+        stats.setAdmissionWait(metrics.getAdmissionWait().snapshot());
+        stats.setQueueWait(metrics.getQueueWait().snapshot());
+        stats.setExecution(metrics.getExecution().snapshot());
+        stats.setThroughput(stats.getExecution().getCount() / metrics.getExecution().getSpanSeconds());
+        return stats;
+    }
+
+    /**
+     * 卡死任务检测器 getter
+     *
+     * @return 卡死任务检测器, 未开启时返回null
+     */
+    public StuckTaskDetector getStuckTaskDetector() {
+        return stuckTaskDetector;
+    }
+
+    /**
+     * 开启卡死任务检测, 替换并停止已有的检测器
+     *
+     * @param stuckTaskDetector 卡死任务检测器, 为null时关闭检测
+     */
+    public synchronized void setStuckTaskDetector(StuckTaskDetector stuckTaskDetector) {
+        if (this.stuckTaskDetector != null) {
+            this.stuckTaskDetector.stop();
+        }
+        this.stuckTaskDetector = stuckTaskDetector;
+        if (stuckTaskDetector != null) {
+            stuckTaskDetector.start();
+        }
+    }
+
+    /**
+     * 最近一次检测到的卡死任务(只含卡死任务所在线程的堆栈)
+     *
+     * @return 卡死任务, 未开启检测时返回空列表
+     */
+    public List<StuckTask> getStuckTasks() {
+        StuckTaskDetector detector = this.stuckTaskDetector;
+        return detector == null ? Collections.emptyList() : detector.getStuckTasks();
+    }
+
+    /**
+     * 异步执行有返回值的任务
+     * 与submit一样经过暂停检查及准入控制, 被拒绝时返回以RejectedExecutionException结束的CompletableFuture
+     *
+     * @param supplier 任务
+     * @param <T>      结果类型
+     * @return CompletableFuture对象
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        AsyncTask<T> task = new AsyncTask<>(supplier::get);
+        try {
+            execute(task);
+        } catch (RejectedExecutionException e) {
+            task.completeExceptionally(e);
+        }
+        return task;
+    }
+
+    /**
+     * 异步执行无返回值的任务
+     * 与submit一样经过暂停检查及准入控制, 被拒绝时返回以RejectedExecutionException结束的CompletableFuture
+     *
+     * @param runnable 任务
+     * @return CompletableFuture对象
+     */
+    public CompletableFuture<Void> runAsync(Runnable runnable) {
+        return supplyAsync(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * 以限定的并发度批量执行任务, 不阻塞调用者
+     * 最多占用parallelism个线程依次执行全部任务, 每个任务完成时其CompletableFuture随即完成;
+     * 超时后未完成的任务以TimeoutException结束, 尚未开始的任务不再执行
+     *
+     * @param tasks       任务集合
+     * @param parallelism 最大并发度
+     * @param timeout     整批任务的超时时长, 小于等于0时不超时
+     * @param unit        超时时长单位
+     * @param <T>         结果类型
+     * @return 与任务顺序一致的CompletableFuture列表
+     */
+    public <T> List<CompletableFuture<T>> invokeAllBounded(Collection<? extends Callable<T>> tasks, int parallelism,
+                                                           long timeout, TimeUnit unit) {
+        return new BoundedInvoker<T>(this, tasks).start(parallelism, timeout, unit);
+    }
+
+    /**
+     * 以限定的并发度并行转换集合元素, 不阻塞调用者
+     *
+     * @param items       待转换元素
+     * @param mapper      转换函数
+     * @param parallelism 最大并发度
+     * @param timeout     整批任务的超时时长, 小于等于0时不超时
+     * @param unit        超时时长单位
+     * @param <T>         元素类型
+     * @param <R>         结果类型
+     * @return 全部完成后按元素顺序返回结果, 任一元素失败或超时则以该异常结束
+     */
+    public <T, R> CompletableFuture<List<R>> mapParallel(Collection<? extends T> items,
+                                                         Function<? super T, ? extends R> mapper,
+                                                         int parallelism, long timeout, TimeUnit unit) {
+        return mapParallel(items, mapper, parallelism, timeout, unit, null);
+    }
+
+    /**
+     * 以限定的并发度并行转换集合元素, 不阻塞调用者, 每个元素转换完成时立即回调
+     *
+     * @param items       待转换元素
+     * @param mapper      转换函数
+     * @param parallelism 最大并发度
+     * @param timeout     整批任务的超时时长, 小于等于0时不超时
+     * @param unit        超时时长单位
+     * @param onResult    单个元素转换成功后的回调(在工作线程中按完成顺序调用), 可为null
+     * @param <T>         元素类型
+     * @param <R>         结果类型
+     * @return 全部完成后按元素顺序返回结果, 任一元素失败或超时则以该异常结束
+     */
+    public <T, R> CompletableFuture<List<R>> mapParallel(Collection<? extends T> items,
+                                                         Function<? super T, ? extends R> mapper,
+                                                         int parallelism, long timeout, TimeUnit unit,
+                                                         BiConsumer<? super T, ? super R> onResult) {
+        List<Callable<R>> tasks = new ArrayList<>(items.size());
+        for (T item : items) {
+            tasks.add(() -> {
+                R result = mapper.apply(item);
+                if (onResult != null) {
+                    onResult.accept(item, result);
+                }
+                return result;
+            });
+        }
+        List<CompletableFuture<R>> futures = invokeAllBounded(tasks, parallelism, timeout, unit);
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<R> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<R> future : futures) {
+                results.add(future.join());
+            }
+            return results;
+        });
+    }
+}
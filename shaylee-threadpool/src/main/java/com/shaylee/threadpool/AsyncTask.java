@@ -0,0 +1,37 @@
+package com.shaylee.threadpool;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步任务类
+ * 功能说明： 自身即是CompletableFuture, 提交到线程池后由工作线程执行并完成;
+ * 执行器在afterExecute中按Future判断任务是否失败, 因此异常会计入失败任务数
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+class AsyncTask<T> extends CompletableFuture<T> implements Runnable {
+    /**
+     * 原始任务
+     */
+    private final Callable<T> callable;
+
+    AsyncTask(Callable<T> callable) {
+        this.callable = callable;
+    }
+
+    @Override
+    public void run() {
+        // 已被取消或超时的任务不再执行
+        if (isDone()) {
+            return;
+        }
+        try {
+            complete(callable.call());
+        } catch (Throwable e) {
+            completeExceptionally(e);
+        }
+    }
+}
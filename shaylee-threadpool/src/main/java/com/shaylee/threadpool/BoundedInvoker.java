@@ -0,0 +1,139 @@
+package com.shaylee.threadpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限定并发度的批量任务执行器
+ * 功能说明： 向线程池提交不超过并发度个数的执行通道, 每个通道依次领取并执行剩余任务,
+ * 调用者无需阻塞等待, 每个任务的结果通过各自的CompletableFuture在完成时返回;
+ * 到达超时时间仍未完成的任务以TimeoutException结束, 尚未开始的任务不再执行
+ * 执行通道不会由调用者执行(即使线程池开启了isCallerRuns), 线程池繁忙时未被接纳的通道不再提交, 由已接纳的通道执行全部任务
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+class BoundedInvoker<T> implements Runnable {
+    private static Logger logger = LoggerFactory.getLogger(BoundedInvoker.class);
+
+    /**
+     * 所有批量任务共用的超时定时线程
+     */
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, ShayleeThreadPoolExecutor.POOL_NAME_PREFIX + "-async-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 所属线程池
+     */
+    private final AbstractThreadPool threadPool;
+    /**
+     * 待执行的任务
+     */
+    private final List<Callable<T>> tasks;
+    /**
+     * 与任务一一对应的结果
+     */
+    private final List<CompletableFuture<T>> futures;
+    /**
+     * 下一个待领取的任务下标
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    BoundedInvoker(AbstractThreadPool threadPool, Collection<? extends Callable<T>> tasks) {
+        this.threadPool = threadPool;
+        this.tasks = new ArrayList<>(tasks);
+        this.futures = new ArrayList<>(this.tasks.size());
+        for (int i = 0; i < this.tasks.size(); i++) {
+            futures.add(new CompletableFuture<>());
+        }
+    }
+
+    /**
+     * 开始执行
+     *
+     * @param parallelism 最大并发度
+     * @param timeout     整批任务的超时时长, 小于等于0时不超时
+     * @param unit        超时时长单位
+     * @return 与任务顺序一致的结果
+     */
+    List<CompletableFuture<T>> start(int parallelism, long timeout, TimeUnit unit) {
+        if (tasks.isEmpty()) {
+            return futures;
+        }
+        if (timeout > 0) {
+            ScheduledFuture<?> timer = TIMER.schedule(this::expire, timeout, unit);
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .whenComplete((v, e) -> timer.cancel(false));
+        }
+        int lanes = Math.max(1, Math.min(parallelism, tasks.size()));
+        for (int lane = 0; lane < lanes; lane++) {
+            try {
+                threadPool.execute(this);
+            } catch (RejectedExecutionException e) {
+                if (lane == 0) {
+                    // 一个通道都没有提交成功, 所有任务以拒绝异常结束
+                    for (CompletableFuture<T> future : futures) {
+                        future.completeExceptionally(e);
+                    }
+                } else {
+                    logger.warn("Only {} of {} lanes were admitted by pool {}", lane, lanes,
+                            threadPool.getPoolName());
+                }
+                break;
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * 执行通道: 依次领取剩余任务直到全部领取完
+     */
+    @Override
+    public void run() {
+        int i;
+        while ((i = next.getAndIncrement()) < tasks.size()) {
+            CompletableFuture<T> future = futures.get(i);
+            if (future.isDone()) {
+                continue;
+            }
+            try {
+                future.complete(tasks.get(i).call());
+            } catch (Throwable e) {
+                threadPool.getMetrics().recordFailure();
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 超时: 未完成的任务以TimeoutException结束
+     */
+    private void expire() {
+        for (CompletableFuture<T> future : futures) {
+            if (!future.isDone()) {
+                future.completeExceptionally(new TimeoutException("The task of pool "
+                        + threadPool.getPoolName() + " was not completed before the deadline"));
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.shaylee.threadpool;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池公平分配策略
+ * 功能说明： 按键(租户、接口等)将准入许可按权重划分配额, 配额内的任务与原来一样可等待准入;
+ * 超出配额的任务只能借用空闲许可(没有其它调用者在等待且能立即获得许可), 否则立即拒绝,
+ * 使繁忙的键只影响自己, 不会占满整个线程池. 只有配置了权重的键有独立分区, 其它键共用默认键的分区,
+ * 分区数及总权重在构造后不再变化
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class FairShare {
+    /**
+     * 未指定键的任务归入的默认键
+     */
+    public static final String DEFAULT_KEY = "default";
+
+    /**
+     * 未配置权重的键的默认权重
+     */
+    private final int defaultWeight;
+    /**
+     * 配置的各键权重
+     */
+    private final Map<String, Integer> configuredWeights = new LinkedHashMap<>();
+    /**
+     * 配置的键及默认键的分区
+     */
+    private final Map<String, Partition> partitions = new LinkedHashMap<>();
+    /**
+     * 默认键的分区, 未配置权重的键共用
+     */
+    private final Partition defaultPartition;
+    /**
+     * 所有分区的权重之和
+     */
+    private final int totalWeight;
+
+    /**
+     * 构造公平分配策略
+     *
+     * @param weights       各键的权重
+     * @param defaultWeight 默认键(未配置权重的键共用)的权重
+     */
+    public FairShare(Map<String, Integer> weights, int defaultWeight) {
+        this.defaultWeight = Math.max(1, defaultWeight);
+        if (weights != null) {
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                int weight = entry.getValue() == null ? this.defaultWeight : Math.max(1, entry.getValue());
+                configuredWeights.put(entry.getKey(), weight);
+                partitions.put(entry.getKey(), new Partition(entry.getKey(), weight));
+            }
+        }
+        Partition partition = partitions.get(DEFAULT_KEY);
+        if (partition == null) {
+            partition = new Partition(DEFAULT_KEY, this.defaultWeight);
+            partitions.put(DEFAULT_KEY, partition);
+        }
+        this.defaultPartition = partition;
+        int total = 0;
+        for (Partition p : partitions.values()) {
+            total += p.weight;
+        }
+        this.totalWeight = total;
+    }
+
+    /**
+     * 获取键对应的分区, 未配置权重的键归入默认键的分区
+     *
+     * @param key 键, 为null时归入默认键
+     * @return 分区
+     */
+    Partition partition(String key) {
+        Partition partition = key == null ? null : partitions.get(key);
+        return partition == null ? defaultPartition : partition;
+    }
+
+    /**
+     * 键在许可总数中的配额(至少为1)
+     *
+     * @param partition  分区
+     * @param maxPermits 许可总数
+     * @return 配额
+     */
+    int quota(Partition partition, int maxPermits) {
+        return Math.max(1, (int) ((long) maxPermits * partition.weight / Math.max(1, totalWeight)));
+    }
+
+    /**
+     * 各键当前占用的许可数
+     *
+     * @return 键 -> 占用许可数
+     */
+    public Map<String, Integer> getInFlight() {
+        Map<String, Integer> inFlight = new LinkedHashMap<>(partitions.size());
+        for (Partition partition : partitions.values()) {
+            inFlight.put(partition.key, partition.inFlight.get());
+        }
+        return Collections.unmodifiableMap(inFlight);
+    }
+
+    /**
+     * 各键的权重
+     *
+     * @return 键 -> 权重
+     */
+    public Map<String, Integer> getWeights() {
+        Map<String, Integer> weights = new LinkedHashMap<>(partitions.size());
+        for (Partition partition : partitions.values()) {
+            weights.put(partition.key, partition.weight);
+        }
+        return Collections.unmodifiableMap(weights);
+    }
+
+    /**
+     * 是否与另一个策略的配置(配置的权重及默认权重)相同
+     *
+     * @param other 另一个策略
+     * @return 相同返回true
+     */
+    public boolean sameConfig(FairShare other) {
+        return other != null && defaultWeight == other.defaultWeight
+                && configuredWeights.equals(other.configuredWeights);
+    }
+
+    /**
+     * 键的分区: 记录权重及当前占用的许可数
+     */
+    static final class Partition {
+        final String key;
+        final int weight;
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        Partition(String key, int weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+
+        /**
+         * 在配额内时占用一个名额
+         *
+         * @param quota 配额
+         * @return 配额内返回true, 已达配额返回false
+         */
+        boolean tryEnter(int quota) {
+            for (;;) {
+                int current = inFlight.get();
+                if (current >= quota) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 借用空闲许可时占用一个名额
+         */
+        void enter() {
+            inFlight.incrementAndGet();
+        }
+
+        /**
+         * 归还名额
+         */
+        void exit() {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.shaylee.threadpool;
+
+import com.shaylee.threadpool.metrics.TaskMetrics;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工作窃取线程池类
+ * 功能说明： 基于ShayleeForkJoinPool, 与ThreadPool共同继承AbstractThreadPool, 提供相同的命名、监控、暂停/恢复接口,
+ * 内核线程数与最大线程数均为并行度, 运行期间不可调整
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ForkJoinThreadPool extends AbstractThreadPool {
+    /**
+     * 工作窃取线程池
+     */
+    private final ShayleeForkJoinPool forkJoinPool;
+
+    /**
+     * 构造工作窃取线程池
+     *
+     * @param poolName      线程池名
+     * @param parallelism   并行度
+     * @param waitTime      等待超时时长（秒）
+     * @param queueCapacity 排队任务数上限
+     */
+    public ForkJoinThreadPool(String poolName, int parallelism, long waitTime, int queueCapacity) {
+        this.forkJoinPool = new ShayleeForkJoinPool(poolName, parallelism, waitTime, queueCapacity);
+    }
+
+    /**
+     * 工作窃取线程池 getter
+     *
+     * @return 工作窃取线程池
+     */
+    public ShayleeForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    @Override
+    public String getPoolName() {
+        return forkJoinPool.getName();
+    }
+
+    @Override
+    public PoolType getType() {
+        return PoolType.FORK_JOIN;
+    }
+
+    @Override
+    public ThreadMode getThreadMode() {
+        return ThreadMode.PLATFORM;
+    }
+
+    @Override
+    public int getCorePoolSize() {
+        return forkJoinPool.getParallelism();
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return forkJoinPool.getParallelism();
+    }
+
+    @Override
+    public long getTimeOut() {
+        return forkJoinPool.getWaitTime();
+    }
+
+    /**
+     * 准入等待时长 setter, 工作窃取线程池的并行度不能在运行期间调整, 只能调整等待时长
+     *
+     * @param waitTime 等待时长（秒）
+     */
+    public void setTimeOut(long waitTime) {
+        forkJoinPool.setWaitTime(waitTime);
+    }
+
+    @Override
+    public boolean isCallerRuns() {
+        return false;
+    }
+
+    @Override
+    public void shutdown() {
+        setStuckTaskDetector(null);
+        forkJoinPool.shutdown();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return forkJoinPool.isShutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        setStuckTaskDetector(null);
+        return forkJoinPool.shutdownNow();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return forkJoinPool.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return forkJoinPool.isTerminated();
+    }
+
+    @Override
+    public long getRejectedTimes() {
+        return forkJoinPool.getHandler().getRejectedTimes();
+    }
+
+    @Override
+    public String getRejectedErrMsg() {
+        return forkJoinPool.getHandler().getRejectedErrMsg();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return forkJoinPool.getQueuedTaskSize();
+    }
+
+    @Override
+    public int getWaitingCallers() {
+        return forkJoinPool.getWaitingCallerCount();
+    }
+
+    @Override
+    public int getThreadNumber() {
+        return forkJoinPool.getFactory().getThreadCount();
+    }
+
+    @Override
+    public int getActiveThread() {
+        return forkJoinPool.getActiveThreadCount();
+    }
+
+    @Override
+    public TaskMetrics getMetrics() {
+        return forkJoinPool.getMetrics();
+    }
+
+    @Override
+    public long getCompletedTasks() {
+        return forkJoinPool.getCompletedTaskCount();
+    }
+
+    @Override
+    public List<ThreadStack> getAllThreadStacks() {
+        return forkJoinPool.getFactory().getAllThreadStacks();
+    }
+
+    @Override
+    public boolean isPaused() {
+        return forkJoinPool.isPaused();
+    }
+
+    @Override
+    public void pause() {
+        forkJoinPool.pause();
+    }
+
+    @Override
+    public void resume() {
+        forkJoinPool.resume();
+    }
+
+    @Override
+    public Future<?> submit(Runnable r) {
+        return forkJoinPool.submit(r);
+    }
+
+    @Override
+    public Future<?> submit(Callable<?> c) {
+        return forkJoinPool.submit(c);
+    }
+
+    @Override
+    public void execute(Runnable r) {
+        forkJoinPool.execute(r);
+    }
+
+    @Override
+    public boolean isPropagateContext() {
+        return forkJoinPool.isPropagateContext();
+    }
+
+    @Override
+    public void setPropagateContext(boolean propagateContext) {
+        forkJoinPool.setPropagateContext(propagateContext);
+    }
+
+    @Override
+    RunningTasks runningTasks() {
+        return forkJoinPool.runningTasks;
+    }
+
+    @Override
+    ShayleeThreadFactory threadFactory() {
+        return forkJoinPool.getFactory();
+    }
+
+    /**
+     * 提交递归任务
+     *
+     * @param task 递归任务
+     * @param <T>  结果类型
+     * @return 提交的任务本身, 可join/get获取结果
+     */
+    public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+        return forkJoinPool.submit(task);
+    }
+
+    /**
+     * 提交递归任务并等待结果
+     *
+     * @param task 递归任务
+     * @param <T>  结果类型
+     * @return 任务结果
+     */
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return forkJoinPool.invoke(task);
+    }
+}
@@ -0,0 +1,23 @@
+package com.shaylee.threadpool;
+
+/**
+ * 线程池类型
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public enum PoolType {
+    /**
+     * 基于ShayleeThreadPoolExecutor的普通线程池(默认)
+     */
+    STANDARD,
+    /**
+     * 基于ForkJoinPool的工作窃取线程池, 适合CPU密集的递归并行计算
+     */
+    FORK_JOIN,
+    /**
+     * 基于ScheduledThreadPoolExecutor的定时线程池, 可作为Spring的TaskScheduler
+     */
+    SCHEDULED
+}
@@ -0,0 +1,110 @@
+package com.shaylee.threadpool;
+
+import com.shaylee.threadpool.metrics.TaskMetrics;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带优先级及截止时间的任务类
+ * 功能说明： 优先级队列中按优先级(数值越大越优先)、截止时间(越早越优先)排序;
+ * 开始执行时已过截止时间的任务直接丢弃(若是Future则取消), 计入过期任务数而不是拒绝次数
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+class PriorityTask implements Runnable {
+    /**
+     * 默认优先级
+     */
+    static final int DEFAULT_PRIORITY = 0;
+
+    /**
+     * 原始任务
+     */
+    final Runnable command;
+    /**
+     * 优先级, 数值越大越优先
+     */
+    final int priority;
+    /**
+     * 截止时间(纳秒, System.nanoTime()), 0表示没有截止时间
+     */
+    final long deadlineNanos;
+    /**
+     * 所属线程池的任务指标
+     */
+    private final TaskMetrics metrics;
+    /**
+     * 是否已过期丢弃
+     */
+    volatile boolean expired;
+
+    PriorityTask(Runnable command, int priority, long deadlineNanos, TaskMetrics metrics) {
+        this.command = command;
+        this.priority = priority;
+        this.deadlineNanos = deadlineNanos;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void run() {
+        if (!expireIfDue()) {
+            command.run();
+        }
+    }
+
+    /**
+     * 已过截止时间时丢弃任务
+     *
+     * @return 已过期返回true
+     */
+    boolean expireIfDue() {
+        if (deadlineNanos == 0 || System.nanoTime() - deadlineNanos < 0) {
+            return false;
+        }
+        expired = true;
+        metrics.recordExpired();
+        if (command instanceof Future) {
+            ((Future<?>) command).cancel(false);
+        }
+        return true;
+    }
+
+    /**
+     * 与另一个任务比较先后: 优先级高的在前, 同优先级时有截止时间且更早的在前
+     *
+     * @param o 另一个任务
+     * @return 小于0表示本任务在前, 0表示不分先后
+     */
+    int compareTo(PriorityTask o) {
+        int c = Integer.compare(o.priority, priority);
+        if (c != 0 || deadlineNanos == o.deadlineNanos) {
+            return c;
+        }
+        if (deadlineNanos == 0) {
+            return 1;
+        }
+        if (o.deadlineNanos == 0) {
+            return -1;
+        }
+        return Long.signum(deadlineNanos - o.deadlineNanos);
+    }
+
+    /**
+     * 计算截止时间
+     *
+     * @param timeout 超时时长, 小于等于0时没有截止时间
+     * @param unit    超时时长单位
+     * @return 截止时间(纳秒), 0表示没有截止时间
+     */
+    static long deadline(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        // 0保留给没有截止时间
+        return deadline == 0 ? 1 : deadline;
+    }
+}
@@ -0,0 +1,67 @@
+package com.shaylee.threadpool;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * 线程池工作队列类型
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public enum QueueType {
+    /**
+     * 同步移交队列, 不缓存任务(默认)
+     */
+    SYNCHRONOUS,
+    /**
+     * 有界数组队列
+     */
+    ARRAY,
+    /**
+     * 链表队列
+     */
+    LINKED,
+    /**
+     * 优先级队列
+     */
+    PRIORITY;
+
+    /**
+     * 未配置队列容量时的默认容量
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * 是否缓存任务
+     *
+     * @return 同步移交队列返回false, 其它返回true
+     */
+    public boolean isBuffered() {
+        return this != SYNCHRONOUS;
+    }
+
+    /**
+     * 创建工作队列
+     * 队列长度由执行器的准入信号量控制, 优先级队列本身不限长度
+     *
+     * @param capacity 队列容量
+     * @return 工作队列
+     */
+    public BlockingQueue<Runnable> newQueue(int capacity) {
+        switch (this) {
+            case ARRAY:
+                return new ArrayBlockingQueue<>(capacity);
+            case LINKED:
+                return new LinkedBlockingQueue<>(capacity);
+            case PRIORITY:
+                return new PriorityBlockingQueue<>(Math.min(capacity, 64));
+            default:
+                return new SynchronousQueue<>();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.shaylee.threadpool;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 可调整许可总数的信号量
+ * 功能说明： 在JDK Semaphore基础上记录许可总数, 调整线程池大小时同步增减准入许可,
+ * 已被占用的许可不受影响(缩小时由后续释放逐步抵消)
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+class ResizableSemaphore extends Semaphore {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 许可总数
+     */
+    private int maxPermits;
+
+    ResizableSemaphore(int permits) {
+        super(permits);
+        this.maxPermits = permits;
+    }
+
+    /**
+     * 许可总数 getter
+     *
+     * @return 许可总数
+     */
+    int getMaxPermits() {
+        return maxPermits;
+    }
+
+    /**
+     * 调整许可总数
+     *
+     * @param newMaxPermits 新的许可总数
+     */
+    synchronized void resize(int newMaxPermits) {
+        int delta = newMaxPermits - maxPermits;
+        if (delta > 0) {
+            release(delta);
+        } else if (delta < 0) {
+            reducePermits(-delta);
+        }
+        maxPermits = newMaxPermits;
+    }
+}
@@ -0,0 +1,114 @@
+package com.shaylee.threadpool;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 执行中任务登记表
+ * 功能说明： 开启卡死任务检测后, 工作线程在任务开始时登记开始时间, 结束时注销, 供检测线程低频扫描;
+ * 未开启时只需一次volatile读
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+class RunningTasks {
+    /**
+     * 是否开启登记
+     */
+    volatile boolean enabled;
+    /**
+     * 工作线程 -> 执行中的任务
+     */
+    final Map<Thread, Entry> tasks = new ConcurrentHashMap<>();
+
+    /**
+     * 登记任务开始
+     *
+     * @param thread     工作线程
+     * @param startNanos 开始时间(纳秒)
+     * @return 同一线程上被嵌套执行的外层任务(工作窃取线程池join时可能在同一线程执行其它任务), 没有时返回null
+     */
+    Entry begin(Thread thread, long startNanos) {
+        return enabled ? tasks.put(thread, new Entry(startNanos)) : null;
+    }
+
+    /**
+     * 注销任务, 恢复外层任务的登记; 只能由执行任务的工作线程调用
+     *
+     * @param thread 工作线程
+     * @param outer  begin返回的外层任务
+     */
+    void end(Thread thread, Entry outer) {
+        Entry current;
+        if (outer != null) {
+            current = tasks.put(thread, outer);
+        } else {
+            current = tasks.isEmpty() ? null : tasks.remove(thread);
+        }
+        if (current != null) {
+            current.finish();
+        }
+    }
+
+    /**
+     * 关闭登记并清空
+     */
+    void disable() {
+        enabled = false;
+        tasks.clear();
+    }
+
+    /**
+     * 执行中的任务
+     */
+    static final class Entry {
+        final long startNanos;
+        /**
+         * 是否已报告为卡死任务
+         */
+        boolean reported;
+        /**
+         * 是否已结束(由本对象的锁保护)
+         */
+        private boolean finished;
+        /**
+         * 是否被检测线程中断过(由本对象的锁保护)
+         */
+        private boolean interrupted;
+
+        Entry(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * 中断执行本任务的线程; 任务已结束或线程已登记为其它任务时不中断, 以免中断线程上的下一个任务
+         *
+         * @param thread       工作线程
+         * @param runningTasks 登记表
+         * @return 中断返回true
+         */
+        synchronized boolean interrupt(Thread thread, RunningTasks runningTasks) {
+            if (finished || runningTasks.tasks.get(thread) != this) {
+                return false;
+            }
+            thread.interrupt();
+            interrupted = true;
+            return true;
+        }
+
+        synchronized boolean isInterrupted() {
+            return interrupted;
+        }
+
+        /**
+         * 任务结束; 在工作线程中调用, 清除任务返回后才到达的中断标记
+         */
+        synchronized void finish() {
+            finished = true;
+            if (interrupted) {
+                Thread.interrupted();
+            }
+        }
+    }
+}
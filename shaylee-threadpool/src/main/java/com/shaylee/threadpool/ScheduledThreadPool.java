@@ -0,0 +1,268 @@
+package com.shaylee.threadpool;
+
+import com.shaylee.threadpool.metrics.TaskMetrics;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时线程池类
+ * 功能说明： 基于ShayleeScheduledThreadPoolExecutor, 与ThreadPool共同继承AbstractThreadPool, 提供相同的命名、监控、暂停/恢复接口,
+ * 线程数固定为内核线程数(可在运行期间调整), 没有准入等待, 排队任务数超过上限时立即拒绝
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ScheduledThreadPool extends AbstractThreadPool {
+    /**
+     * 定时线程池执行器
+     */
+    private final ShayleeScheduledThreadPoolExecutor scheduledExecutor;
+
+    /**
+     * 构造定时线程池
+     *
+     * @param poolName      线程池名
+     * @param corePoolSize  线程数
+     * @param queueCapacity 排队任务数上限
+     */
+    public ScheduledThreadPool(String poolName, int corePoolSize, int queueCapacity) {
+        this.scheduledExecutor = new ShayleeScheduledThreadPoolExecutor(poolName, corePoolSize, queueCapacity);
+    }
+
+    /**
+     * 定时线程池执行器 getter
+     *
+     * @return 定时线程池执行器
+     */
+    public ShayleeScheduledThreadPoolExecutor getScheduledExecutor() {
+        return scheduledExecutor;
+    }
+
+    @Override
+    public String getPoolName() {
+        return scheduledExecutor.getName();
+    }
+
+    @Override
+    public PoolType getType() {
+        return PoolType.SCHEDULED;
+    }
+
+    @Override
+    public ThreadMode getThreadMode() {
+        return ThreadMode.PLATFORM;
+    }
+
+    @Override
+    public int getCorePoolSize() {
+        return scheduledExecutor.getCorePoolSize();
+    }
+
+    /**
+     * 线程数 setter, 定时线程池的线程数固定为内核线程数
+     *
+     * @param corePoolSize 线程数
+     */
+    public void setCorePoolSize(int corePoolSize) {
+        scheduledExecutor.setCorePoolSize(corePoolSize);
+    }
+
+    /**
+     * 定时线程池的线程数固定为内核线程数
+     */
+    @Override
+    public int getMaximumPoolSize() {
+        return scheduledExecutor.getCorePoolSize();
+    }
+
+    /**
+     * 定时线程池没有准入等待
+     */
+    @Override
+    public long getTimeOut() {
+        return 0;
+    }
+
+    @Override
+    public boolean isCallerRuns() {
+        return false;
+    }
+
+    @Override
+    public void shutdown() {
+        setStuckTaskDetector(null);
+        scheduledExecutor.shutdown();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return scheduledExecutor.isShutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        setStuckTaskDetector(null);
+        return scheduledExecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return scheduledExecutor.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return scheduledExecutor.isTerminated();
+    }
+
+    @Override
+    public long getRejectedTimes() {
+        return scheduledExecutor.getHandler().getRejectedTimes();
+    }
+
+    @Override
+    public String getRejectedErrMsg() {
+        return scheduledExecutor.getHandler().getRejectedErrMsg();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return scheduledExecutor.getQueue().size();
+    }
+
+    @Override
+    public int getWaitingCallers() {
+        return 0;
+    }
+
+    @Override
+    public int getThreadNumber() {
+        return scheduledExecutor.getShayleeThreadFactory().getThreadCount();
+    }
+
+    @Override
+    public int getActiveThread() {
+        return scheduledExecutor.getActiveCount();
+    }
+
+    @Override
+    public TaskMetrics getMetrics() {
+        return scheduledExecutor.getMetrics();
+    }
+
+    @Override
+    public long getCompletedTasks() {
+        return scheduledExecutor.getCompletedTaskCount();
+    }
+
+    @Override
+    public List<ThreadStack> getAllThreadStacks() {
+        return scheduledExecutor.getShayleeThreadFactory().getAllThreadStacks();
+    }
+
+    @Override
+    public boolean isPaused() {
+        return scheduledExecutor.isPaused();
+    }
+
+    @Override
+    public void pause() {
+        scheduledExecutor.pause();
+    }
+
+    @Override
+    public void resume() {
+        scheduledExecutor.resume();
+    }
+
+    @Override
+    public Future<?> submit(Runnable r) {
+        return scheduledExecutor.submit(r);
+    }
+
+    @Override
+    public Future<?> submit(Callable<?> c) {
+        return scheduledExecutor.submit(c);
+    }
+
+    @Override
+    public void execute(Runnable r) {
+        scheduledExecutor.execute(r);
+    }
+
+    @Override
+    public boolean isPropagateContext() {
+        return scheduledExecutor.isPropagateContext();
+    }
+
+    @Override
+    public void setPropagateContext(boolean propagateContext) {
+        scheduledExecutor.setPropagateContext(propagateContext);
+    }
+
+    @Override
+    RunningTasks runningTasks() {
+        return scheduledExecutor.runningTasks;
+    }
+
+    @Override
+    ShayleeThreadFactory threadFactory() {
+        return scheduledExecutor.getShayleeThreadFactory();
+    }
+
+    /**
+     * 延时执行任务
+     *
+     * @param r     任务
+     * @param delay 延时
+     * @param unit  延时单位
+     * @return ScheduledFuture对象
+     */
+    public ScheduledFuture<?> schedule(Runnable r, long delay, TimeUnit unit) {
+        return scheduledExecutor.schedule(r, delay, unit);
+    }
+
+    /**
+     * 延时执行有返回值的任务
+     *
+     * @param c     任务
+     * @param delay 延时
+     * @param unit  延时单位
+     * @param <V>   结果类型
+     * @return ScheduledFuture对象
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> c, long delay, TimeUnit unit) {
+        return scheduledExecutor.schedule(c, delay, unit);
+    }
+
+    /**
+     * 按固定频率执行任务
+     *
+     * @param r            任务
+     * @param initialDelay 首次执行延时
+     * @param period       执行周期
+     * @param unit         时间单位
+     * @return ScheduledFuture对象
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable r, long initialDelay, long period, TimeUnit unit) {
+        return scheduledExecutor.scheduleAtFixedRate(r, initialDelay, period, unit);
+    }
+
+    /**
+     * 按固定间隔(上次结束到下次开始)执行任务
+     *
+     * @param r            任务
+     * @param initialDelay 首次执行延时
+     * @param delay        执行间隔
+     * @param unit         时间单位
+     * @return ScheduledFuture对象
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable r, long initialDelay, long delay, TimeUnit unit) {
+        return scheduledExecutor.scheduleWithFixedDelay(r, initialDelay, delay, unit);
+    }
+}
@@ -0,0 +1,407 @@
+package com.shaylee.threadpool;
+
+import com.shaylee.threadpool.context.ThreadPoolContexts;
+import com.shaylee.threadpool.metrics.TaskMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 工作窃取线程池 在JDK ForkJoinPool基础上 添加准入控制、可暂停、恢复及任务指标
+ * 功能说明： 外部提交的任务与ShayleeThreadPoolExecutor一样经过暂停检查及准入信号量,
+ * 并记录排队、执行时长; 任务内部fork出的子任务走工作窃取, 不再经过准入控制
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ShayleeForkJoinPool extends ForkJoinPool {
+    private static Logger logger = LoggerFactory.getLogger(ShayleeForkJoinPool.class);
+
+    /**
+     * 是否已经暂停(未暂停时只需一次volatile读, 不再加锁)
+     */
+    private volatile boolean paused = false;
+    /**
+     * 暂停锁, 仅在暂停/恢复以及暂停期间工作线程挂起时使用
+     */
+    private final ReentrantLock pauseLock = new ReentrantLock();
+    /**
+     * 没有暂停的条件锁
+     */
+    private final Condition unpaused = pauseLock.newCondition();
+    /**
+     * 线程工厂类
+     */
+    private final ShayleeThreadFactory threadFactory;
+    /**
+     * 拒绝请求处理器(仅用于拒绝计数及错误信息)
+     */
+    private final ShayleeRejectedExecutionHandler handler;
+    /**
+     * 并发控制信号量(准入许可数 = 并行度 + 排队任务数)
+     */
+    private final ResizableSemaphore semaphore;
+    /**
+     * 请求等待时长(秒)
+     */
+    private volatile long waitTime;
+    /**
+     * 线程池名
+     */
+    private final String name;
+    /**
+     * 任务指标
+     */
+    private final TaskMetrics metrics = new TaskMetrics();
+    /**
+     * 完成任务数
+     */
+    private final LongAdder completedTasks = new LongAdder();
+    /**
+     * 是否将提交线程的上下文(MDC、请求、安全等)传递到工作线程
+     */
+    private volatile boolean propagateContext;
+    /**
+     * 执行中任务登记表(开启卡死任务检测后登记)
+     */
+    final RunningTasks runningTasks = new RunningTasks();
+
+    /**
+     * 构造工作窃取线程池
+     *
+     * @param poolName      线程池名
+     * @param parallelism   并行度
+     * @param waitTime      请求等待时长（秒）
+     * @param queueCapacity 排队任务数上限
+     */
+    public ShayleeForkJoinPool(String poolName, int parallelism, long waitTime, int queueCapacity) {
+        this(poolName, parallelism, waitTime, queueCapacity,
+                new ShayleeThreadFactory(ShayleeThreadPoolExecutor.POOL_NAME_PREFIX, poolName));
+    }
+
+    private ShayleeForkJoinPool(String poolName, int parallelism, long waitTime, int queueCapacity,
+                                ShayleeThreadFactory threadFactory) {
+        super(parallelism, threadFactory, null, false);
+        this.name = poolName;
+        this.threadFactory = threadFactory;
+        this.waitTime = waitTime;
+        this.handler = new ShayleeRejectedExecutionHandler(false, ShayleeThreadPoolExecutor.DEFAULT_REJECTED_ERRMSG);
+        this.semaphore = new ResizableSemaphore(parallelism + Math.max(0, queueCapacity));
+    }
+
+    /**
+     * 是否已暂停了
+     *
+     * @return 是返回true，不是返回false
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * 暂停, 拒绝新的外部任务, 已排队的任务在开始执行前挂起
+     */
+    public void pause() {
+        pauseLock.lock();
+        try {
+            handler.setRejectedErrMsg(ShayleeThreadPoolExecutor.DEFAULT_PAUSED_ERRMSG);
+            paused = true;
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    /**
+     * 恢复继续执行
+     */
+    public void resume() {
+        pauseLock.lock();
+        try {
+            handler.setRejectedErrMsg(ShayleeThreadPoolExecutor.DEFAULT_REJECTED_ERRMSG);
+            paused = false;
+            unpaused.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    /**
+     * 关闭线程池, 唤醒暂停中挂起的工作线程以便排空已接收的任务
+     */
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        signalUnpaused();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = super.shutdownNow();
+        signalUnpaused();
+        return tasks;
+    }
+
+    private void signalUnpaused() {
+        pauseLock.lock();
+        try {
+            unpaused.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    /**
+     * 暂停期间挂起工作线程, 一直等到不是暂停为止
+     * 不使用managedBlock, 避免暂停期间线程池不断创建补偿线程
+     */
+    private void awaitUnpaused() {
+        boolean interrupted = false;
+        pauseLock.lock();
+        try {
+            // 关闭线程池时不再等待恢复, 以便排空任务
+            while (paused && !isShutdown()) {
+                try {
+                    unpaused.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            pauseLock.unlock();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 外部任务准入: 暂停检查及获取信号量许可
+     * 本池工作线程内提交的任务不再获取许可, 避免父任务占满许可后等待子任务造成死锁
+     *
+     * @return 是否占用了许可
+     */
+    private boolean admit() {
+        if (paused) {
+            throw new RejectedExecutionException(ShayleeThreadPoolExecutor.DEFAULT_PAUSED_ERRMSG);
+        }
+        Thread current = Thread.currentThread();
+        if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == this) {
+            return false;
+        }
+        boolean ok;
+        try {
+            ok = semaphore.tryAcquire();
+            long wait = waitTime;
+            if (!ok && wait > 0) {
+                long begin = System.nanoTime();
+                ok = semaphore.tryAcquire(wait, TimeUnit.SECONDS);
+                metrics.getAdmissionWait().record(System.nanoTime() - begin);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ok = false;
+        }
+        if (!ok) {
+            logger.error("ForkJoin pool is EXHAUSTED! Pool Name: {}, parallelism: {}, active: {}, queued: {}",
+                    name, getParallelism(), getActiveThreadCount(), getQueuedTaskSize());
+            handler.rejectedExecution(handler.getRejectedErrMsg() + " The Number of waiting requests is "
+                    + semaphore.getQueueLength());
+        }
+        return true;
+    }
+
+    /**
+     * 提交包装后的任务, 提交失败时归还许可
+     */
+    private void push(ForkJoinTask<?> task, boolean logFailure) {
+        boolean permit = admit();
+        try {
+            super.execute(new MeteredTask(task, permit, logFailure));
+        } catch (RuntimeException e) {
+            if (permit) {
+                semaphore.release();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void execute(ForkJoinTask<?> task) {
+        push(task, true);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        push(task instanceof ForkJoinTask ? (ForkJoinTask<?>) task : ForkJoinTask.adapt(task), true);
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+        push(task, false);
+        return task;
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Callable<T> task) {
+        return submit(ForkJoinTask.adapt(task));
+    }
+
+    @Override
+    public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+        return submit(ForkJoinTask.adapt(task, result));
+    }
+
+    @Override
+    public ForkJoinTask<?> submit(Runnable task) {
+        return submit(ForkJoinTask.adapt(task));
+    }
+
+    @Override
+    public <T> T invoke(ForkJoinTask<T> task) {
+        return submit(task).join();
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(submit(task));
+            }
+            for (Future<T> future : futures) {
+                ((ForkJoinTask<?>) future).quietlyJoin();
+            }
+            return futures;
+        } catch (RuntimeException e) {
+            for (Future<T> future : futures) {
+                future.cancel(false);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public ShayleeThreadFactory getFactory() {
+        return threadFactory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWaitTime() {
+        return waitTime;
+    }
+
+    public void setWaitTime(long waitTime) {
+        this.waitTime = waitTime;
+    }
+
+    public ShayleeRejectedExecutionHandler getHandler() {
+        return handler;
+    }
+
+    public TaskMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isPropagateContext() {
+        return propagateContext;
+    }
+
+    public void setPropagateContext(boolean propagateContext) {
+        this.propagateContext = propagateContext;
+    }
+
+    /**
+     * 排队中的任务数(外部提交队列 + 工作线程队列)
+     *
+     * @return 排队任务数
+     */
+    public int getQueuedTaskSize() {
+        long queued = getQueuedSubmissionCount() + getQueuedTaskCount();
+        return (int) Math.min(Integer.MAX_VALUE, queued);
+    }
+
+    /**
+     * 阻塞在准入信号量上的调用者数
+     *
+     * @return 等待准入的调用者数
+     */
+    public int getWaitingCallerCount() {
+        return semaphore.getQueueLength();
+    }
+
+    /**
+     * 完成的外部任务数
+     *
+     * @return 完成任务数
+     */
+    public long getCompletedTaskCount() {
+        return completedTasks.sum();
+    }
+
+    /**
+     * 外部任务包装类: 执行前等待恢复, 记录排队及执行时长, 结束后归还许可
+     * 原始任务在包装任务内invoke, 调用者对原始任务join/get即可拿到结果或异常
+     */
+    private final class MeteredTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ForkJoinTask<?> target;
+        private final boolean permit;
+        private final boolean logFailure;
+        private final long submitNanos = System.nanoTime();
+        private final Object[] contexts;
+
+        MeteredTask(ForkJoinTask<?> target, boolean permit, boolean logFailure) {
+            this.target = target;
+            this.permit = permit;
+            this.logFailure = logFailure;
+            this.contexts = propagateContext ? ThreadPoolContexts.capture() : null;
+        }
+
+        @Override
+        protected void compute() {
+            if (paused) {
+                awaitUnpaused();
+            }
+            long start = System.nanoTime();
+            metrics.getQueueWait().record(start - submitNanos);
+            Thread thread = Thread.currentThread();
+            RunningTasks.Entry outer = runningTasks.begin(thread, start);
+            try {
+                ThreadPoolContexts.restore(contexts);
+                target.invoke();
+            } catch (Throwable e) {
+                metrics.recordFailure();
+                if (logFailure) {
+                    logger.error("The task run failed in pool " + name, e);
+                }
+            } finally {
+                runningTasks.end(thread, outer);
+                ThreadPoolContexts.reset(contexts);
+                metrics.getExecution().record(System.nanoTime() - start);
+                completedTasks.increment();
+                if (permit) {
+                    semaphore.release();
+                }
+            }
+        }
+    }
+}
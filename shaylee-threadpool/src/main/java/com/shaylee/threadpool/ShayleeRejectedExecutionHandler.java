@@ -3,12 +3,17 @@ package com.shaylee.threadpool;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 线程池堵塞,拒绝请求的异常处理
@@ -24,15 +29,19 @@ public class ShayleeRejectedExecutionHandler extends CallerRunsPolicy implements
     /**
      * 当线程池繁忙时是否由调用者自己执行
      */
-    private boolean isCallerRuns;
+    private volatile boolean isCallerRuns;
     /**
      * 拒绝请求次数
      */
     private AtomicLong rejectedTimes = new AtomicLong(0);
+    /**
+     * 公平分配模式下各键的拒绝请求次数
+     */
+    private final ConcurrentMap<String, LongAdder> keyRejectedTimes = new ConcurrentHashMap<>();
     /**
      * 拒绝请求反馈的错误信息
      */
-    private String rejectedErrMsg;
+    private volatile String rejectedErrMsg;
 
     /**
      * 构造
@@ -72,25 +81,80 @@ public class ShayleeRejectedExecutionHandler extends CallerRunsPolicy implements
             }
             if (mye.isPaused()) {
                 callRuns = false;
+            } else if (r instanceof ShayleeTask && ((ShayleeTask) r).command instanceof BoundedInvoker) {
+                // 批量任务的执行通道由调用者执行会阻塞调用者直到整批任务完成, 只按通道未被接纳处理
+                callRuns = false;
+                if (mye.retryOffer((ShayleeTask) r)) {
+                    return;
+                }
+            } else if (r instanceof ShayleeTask && mye.retryOffer((ShayleeTask) r)) {
+                // 已获得准入许可的任务被拒绝只是因为工作线程尚未回到队列取任务, 重新投递成功即不算拒绝
+                return;
             }
         }
 
         if (callRuns) {
             // CallerRunsPolicy
-            super.rejectedExecution(r, e);
+            try {
+                super.rejectedExecution(r, e);
+            } finally {
+                if (r instanceof ShayleeTask) {
+                    ((ShayleeTask) r).release();
+                }
+            }
             return;
         }
 
-        if (semaphore != null) {
+        String key = null;
+        if (r instanceof ShayleeTask) {
+            ShayleeTask task = (ShayleeTask) r;
+            key = task.partition == null ? null : task.partition.key;
+            task.release();
+        } else if (semaphore != null) {
             semaphore.release();
         }
 
-        rejectedExecution(msg);
+        rejectedExecution(key, msg);
     }
 
     void rejectedExecution(String msg) {
+        rejectedExecution(null, msg);
+    }
+
+    /**
+     * 拒绝请求, 公平分配模式下同时增加键的拒绝次数
+     *
+     * @param key 公平分配的键, 未开启时为null
+     * @param msg 错误信息
+     */
+    void rejectedExecution(String key, String msg) {
         // 增加拒绝请求次数
         rejectedTimes.incrementAndGet();
+        if (key != null) {
+            keyRejectedTimes.computeIfAbsent(key, k -> new LongAdder()).increment();
+        }
         throw new RejectedExecutionException(msg);
     }
+
+    /**
+     * 获取公平分配模式下某个键的拒绝请求次数
+     *
+     * @param key 键
+     * @return 拒绝请求次数
+     */
+    public long getRejectedTimes(String key) {
+        LongAdder times = keyRejectedTimes.get(key);
+        return times == null ? 0 : times.sum();
+    }
+
+    /**
+     * 获取公平分配模式下各键的拒绝请求次数
+     *
+     * @return 键 -> 拒绝请求次数
+     */
+    public Map<String, Long> getKeyRejectedTimes() {
+        Map<String, Long> times = new LinkedHashMap<>(keyRejectedTimes.size());
+        keyRejectedTimes.forEach((k, v) -> times.put(k, v.sum()));
+        return times;
+    }
 }
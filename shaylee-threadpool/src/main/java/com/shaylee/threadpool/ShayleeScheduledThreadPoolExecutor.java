@@ -0,0 +1,372 @@
+package com.shaylee.threadpool;
+
+import com.shaylee.threadpool.context.ThreadPoolContexts;
+import com.shaylee.threadpool.metrics.TaskMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 定时线程池执行类 在JDK ScheduledThreadPoolExecutor基础上 添加可暂停、恢复、排队上限及任务指标
+ * 功能说明： 暂停期间拒绝新的定时任务, 到期的任务在开始执行前挂起; 排队等待记录的是实际开始时间相对计划时间的延迟;
+ * 周期任务抛出异常后JDK会静默地停止调度, 这里记录失败并打印错误日志
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ShayleeScheduledThreadPoolExecutor extends ScheduledThreadPoolExecutor {
+    private static Logger logger = LoggerFactory.getLogger(ShayleeScheduledThreadPoolExecutor.class);
+
+    /**
+     * 是否已经暂停(未暂停时只需一次volatile读, 不再加锁)
+     */
+    private volatile boolean paused = false;
+    /**
+     * 暂停锁, 仅在暂停/恢复以及暂停期间工作线程挂起时使用
+     */
+    private final ReentrantLock pauseLock = new ReentrantLock();
+    /**
+     * 没有暂停的条件锁
+     */
+    private final Condition unpaused = pauseLock.newCondition();
+    /**
+     * 线程工厂类
+     */
+    private final ShayleeThreadFactory threadFactory;
+    /**
+     * 拒绝请求处理器
+     */
+    private final ShayleeRejectedExecutionHandler handler;
+    /**
+     * 线程池名
+     */
+    private final String name;
+    /**
+     * 排队(未到期及等待执行)任务数上限
+     */
+    private final int queueCapacity;
+    /**
+     * 任务指标
+     */
+    private final TaskMetrics metrics = new TaskMetrics();
+    /**
+     * 是否将提交线程的上下文(MDC、请求、安全等)传递到工作线程
+     */
+    private volatile boolean propagateContext;
+    /**
+     * 执行中任务登记表(开启卡死任务检测后登记)
+     */
+    final RunningTasks runningTasks = new RunningTasks();
+
+    /**
+     * 构造定时线程池
+     *
+     * @param poolName      线程池名
+     * @param corePoolSize  线程数
+     * @param queueCapacity 排队任务数上限
+     */
+    public ShayleeScheduledThreadPoolExecutor(String poolName, int corePoolSize, int queueCapacity) {
+        this(poolName, corePoolSize, queueCapacity,
+                new ShayleeThreadFactory(ShayleeThreadPoolExecutor.POOL_NAME_PREFIX, poolName),
+                new ShayleeRejectedExecutionHandler(false, ShayleeThreadPoolExecutor.DEFAULT_REJECTED_ERRMSG));
+    }
+
+    private ShayleeScheduledThreadPoolExecutor(String poolName, int corePoolSize, int queueCapacity,
+                                               ShayleeThreadFactory threadFactory,
+                                               ShayleeRejectedExecutionHandler handler) {
+        super(Math.max(1, corePoolSize), threadFactory, handler);
+        this.name = poolName;
+        this.threadFactory = threadFactory;
+        this.handler = handler;
+        this.queueCapacity = queueCapacity;
+        // 取消的任务立即移出队列, 避免长周期任务取消后仍占用排队名额
+        setRemoveOnCancelPolicy(true);
+        // 关闭时不再执行未到期的延时任务, 只排空正在执行的任务
+        setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * 是否已暂停了
+     *
+     * @return 是返回true，不是返回false
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * 暂停, 拒绝新的定时任务, 到期的任务在开始执行前挂起
+     */
+    public void pause() {
+        pauseLock.lock();
+        try {
+            handler.setRejectedErrMsg(ShayleeThreadPoolExecutor.DEFAULT_PAUSED_ERRMSG);
+            paused = true;
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    /**
+     * 恢复继续执行, 暂停期间错过的周期任务按JDK的规则补执行或顺延
+     */
+    public void resume() {
+        pauseLock.lock();
+        try {
+            handler.setRejectedErrMsg(ShayleeThreadPoolExecutor.DEFAULT_REJECTED_ERRMSG);
+            paused = false;
+            unpaused.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    /**
+     * 关闭线程池, 唤醒暂停中挂起的工作线程以便排空已接收的任务
+     */
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        signalUnpaused();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = super.shutdownNow();
+        signalUnpaused();
+        return tasks;
+    }
+
+    private void signalUnpaused() {
+        pauseLock.lock();
+        try {
+            unpaused.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    /**
+     * 暂停期间挂起工作线程, 一直等到不是暂停为止
+     */
+    private void awaitUnpaused() {
+        boolean interrupted = false;
+        pauseLock.lock();
+        try {
+            // 关闭线程池时不再等待恢复, 以便排空任务
+            while (paused && !isShutdown()) {
+                try {
+                    unpaused.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            pauseLock.unlock();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 定时任务准入: 暂停检查及排队上限
+     * 本池工作线程内提交的任务(如Spring按cron重新调度下一次执行)不做准入, 避免暂停或排队满时调度链中断
+     */
+    private void admit() {
+        if (threadFactory.isPoolThread(Thread.currentThread())) {
+            return;
+        }
+        if (paused) {
+            handler.rejectedExecution(ShayleeThreadPoolExecutor.DEFAULT_PAUSED_ERRMSG);
+        }
+        if (queueCapacity > 0 && getQueue().size() >= queueCapacity) {
+            logger.error("Scheduled pool is EXHAUSTED! Pool Name: {}, threads: {}, active: {}, queued: {}",
+                    name, getPoolSize(), getActiveCount(), getQueue().size());
+            handler.rejectedExecution(handler.getRejectedErrMsg() + " The Number of scheduled tasks is "
+                    + getQueue().size());
+        }
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        admit();
+        return super.schedule(command, delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        admit();
+        return super.schedule(callable, delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        admit();
+        return super.scheduleAtFixedRate(command, initialDelay, period, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        admit();
+        return super.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+    }
+
+    @Override
+    protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+        return new MeteredTask<>(task, runnable);
+    }
+
+    @Override
+    protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> callable, RunnableScheduledFuture<V> task) {
+        return new MeteredTask<>(task, callable);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public ShayleeThreadFactory getShayleeThreadFactory() {
+        return threadFactory;
+    }
+
+    public ShayleeRejectedExecutionHandler getHandler() {
+        return handler;
+    }
+
+    public TaskMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isPropagateContext() {
+        return propagateContext;
+    }
+
+    public void setPropagateContext(boolean propagateContext) {
+        this.propagateContext = propagateContext;
+    }
+
+    /**
+     * 定时任务包装类: 执行前等待恢复, 记录调度延迟及执行时长, 传递上下文, 记录失败
+     * 周期任务每次执行都经过这里, 取消、到期时间等委托给JDK的任务
+     */
+    private final class MeteredTask<V> implements RunnableScheduledFuture<V> {
+        private final RunnableScheduledFuture<V> target;
+        /**
+         * 原始任务, 用于日志
+         */
+        private final Object command;
+        private final Object[] contexts;
+
+        MeteredTask(RunnableScheduledFuture<V> target, Object command) {
+            this.target = target;
+            this.command = command;
+            this.contexts = propagateContext ? ThreadPoolContexts.capture() : null;
+        }
+
+        @Override
+        public void run() {
+            if (paused) {
+                awaitUnpaused();
+            }
+            long start = System.nanoTime();
+            // 实际开始时间相对计划时间的延迟
+            metrics.getQueueWait().record(Math.max(0, -target.getDelay(TimeUnit.NANOSECONDS)));
+            Thread thread = Thread.currentThread();
+            RunningTasks.Entry outer = runningTasks.begin(thread, start);
+            try {
+                ThreadPoolContexts.restore(contexts);
+                target.run();
+            } finally {
+                runningTasks.end(thread, outer);
+                ThreadPoolContexts.reset(contexts);
+                metrics.getExecution().record(System.nanoTime() - start);
+                checkFailure();
+            }
+        }
+
+        /**
+         * 任务异常被Future吞掉, 周期任务异常后不再调度, 非阻塞地取出结果判断是否失败
+         */
+        private void checkFailure() {
+            if (!target.isDone() || target.isCancelled()) {
+                return;
+            }
+            try {
+                target.get(0, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                metrics.recordFailure();
+                if (target.isPeriodic()) {
+                    logger.error("The periodic task " + command + " failed in pool " + name
+                            + " and will no longer be scheduled", e.getCause());
+                }
+            } catch (CancellationException | TimeoutException e) {
+                // 已取消或尚未完成
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return target.isPeriodic();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return target.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return target.compareTo(o instanceof MeteredTask ? ((MeteredTask<?>) o).target : o);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            // 由包装任务自身从队列移除
+            boolean cancelled = target.cancel(mayInterruptIfRunning);
+            if (cancelled && getRemoveOnCancelPolicy()) {
+                remove(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return target.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return target.isDone();
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            return target.get();
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return target.get(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.shaylee.threadpool;
+
+import com.shaylee.threadpool.context.ThreadPoolContexts;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 线程池内部任务包装类
+ * 功能说明： 持有准入信号量许可, 任务结束后由执行器释放; 执行时恢复提交线程的上下文, 结束后还原; 在优先级队列中按提交顺序(FIFO)排序,
+ * 带优先级的任务先按优先级及截止时间排序, 若原始任务实现了Comparable则再按原始任务排序
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+class ShayleeTask implements Runnable, Comparable<ShayleeTask> {
+    /**
+     * 提交序列号, 用于同优先级时保持FIFO
+     */
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    /**
+     * 普通任务按默认优先级、没有截止时间参与排序
+     */
+    private static final PriorityTask NORMAL = new PriorityTask(null, PriorityTask.DEFAULT_PRIORITY, 0, null);
+
+    /**
+     * 原始任务
+     */
+    final Runnable command;
+    /**
+     * 准入信号量
+     */
+    private final Semaphore semaphore;
+    /**
+     * 公平分配模式下任务所属的分区, 未开启时为null
+     */
+    final FairShare.Partition partition;
+    /**
+     * 提交时捕获的线程上下文, 未开启上下文传递时为null
+     */
+    private final Object[] contexts;
+    /**
+     * 提交序列号
+     */
+    private final long sequence;
+    /**
+     * 提交时间(纳秒)
+     */
+    final long submitNanos;
+    /**
+     * 开始执行时间(纳秒), 由工作线程在执行前写入
+     */
+    long startNanos;
+    /**
+     * 同一线程上被嵌套执行的外层任务登记(调用者自己执行时可能出现)
+     */
+    RunningTasks.Entry outerRunning;
+
+    ShayleeTask(Runnable command, Semaphore semaphore) {
+        this(command, semaphore, null);
+    }
+
+    ShayleeTask(Runnable command, Semaphore semaphore, FairShare.Partition partition) {
+        this(command, semaphore, partition, null);
+    }
+
+    ShayleeTask(Runnable command, Semaphore semaphore, FairShare.Partition partition, Object[] contexts) {
+        this.command = command;
+        this.semaphore = semaphore;
+        this.partition = partition;
+        this.contexts = contexts;
+        this.sequence = SEQUENCE.getAndIncrement();
+        this.submitNanos = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+        try {
+            ThreadPoolContexts.restore(contexts);
+            command.run();
+        } finally {
+            ThreadPoolContexts.reset(contexts);
+        }
+    }
+
+    /**
+     * 释放准入许可
+     * 由工作线程在afterExecute最后释放, 使许可释放时工作线程已接近空闲, 减少同步移交时的误拒绝;
+     * 调用者自己执行时由拒绝处理器释放
+     */
+    void release() {
+        if (partition != null) {
+            partition.exit();
+        }
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * 去掉优先级包装后的原始任务
+     *
+     * @return 原始任务
+     */
+    Runnable unwrap() {
+        return command instanceof PriorityTask ? ((PriorityTask) command).command : command;
+    }
+
+    /**
+     * 是否因过了截止时间被丢弃
+     *
+     * @return 被丢弃返回true
+     */
+    boolean isExpired() {
+        return command instanceof PriorityTask && ((PriorityTask) command).expired;
+    }
+
+    private static PriorityTask asPriorityTask(Runnable command) {
+        return command instanceof PriorityTask ? (PriorityTask) command : NORMAL;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int compareTo(ShayleeTask o) {
+        if (command instanceof PriorityTask || o.command instanceof PriorityTask) {
+            int c = asPriorityTask(command).compareTo(asPriorityTask(o.command));
+            if (c != 0) {
+                return c;
+            }
+        }
+        Runnable self = unwrap();
+        Runnable other = o.unwrap();
+        if (self instanceof Comparable && other instanceof Comparable && self.getClass() == other.getClass()) {
+            int c = ((Comparable) self).compareTo(other);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Long.compare(sequence, o.sequence);
+    }
+}
@@ -3,10 +3,15 @@ package com.shaylee.threadpool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -16,21 +21,28 @@ import java.util.concurrent.atomic.AtomicInteger;
  * 用来替换默认的工厂，即传入ShayleeThreadFactory构造方法用作线程构建工厂对象
  * 功能说明： 在JDK ThreadFactory基础上
  * 添加线程运行前、运行后事件及错误日志， 以及获取线程堆栈的方法
+ * 每个工厂(即每个线程池)维护自己的线程容器, 获取堆栈只读取容器快照, 不阻塞线程创建
+ * 同时作为ForkJoinPool的工作线程工厂, 使工作窃取线程池拥有相同的命名、前后置工作及堆栈采样
  * Project: shaylee-framework
  *
  * @author Adrian
  * @date 2020-03-13
  */
-public class ShayleeThreadFactory implements ThreadFactory {
+public class ShayleeThreadFactory implements ThreadFactory, ForkJoinPool.ForkJoinWorkerThreadFactory {
     private static Logger logger = LoggerFactory.getLogger(ShayleeThreadFactory.class);
     /**
-     * 线程容器
+     * 默认堆栈采样深度
      */
-    private static final Map<String, Thread> THREADS = new ConcurrentHashMap<>();
+    public static final int DEFAULT_STACK_DEPTH = 64;
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    /**
+     * 本线程池的线程容器
+     */
+    private final Map<String, Thread> threads = new ConcurrentHashMap<>();
     /**
      * 线程号序列
      */
-    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger(1);
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
     /**
      * 线程组
      */
@@ -40,9 +52,9 @@ public class ShayleeThreadFactory implements ThreadFactory {
      */
     private final String namePrefix;
     /**
-     * 是否需要监控
+     * 工作线程模式
      */
-    private boolean monitor = false;
+    private final ThreadMode threadMode;
 
     /**
      * 构造
@@ -51,6 +63,18 @@ public class ShayleeThreadFactory implements ThreadFactory {
      * @param poolName       线程池名称
      */
     public ShayleeThreadFactory(String poolNamePrefix, String poolName) {
+        this(poolNamePrefix, poolName, ThreadMode.PLATFORM);
+    }
+
+    /**
+     * 构造
+     *
+     * @param poolNamePrefix 线程池前缀
+     * @param poolName       线程池名称
+     * @param threadMode     工作线程模式, 运行时不支持虚拟线程时退化为平台线程
+     */
+    public ShayleeThreadFactory(String poolNamePrefix, String poolName, ThreadMode threadMode) {
+        this.threadMode = ThreadMode.effective(threadMode);
         SecurityManager s = System.getSecurityManager();
         if (s != null) {
             group = s.getThreadGroup();
@@ -67,10 +91,14 @@ public class ShayleeThreadFactory implements ThreadFactory {
      */
     @Override
     public Thread newThread(Runnable r) {
-        final String name = namePrefix + THREAD_NUMBER.getAndIncrement();
+        final String name = namePrefix + threadNumber.getAndIncrement();
         initFirstDo(name);
         Thread t = null;
         try {
+            if (threadMode == ThreadMode.VIRTUAL) {
+                t = newVirtualThread(name, r);
+                return t;
+            }
             t = new Thread(group, r, name, 0) {
                 @Override
                 public void run() {
@@ -104,6 +132,86 @@ public class ShayleeThreadFactory implements ThreadFactory {
         }
     }
 
+    /**
+     * 创建ForkJoinPool工作线程
+     *
+     * @see ForkJoinPool.ForkJoinWorkerThreadFactory#newThread(ForkJoinPool)
+     */
+    @Override
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        final String name = namePrefix + threadNumber.getAndIncrement();
+        initFirstDo(name);
+        ForkJoinWorkerThread t = null;
+        try {
+            t = new ForkJoinWorkerThread(pool) {
+                @Override
+                protected void onStart() {
+                    super.onStart();
+                    try {
+                        runFirstDo(name, this);
+                    } catch (Throwable e) {
+                        logger.error("Initialization thread pre-work failed...", e);
+                    }
+                }
+
+                @Override
+                protected void onTermination(Throwable exception) {
+                    try {
+                        if (exception != null) {
+                            logger.error("The thread run failed...", exception);
+                        }
+                        runFinallyDo(name, this);
+                    } finally {
+                        super.onTermination(exception);
+                    }
+                }
+            };
+            t.setName(name);
+            t.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+            return t;
+        } finally {
+            initFinally(name, t);
+        }
+    }
+
+    /**
+     * 创建虚拟线程, 虚拟线程不能继承, 前置/后置工作包装在任务中执行
+     *
+     * @param name 线程名
+     * @param r    线程任务
+     * @return 虚拟线程
+     */
+    private Thread newVirtualThread(final String name, final Runnable r) {
+        Thread t = ThreadMode.newVirtualThread(() -> {
+            Thread self = Thread.currentThread();
+            try {
+                runFirstDo(name, self);
+            } catch (Throwable e) {
+                logger.error("Initialization thread pre-work failed...", e);
+            }
+
+            try {
+                r.run();
+            } catch (Throwable e) {
+                logger.error("The thread run failed...", e);
+            } finally {
+                runFinallyDo(name, self);
+            }
+        });
+        t.setName(name);
+        t.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        return t;
+    }
+
+    /**
+     * 工作线程模式 getter
+     *
+     * @return 实际生效的工作线程模式
+     */
+    public ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
     /**
      * 初始化线程前置工作
      * @param threadName 线程名
@@ -129,16 +237,26 @@ public class ShayleeThreadFactory implements ThreadFactory {
      * @param thread     线程
      */
     protected void runFinallyDo(String threadName, Thread thread) {
-        THREADS.remove(threadName);
+        threads.remove(threadName);
     }
 
     /**
-     * 获取当前线程数
+     * 获取本线程池当前线程数
      *
      * @return 当前线程数
      */
     public int getThreadCount() {
-        return THREADS.size();
+        return threads.size();
+    }
+
+    /**
+     * 是否为本线程池创建的线程
+     *
+     * @param thread 线程
+     * @return 是返回true
+     */
+    public boolean isPoolThread(Thread thread) {
+        return threads.get(thread.getName()) == thread;
     }
 
     /**
@@ -148,16 +266,9 @@ public class ShayleeThreadFactory implements ThreadFactory {
      * @param thread     线程
      */
     protected void initFinally(String threadName, Thread thread) {
-        if (monitor) {
-            synchronized (THREADS) {
-                try {
-                    THREADS.wait();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
+        if (thread != null) {
+            threads.put(threadName, thread);
         }
-        THREADS.put(threadName, thread);
     }
 
     /**
@@ -166,33 +277,75 @@ public class ShayleeThreadFactory implements ThreadFactory {
      * @return 所有线程的堆栈信息
      */
     public List<ThreadStack> getAllThreadStacks() {
-        try {
-            monitor = true;
-            Object[] os;
-            synchronized (THREADS) {
-                os = THREADS.values().toArray();
-                THREADS.notify();
-            }
+        return getAllThreadStacks(DEFAULT_STACK_DEPTH);
+    }
 
-            List<ThreadStack> list = new ArrayList<>();
-
-            for (Object o : os) {
-                ThreadStack stack = new ThreadStack();
-                Thread thread = (Thread) o;
-                stack.setName(thread.getName());
-                stack.setId(thread.getId());
-                StackTraceElement[] stackTrace = thread.getStackTrace();
-                StringBuilder sb = new StringBuilder();
-                for (StackTraceElement stackTraceElement : stackTrace) {
-                    sb.append(stackTraceElement).append("\n");
-                }
-                stack.setStack(sb.toString());
-                list.add(stack);
+    /**
+     * 获取所有线程的堆栈信息
+     * 平台线程通过ThreadMXBean批量采样, 虚拟线程不受ThreadMXBean支持, 逐个获取并截断
+     *
+     * @param maxDepth 最大堆栈深度
+     * @return 所有线程的堆栈信息
+     */
+    public List<ThreadStack> getAllThreadStacks(int maxDepth) {
+        List<Thread> snapshot = new ArrayList<>(threads.values());
+        List<ThreadStack> list = new ArrayList<>(snapshot.size());
+        if (snapshot.isEmpty()) {
+            return list;
+        }
+        if (threadMode == ThreadMode.VIRTUAL) {
+            for (Thread thread : snapshot) {
+                list.add(getThreadStack(thread, maxDepth));
             }
             return list;
-        } finally {
-            monitor = false;
         }
+
+        long[] ids = new long[snapshot.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = snapshot.get(i).getId();
+        }
+        ThreadInfo[] infos = THREAD_MX_BEAN.getThreadInfo(ids, maxDepth);
+        for (int i = 0; i < infos.length; i++) {
+            // 已退出或尚未启动的线程没有ThreadInfo
+            if (infos[i] != null) {
+                list.add(toThreadStack(snapshot.get(i), infos[i].getThreadState(), infos[i].getStackTrace()));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 获取指定线程的堆栈信息
+     *
+     * @param thread   线程
+     * @param maxDepth 最大堆栈深度
+     * @return 堆栈信息, 线程已退出时返回null
+     */
+    public ThreadStack getThreadStack(Thread thread, int maxDepth) {
+        if (threadMode == ThreadMode.VIRTUAL) {
+            StackTraceElement[] stackTrace = thread.getStackTrace();
+            if (stackTrace.length > maxDepth) {
+                StackTraceElement[] truncated = new StackTraceElement[maxDepth];
+                System.arraycopy(stackTrace, 0, truncated, 0, maxDepth);
+                stackTrace = truncated;
+            }
+            return toThreadStack(thread, thread.getState(), stackTrace);
+        }
+        ThreadInfo info = THREAD_MX_BEAN.getThreadInfo(thread.getId(), maxDepth);
+        return info == null ? null : toThreadStack(thread, info.getThreadState(), info.getStackTrace());
+    }
+
+    private static ThreadStack toThreadStack(Thread thread, Thread.State state, StackTraceElement[] stackTrace) {
+        ThreadStack stack = new ThreadStack();
+        stack.setName(thread.getName());
+        stack.setId(thread.getId());
+        stack.setState(state == null ? null : state.name());
+        StringBuilder sb = new StringBuilder();
+        for (StackTraceElement stackTraceElement : stackTrace) {
+            sb.append(stackTraceElement).append("\n");
+        }
+        stack.setStack(sb.toString());
+        return stack;
     }
 
 }
@@ -1,11 +1,16 @@
 package com.shaylee.threadpool;
 
+import com.shaylee.threadpool.context.ThreadPoolContexts;
+import com.shaylee.threadpool.metrics.TaskMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
@@ -13,6 +18,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 线程池执行类 在JDK ThreadPoolExecutor基础上 添加可暂停、恢复功能
+ * 虚拟线程模式下工作线程为虚拟线程, 最大线程数即并发上限, 准入、暂停及拒绝统计与平台线程一致
  * Project: shaylee-framework
  *
  * @author Adrian
@@ -23,19 +29,23 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
     public static final String DEFAULT_REJECTED_ERRMSG = "The system is busy, please try again later!";
     public static final String DEFAULT_PAUSED_ERRMSG = "Suspension of service, please try again later!";
     public static final String POOL_NAME_PREFIX = "thread-pool";
+    /**
+     * 被拒绝任务重新投递队列的最长等待时长(毫秒)
+     */
+    private static final long RETRY_OFFER_MILLIS = 500;
 
     /**
-     * 是否已经暂停
+     * 是否已经暂停(未暂停时只需一次volatile读, 不再加锁)
      */
-    private boolean paused = false;
+    private volatile boolean paused = false;
     /**
-     * 暂停锁
+     * 暂停锁, 仅在暂停/恢复以及暂停期间工作线程挂起时使用
      */
-    private ReentrantLock pauseLock = new ReentrantLock();
+    private final ReentrantLock pauseLock = new ReentrantLock();
     /**
      * 没有暂停的条件锁
      */
-    private Condition unpaused = pauseLock.newCondition();
+    private final Condition unpaused = pauseLock.newCondition();
     /**
      * 线程工程类
      */
@@ -47,15 +57,39 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
     /**
      * 请求等待时长
      */
-    private Long waitTime;
+    private volatile long waitTime;
     /**
      * 线程池名
      */
     private String name;
     /**
-     * 并发控制信号量
+     * 工作队列类型
+     */
+    private QueueType queueType;
+    /**
+     * 工作队列容量(同步移交队列为0)
+     */
+    private int queueCapacity;
+    /**
+     * 并发控制信号量(准入许可数 = 运行中任务数 + 排队任务数)
+     */
+    ResizableSemaphore semaphore;
+    /**
+     * 任务指标(准入等待、排队等待、执行时长及失败数)
+     */
+    private final TaskMetrics metrics = new TaskMetrics();
+    /**
+     * 公平分配策略, 未开启时为null
+     */
+    private volatile FairShare fairShare;
+    /**
+     * 是否将提交线程的上下文(MDC、请求、安全等)传递到工作线程
+     */
+    private volatile boolean propagateContext;
+    /**
+     * 执行中任务登记表(开启卡死任务检测后登记)
      */
-    Semaphore semaphore;
+    final RunningTasks runningTasks = new RunningTasks();
 
     public ShayleeThreadPoolExecutor(String poolName, int maximumPoolSize, long keepAliveTime,
                                      long waitTime, boolean isCallerRuns) {
@@ -64,8 +98,23 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
 
     public ShayleeThreadPoolExecutor(String poolName, int corePoolSize, int maximumPoolSize,
                                      long keepAliveTime, long waitTime, boolean isCallerRuns) {
+        this(poolName, corePoolSize, maximumPoolSize, keepAliveTime, waitTime, isCallerRuns,
+                QueueType.SYNCHRONOUS, 0);
+    }
+
+    public ShayleeThreadPoolExecutor(String poolName, int corePoolSize, int maximumPoolSize,
+                                     long keepAliveTime, long waitTime, boolean isCallerRuns,
+                                     QueueType queueType, int queueCapacity) {
+        this(poolName, corePoolSize, maximumPoolSize, keepAliveTime, waitTime, isCallerRuns,
+                queueType, queueCapacity, ThreadMode.PLATFORM);
+    }
+
+    public ShayleeThreadPoolExecutor(String poolName, int corePoolSize, int maximumPoolSize,
+                                     long keepAliveTime, long waitTime, boolean isCallerRuns,
+                                     QueueType queueType, int queueCapacity, ThreadMode threadMode) {
         this(corePoolSize, maximumPoolSize, keepAliveTime, waitTime,
-                new ShayleeThreadFactory(POOL_NAME_PREFIX, poolName), isCallerRuns);
+                new ShayleeThreadFactory(POOL_NAME_PREFIX, poolName, threadMode), isCallerRuns,
+                queueType, queueCapacity);
         this.name = poolName;
     }
 
@@ -78,11 +127,16 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
      * @param waitTime        请求等待时长
      * @param threadFactory   线程工厂类
      * @param isCallerRuns    拒绝请求处理类
+     * @param queueType       工作队列类型
+     * @param queueCapacity   工作队列容量
      */
     private ShayleeThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
-                                      long waitTime, ShayleeThreadFactory threadFactory, boolean isCallerRuns) {
+                                      long waitTime, ShayleeThreadFactory threadFactory, boolean isCallerRuns,
+                                      QueueType queueType, int queueCapacity) {
         this(corePoolSize, maximumPoolSize, keepAliveTime, waitTime, threadFactory,
-                new ShayleeRejectedExecutionHandler(isCallerRuns, DEFAULT_REJECTED_ERRMSG));
+                new ShayleeRejectedExecutionHandler(isCallerRuns, DEFAULT_REJECTED_ERRMSG),
+                queueType == null ? QueueType.SYNCHRONOUS : queueType,
+                queueCapacity > 0 ? queueCapacity : QueueType.DEFAULT_CAPACITY);
     }
 
     /**
@@ -94,14 +148,20 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
      * @param waitTime        请求等待时长
      * @param threadFactory   线程工厂类
      * @param handler         拒绝请求处理类
+     * @param queueType       工作队列类型
+     * @param queueCapacity   工作队列容量
      */
     private ShayleeThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
-                                      long waitTime, ShayleeThreadFactory threadFactory, ShayleeRejectedExecutionHandler handler) {
-        super(corePoolSize, maximumPoolSize, keepAliveTime, TimeUnit.SECONDS,
-                new SynchronousQueue<>(), threadFactory, handler);
+                                      long waitTime, ShayleeThreadFactory threadFactory, ShayleeRejectedExecutionHandler handler,
+                                      QueueType queueType, int queueCapacity) {
+        super(queueType == QueueType.PRIORITY ? maximumPoolSize : corePoolSize, maximumPoolSize, keepAliveTime,
+                TimeUnit.SECONDS, queueType.newQueue(queueCapacity), threadFactory, handler);
         this.handler = handler;
         this.waitTime = waitTime;
-        this.semaphore = new Semaphore(maximumPoolSize - 1);
+        this.queueType = queueType;
+        this.queueCapacity = queueType.isBuffered() ? queueCapacity : 0;
+        // 运行中任务与排队任务共用准入许可
+        this.semaphore = new ResizableSemaphore(maximumPoolSize - 1 + this.queueCapacity);
         this.threadFactory = threadFactory;
         if (keepAliveTime > 0) {
             this.allowCoreThreadTimeOut(true);
@@ -114,12 +174,7 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
      * @return 是返回true，不是返回false
      */
     public boolean isPaused() {
-        pauseLock.lock();
-        try {
-            return paused;
-        } finally {
-            pauseLock.unlock();
-        }
+        return paused;
     }
 
     /**
@@ -130,13 +185,95 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
     @Override
     protected void beforeExecute(Thread t, Runnable r) {
         super.beforeExecute(t, r);
-        // 一直等到不是暂停为止
-        while (isPaused()) {
-            try {
-                unpaused.await();
-            } catch (InterruptedException e) {
-                t.interrupt();
+        if (paused) {
+            awaitUnpaused(t);
+        }
+        if (r instanceof ShayleeTask) {
+            ShayleeTask task = (ShayleeTask) r;
+            task.startNanos = System.nanoTime();
+            metrics.getQueueWait().record(task.startNanos - task.submitNanos);
+            task.outerRunning = runningTasks.begin(t, task.startNanos);
+        }
+    }
+
+    /**
+     * 执行后
+     *
+     * @see ThreadPoolExecutor#afterExecute(Runnable, Throwable)
+     */
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        try {
+            if (r instanceof ShayleeTask) {
+                ShayleeTask task = (ShayleeTask) r;
+                // 过期丢弃的任务没有执行, 不计入执行时长
+                if (!task.isExpired()) {
+                    metrics.getExecution().record(System.nanoTime() - task.startNanos);
+                }
+                if (t != null || isFailed(task.unwrap())) {
+                    metrics.recordFailure();
+                }
+            }
+            super.afterExecute(r, t);
+        } finally {
+            if (r instanceof ShayleeTask) {
+                ShayleeTask task = (ShayleeTask) r;
+                runningTasks.end(Thread.currentThread(), task.outerRunning);
+                task.release();
+            }
+        }
+    }
+
+    /**
+     * submit提交的任务异常被Future吞掉, 任务已完成时非阻塞地取出结果判断是否失败
+     *
+     * @param command 原始任务
+     * @return 执行失败返回true
+     */
+    private static boolean isFailed(Runnable command) {
+        if (!(command instanceof Future)) {
+            return false;
+        }
+        Future<?> future = (Future<?>) command;
+        if (!future.isDone() || future.isCancelled()) {
+            return false;
+        }
+        try {
+            future.get();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (CancellationException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 暂停期间挂起工作线程, 一直等到不是暂停为止
+     * 在锁内重新检查暂停标志, 保证不会错过resume()的唤醒
+     *
+     * @param t 工作线程
+     */
+    private void awaitUnpaused(Thread t) {
+        boolean interrupted = false;
+        pauseLock.lock();
+        try {
+            // 关闭线程池时不再等待恢复, 以便排空任务
+            while (paused && !isShutdown()) {
+                try {
+                    unpaused.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
             }
+        } finally {
+            pauseLock.unlock();
+        }
+        if (interrupted) {
+            t.interrupt();
         }
     }
 
@@ -146,8 +283,8 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
     public void pause() {
         pauseLock.lock();
         try {
-            paused = true;
             handler.setRejectedErrMsg(DEFAULT_PAUSED_ERRMSG);
+            paused = true;
         } finally {
             pauseLock.unlock();
         }
@@ -159,41 +296,79 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
     public void resume() {
         pauseLock.lock();
         try {
-            paused = false;
             handler.setRejectedErrMsg(DEFAULT_REJECTED_ERRMSG);
+            paused = false;
             unpaused.signalAll();
         } finally {
             pauseLock.unlock();
         }
     }
 
-    private void checkPause() {
+    /**
+     * 关闭线程池, 唤醒暂停中挂起的工作线程以便排空已接收的任务
+     */
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        signalUnpaused();
+    }
+
+    /**
+     * 立即关闭线程池, 返回尚未执行的原始任务并归还其准入许可
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = super.shutdownNow();
+        signalUnpaused();
+        List<Runnable> commands = new ArrayList<>(tasks.size());
+        for (Runnable r : tasks) {
+            if (r instanceof ShayleeTask) {
+                ShayleeTask task = (ShayleeTask) r;
+                task.release();
+                commands.add(task.unwrap());
+            } else {
+                commands.add(r);
+            }
+        }
+        return commands;
+    }
+
+    private void signalUnpaused() {
         pauseLock.lock();
         try {
-            if (paused) {
-                throw new RejectedExecutionException(DEFAULT_PAUSED_ERRMSG);
-            }
+            unpaused.signalAll();
         } finally {
             pauseLock.unlock();
         }
     }
 
+    private void checkPause() {
+        if (paused) {
+            throw new RejectedExecutionException(DEFAULT_PAUSED_ERRMSG);
+        }
+    }
+
     @Override
     public void execute(final Runnable command) {
-        checkPause();
+        execute(command, null);
+    }
 
-        boolean ok = true;
-        try {
-            if (semaphore != null) {
-                if (waitTime > 0) {
-                    ok = semaphore.tryAcquire(waitTime, TimeUnit.SECONDS);
-                } else {
-                    ok = semaphore.tryAcquire();
-                }
-            }
-        } catch (InterruptedException e) {
-            ok = false;
+    /**
+     * 执行任务, 公平分配模式下按键的配额准入
+     *
+     * @param command  任务
+     * @param shareKey 公平分配的键(租户、接口等), 为null时归入默认键; 未开启公平分配时忽略
+     */
+    public void execute(final Runnable command, String shareKey) {
+        checkPause();
+        // 提交时已过截止时间的任务直接丢弃, 不占用准入许可
+        if (command instanceof PriorityTask && ((PriorityTask) command).expireIfDue()) {
+            return;
         }
+
+        FairShare share = this.fairShare;
+        FairShare.Partition partition = share == null ? null : share.partition(shareKey);
+        boolean ok = partition == null ? acquire() : acquire(share, partition);
         if (!ok) {
             String msg = String.format(
                     "Thread pool is EXHAUSTED!"
@@ -203,25 +378,154 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
                     this.getMaximumPoolSize(), this.getLargestPoolSize(), this.getTaskCount(),
                     this.getCompletedTaskCount(), this.isShutdown(), this.isTerminated(),
                     this.isTerminating());
-            logger.error(msg);
             String rejectedErrMsg = DEFAULT_REJECTED_ERRMSG + "The Number of waiting requests is "
                     + semaphore.getQueueLength();
-            handler.rejectedExecution(rejectedErrMsg);
+            if (partition != null) {
+                msg = msg + " Share Key: " + partition.key + " (in flight: " + partition.inFlight.get() + ")";
+            }
+            logger.error(msg);
+            handler.rejectedExecution(partition == null ? null : partition.key, rejectedErrMsg);
             return;
-        } else {
-            /*assert semaphore != null;
-            logger.info("可用数={}", semaphore.availablePermits());*/
         }
 
-        super.execute(() -> {
-            try {
-                command.run();
-            } finally {
-                if (semaphore != null) {
-                    semaphore.release();
+        super.execute(new ShayleeTask(command, semaphore, partition,
+                propagateContext ? ThreadPoolContexts.capture() : null));
+    }
+
+    /**
+     * 获取准入许可, 先尝试非阻塞获取, 只有需要等待时才记录准入等待时长
+     *
+     * @return 获得许可返回true
+     */
+    private boolean acquire() {
+        boolean ok = true;
+        try {
+            if (semaphore != null) {
+                ok = semaphore.tryAcquire();
+                long wait = waitTime;
+                if (!ok && wait > 0) {
+                    long begin = System.nanoTime();
+                    ok = semaphore.tryAcquire(wait, TimeUnit.SECONDS);
+                    metrics.getAdmissionWait().record(System.nanoTime() - begin);
                 }
             }
-        });
+        } catch (InterruptedException e) {
+            ok = false;
+        }
+        return ok;
+    }
+
+    /**
+     * 公平分配模式下获取准入许可
+     * 配额内与普通任务一样获取许可(可等待); 超出配额时只借用空闲许可: 没有其它调用者在等待且能立即获得,
+     * 借用的许可在任务结束后归还, 等待中的配额内调用者优先获得
+     *
+     * @param share     公平分配策略
+     * @param partition 任务所属分区
+     * @return 获得许可返回true
+     */
+    private boolean acquire(FairShare share, FairShare.Partition partition) {
+        if (partition.tryEnter(share.quota(partition, semaphore.getMaxPermits()))) {
+            if (acquire()) {
+                return true;
+            }
+            partition.exit();
+            return false;
+        }
+        if (!semaphore.hasQueuedThreads() && semaphore.tryAcquire()) {
+            partition.enter();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 重新投递被拒绝的任务
+     * 准入许可保证运行中与排队任务数不超过容量, 此时被拒绝说明刚释放许可的工作线程还没回到队列取任务,
+     * 短暂等待即可投递成功
+     *
+     * @param task 被拒绝的任务
+     * @return 投递成功返回true
+     */
+    boolean retryOffer(ShayleeTask task) {
+        if (isShutdown()) {
+            return false;
+        }
+        try {
+            return getQueue().offer(task, RETRY_OFFER_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 设置内核线程数
+     * 优先级队列不限长度, 永远不会因队列满而创建超过内核数的线程, 因此内核线程数始终等于最大线程数
+     *
+     * @see ThreadPoolExecutor#setCorePoolSize(int)
+     */
+    @Override
+    public void setCorePoolSize(int corePoolSize) {
+        super.setCorePoolSize(queueType == QueueType.PRIORITY ? getMaximumPoolSize() : corePoolSize);
+    }
+
+    /**
+     * 设置最大线程数, 同步调整准入许可数; 优先级队列的内核线程数随之调整
+     *
+     * @see ThreadPoolExecutor#setMaximumPoolSize(int)
+     */
+    @Override
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        if (queueType != QueueType.PRIORITY) {
+            super.setMaximumPoolSize(maximumPoolSize);
+        } else if (maximumPoolSize >= getMaximumPoolSize()) {
+            super.setMaximumPoolSize(maximumPoolSize);
+            super.setCorePoolSize(maximumPoolSize);
+        } else {
+            super.setCorePoolSize(maximumPoolSize);
+            super.setMaximumPoolSize(maximumPoolSize);
+        }
+        if (semaphore != null) {
+            semaphore.resize(maximumPoolSize - 1 + queueCapacity);
+        }
+    }
+
+    /**
+     * 同时调整内核线程数与最大线程数, 按大小顺序设置以避免 core &gt; max 的异常
+     *
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 最大线程数
+     */
+    public synchronized void setPoolSize(int corePoolSize, int maximumPoolSize) {
+        if (maximumPoolSize >= getMaximumPoolSize()) {
+            setMaximumPoolSize(maximumPoolSize);
+            setCorePoolSize(corePoolSize);
+        } else {
+            setCorePoolSize(corePoolSize);
+            setMaximumPoolSize(maximumPoolSize);
+        }
+    }
+
+    /**
+     * 一次性调整线程池参数, 与其它调整互斥
+     * 准入许可随最大线程数增减, 已被占用的许可不受影响
+     *
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 最大线程数
+     * @param keepAliveTime   线程空闲自动退出时长（秒）
+     * @param waitTime        请求等待时长（秒）
+     * @param isCallerRuns    当线程池繁忙时是否由调用者自己执行
+     */
+    public synchronized void reconfigure(int corePoolSize, int maximumPoolSize, long keepAliveTime,
+                                         long waitTime, boolean isCallerRuns) {
+        setPoolSize(corePoolSize, maximumPoolSize);
+        if (keepAliveTime > 0) {
+            setKeepAliveTime(keepAliveTime, TimeUnit.SECONDS);
+            allowCoreThreadTimeOut(true);
+        }
+        this.waitTime = waitTime;
+        handler.setCallerRuns(isCallerRuns);
     }
 
     @Override
@@ -233,6 +537,10 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
         return waitTime;
     }
 
+    public void setWaitTime(long waitTime) {
+        this.waitTime = waitTime;
+    }
+
     public String getName() {
         return name;
     }
@@ -241,4 +549,96 @@ public class ShayleeThreadPoolExecutor extends ThreadPoolExecutor {
         return handler;
     }
 
+    public ThreadMode getThreadMode() {
+        return threadFactory.getThreadMode();
+    }
+
+    public QueueType getQueueType() {
+        return queueType;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * 工作队列中等待执行的任务数
+     *
+     * @return 排队任务数
+     */
+    public int getQueuedTaskCount() {
+        return getQueue().size();
+    }
+
+    /**
+     * 阻塞在准入信号量上的调用者数
+     *
+     * @return 等待准入的调用者数
+     */
+    public int getWaitingCallerCount() {
+        return semaphore == null ? 0 : semaphore.getQueueLength();
+    }
+
+    /**
+     * 任务排队等待累计时长
+     *
+     * @return 累计时长(纳秒)
+     */
+    public long getTotalQueueWaitNanos() {
+        return metrics.getQueueWait().getTotalNanos();
+    }
+
+    /**
+     * 任务执行累计时长
+     *
+     * @return 累计时长(纳秒)
+     */
+    public long getTotalRunNanos() {
+        return metrics.getExecution().getTotalNanos();
+    }
+
+    /**
+     * 执行失败任务数
+     *
+     * @return 执行失败任务数
+     */
+    public long getFailedTaskCount() {
+        return metrics.getFailedTasks();
+    }
+
+    public TaskMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 公平分配策略 getter
+     *
+     * @return 公平分配策略, 未开启时返回null
+     */
+    public FairShare getFairShare() {
+        return fairShare;
+    }
+
+    /**
+     * 开启或关闭公平分配模式
+     * 切换前已准入的任务仍按原来的方式归还许可
+     *
+     * @param fairShare 公平分配策略, 为null时关闭
+     */
+    public void setFairShare(FairShare fairShare) {
+        this.fairShare = fairShare;
+    }
+
+    public boolean isPropagateContext() {
+        return propagateContext;
+    }
+
+    /**
+     * 开启或关闭上下文传递
+     *
+     * @param propagateContext 是否将提交线程的上下文传递到工作线程
+     */
+    public void setPropagateContext(boolean propagateContext) {
+        this.propagateContext = propagateContext;
+    }
 }
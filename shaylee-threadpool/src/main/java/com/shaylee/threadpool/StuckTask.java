@@ -0,0 +1,30 @@
+package com.shaylee.threadpool;
+
+import lombok.Data;
+
+/**
+ * 卡死(执行时长超过阈值)任务信息
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+@Data
+public class StuckTask {
+    /**
+     * 线程池名
+     */
+    private String poolName;
+    /**
+     * 已执行时长(毫秒)
+     */
+    private long runningMillis;
+    /**
+     * 是否已中断
+     */
+    private boolean interrupted;
+    /**
+     * 执行任务的线程堆栈
+     */
+    private ThreadStack thread;
+}
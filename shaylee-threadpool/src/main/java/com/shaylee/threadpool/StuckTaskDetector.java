@@ -0,0 +1,171 @@
+package com.shaylee.threadpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 卡死任务检测器
+ * 功能说明： 定时扫描线程池中执行中的任务, 执行时长超过阈值的任务只抓取其所在线程的堆栈并打印一次,
+ * 可选中断该线程; 卡死任务数计入任务指标, 避免少数挂起的JDBC、Redis调用悄悄占满线程池
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class StuckTaskDetector implements Runnable {
+    private static Logger logger = LoggerFactory.getLogger(StuckTaskDetector.class);
+
+    /**
+     * 所有检测器共用的扫描线程
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, ShayleeThreadPoolExecutor.POOL_NAME_PREFIX + "-stuck-detector");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 被检测的线程池
+     */
+    private final AbstractThreadPool threadPool;
+    /**
+     * 执行时长阈值(纳秒)
+     */
+    private final long thresholdNanos;
+    /**
+     * 扫描间隔(秒)
+     */
+    private final long intervalSeconds;
+    /**
+     * 是否中断卡死任务
+     */
+    private final boolean interrupt;
+    /**
+     * 抓取堆栈的最大深度
+     */
+    private final int stackDepth;
+
+    /**
+     * 最近一次扫描到的卡死任务
+     */
+    private volatile List<StuckTask> stuckTasks = Collections.emptyList();
+    private ScheduledFuture<?> future;
+
+    /**
+     * 构造
+     *
+     * @param threadPool      被检测的线程池
+     * @param thresholdMillis 执行时长阈值(毫秒)
+     * @param intervalSeconds 扫描间隔(秒)
+     * @param interrupt       是否中断卡死任务
+     * @param stackDepth      抓取堆栈的最大深度
+     */
+    public StuckTaskDetector(AbstractThreadPool threadPool, long thresholdMillis, long intervalSeconds,
+                             boolean interrupt, int stackDepth) {
+        this.threadPool = threadPool;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, thresholdMillis));
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.interrupt = interrupt;
+        this.stackDepth = stackDepth > 0 ? stackDepth : ShayleeThreadFactory.DEFAULT_STACK_DEPTH;
+    }
+
+    /**
+     * 是否与另一检测器配置相同, 相同时热更新不必替换(替换会丢失执行中任务的登记)
+     *
+     * @param other 另一检测器
+     * @return 相同返回true
+     */
+    public boolean sameConfig(StuckTaskDetector other) {
+        return other != null && thresholdNanos == other.thresholdNanos && intervalSeconds == other.intervalSeconds
+                && interrupt == other.interrupt && stackDepth == other.stackDepth;
+    }
+
+    /**
+     * 开始定时检测
+     */
+    public synchronized void start() {
+        if (future != null) {
+            return;
+        }
+        threadPool.runningTasks().enabled = true;
+        future = SCHEDULER.scheduleWithFixedDelay(this, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        logger.info("detect stuck tasks of the threadpool[{}] running longer than {}ms", threadPool.getPoolName(),
+                TimeUnit.NANOSECONDS.toMillis(thresholdNanos));
+    }
+
+    /**
+     * 停止定时检测
+     */
+    public synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+        threadPool.runningTasks().disable();
+        threadPool.getMetrics().setCurrentStuckTasks(0);
+        stuckTasks = Collections.emptyList();
+    }
+
+    @Override
+    public void run() {
+        try {
+            detect();
+        } catch (Throwable e) {
+            logger.error("detect stuck tasks of the threadpool[" + threadPool.getPoolName() + "] failed", e);
+        }
+    }
+
+    /**
+     * 一次扫描
+     */
+    private void detect() {
+        long now = System.nanoTime();
+        List<StuckTask> found = new ArrayList<>();
+        for (Map.Entry<Thread, RunningTasks.Entry> entry : threadPool.runningTasks().tasks.entrySet()) {
+            RunningTasks.Entry task = entry.getValue();
+            long running = now - task.startNanos;
+            if (running < thresholdNanos) {
+                continue;
+            }
+            Thread thread = entry.getKey();
+            StuckTask stuckTask = new StuckTask();
+            stuckTask.setPoolName(threadPool.getPoolName());
+            stuckTask.setRunningMillis(TimeUnit.NANOSECONDS.toMillis(running));
+            // 只抓取卡死任务所在线程的堆栈
+            stuckTask.setThread(threadPool.threadFactory().getThreadStack(thread, stackDepth));
+            if (!task.reported) {
+                // 每个任务只报告、中断一次
+                task.reported = true;
+                threadPool.getMetrics().recordStuck();
+                logger.warn("the task of threadpool[{}] has been running for {}ms on {}:\n{}",
+                        threadPool.getPoolName(), stuckTask.getRunningMillis(), thread.getName(),
+                        stuckTask.getThread() == null ? "" : stuckTask.getThread().getStack());
+                if (interrupt && task.interrupt(thread, threadPool.runningTasks())) {
+                    threadPool.getMetrics().recordStuckInterrupted();
+                }
+            }
+            stuckTask.setInterrupted(task.isInterrupted());
+            found.add(stuckTask);
+        }
+        threadPool.getMetrics().setCurrentStuckTasks(found.size());
+        stuckTasks = Collections.unmodifiableList(found);
+    }
+
+    /**
+     * 最近一次扫描到的卡死任务
+     *
+     * @return 卡死任务
+     */
+    public List<StuckTask> getStuckTasks() {
+        return stuckTasks;
+    }
+}
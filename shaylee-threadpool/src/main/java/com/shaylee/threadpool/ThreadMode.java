@@ -0,0 +1,81 @@
+package com.shaylee.threadpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 线程池工作线程模式
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public enum ThreadMode {
+    /**
+     * 平台线程(默认)
+     */
+    PLATFORM,
+    /**
+     * 虚拟线程(JDK 21+), 运行时不支持时退化为平台线程
+     */
+    VIRTUAL;
+
+    private static Logger logger = LoggerFactory.getLogger(ThreadMode.class);
+
+    /**
+     * 虚拟线程工厂, 运行时不支持时为null
+     */
+    private static final ThreadFactory VIRTUAL_FACTORY = loadVirtualFactory();
+
+    /**
+     * 运行时是否支持虚拟线程
+     *
+     * @return 支持返回true
+     */
+    public static boolean isVirtualSupported() {
+        return VIRTUAL_FACTORY != null;
+    }
+
+    /**
+     * 根据运行时支持情况得出实际生效的模式
+     *
+     * @param mode 配置的模式
+     * @return 实际生效的模式
+     */
+    public static ThreadMode effective(ThreadMode mode) {
+        if (mode == VIRTUAL && !isVirtualSupported()) {
+            logger.warn("virtual threads are not supported by java {}, fall back to platform threads",
+                    System.getProperty("java.version"));
+            return PLATFORM;
+        }
+        return mode == null ? PLATFORM : mode;
+    }
+
+    /**
+     * 创建虚拟线程(未启动)
+     *
+     * @param r 线程任务
+     * @return 虚拟线程
+     */
+    static Thread newVirtualThread(Runnable r) {
+        return VIRTUAL_FACTORY.newThread(r);
+    }
+
+    /**
+     * 通过反射获取 Thread.ofVirtual().factory(), 以便在JDK 8上编译运行
+     */
+    private static ThreadFactory loadVirtualFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (Throwable e) {
+            // JDK 21以下没有该方法, JDK 19/20未开启预览时抛出UnsupportedOperationException
+            return null;
+        }
+    }
+}
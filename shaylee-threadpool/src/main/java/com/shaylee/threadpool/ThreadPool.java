@@ -1,23 +1,35 @@
 package com.shaylee.threadpool;
 
+import com.shaylee.threadpool.metrics.TaskMetrics;
+
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 线程池类
  * 功能说明： 是线程池的总控构建类, 实现通过根据可传入参数构造相应的执行队列、线程工厂、线程池执行器
+ * 与工作窃取、定时线程池共同继承AbstractThreadPool, 对外提供相同的管理、监控接口
  * Project: shaylee-framework
  *
  * @author Adrian
  * @date 2020-03-13
  */
-public class ThreadPool {
+public class ThreadPool extends AbstractThreadPool {
     /**
      * 线程池执行器
      */
     private ShayleeThreadPoolExecutor executor;
+    /**
+     * 自动调优器(未开启时为null)
+     */
+    private volatile ThreadPoolAutoTuner autoTuner;
 
     /**
      * 构造线程池
@@ -31,9 +43,47 @@ public class ThreadPool {
      */
     public ThreadPool(String poolName, int corePoolSize, int maximumPoolSize, long keepAliveTime,
                       long waitTime, boolean isCallerRuns) {
+        this(poolName, corePoolSize, maximumPoolSize, keepAliveTime, waitTime, isCallerRuns,
+                QueueType.SYNCHRONOUS, 0);
+    }
+
+    /**
+     * 构造线程池
+     *
+     * @param poolName        线程池名
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 繁忙时最大线程数
+     * @param keepAliveTime   线程空闲自动退出时长（秒）
+     * @param waitTime        等待超时时长（秒）
+     * @param isCallerRuns    当线程池繁忙时是否有调用者自己执行
+     * @param queueType       工作队列类型
+     * @param queueCapacity   工作队列容量
+     */
+    public ThreadPool(String poolName, int corePoolSize, int maximumPoolSize, long keepAliveTime,
+                      long waitTime, boolean isCallerRuns, QueueType queueType, int queueCapacity) {
+        this(poolName, corePoolSize, maximumPoolSize, keepAliveTime, waitTime, isCallerRuns,
+                queueType, queueCapacity, ThreadMode.PLATFORM);
+    }
+
+    /**
+     * 构造线程池
+     *
+     * @param poolName        线程池名
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 繁忙时最大线程数(虚拟线程模式下即最大并发数)
+     * @param keepAliveTime   线程空闲自动退出时长（秒）
+     * @param waitTime        等待超时时长（秒）
+     * @param isCallerRuns    当线程池繁忙时是否有调用者自己执行
+     * @param queueType       工作队列类型
+     * @param queueCapacity   工作队列容量
+     * @param threadMode      工作线程模式
+     */
+    public ThreadPool(String poolName, int corePoolSize, int maximumPoolSize, long keepAliveTime,
+                      long waitTime, boolean isCallerRuns, QueueType queueType, int queueCapacity,
+                      ThreadMode threadMode) {
         // 线程池执行器
         this.executor = new ShayleeThreadPoolExecutor(poolName, corePoolSize, maximumPoolSize,
-                keepAliveTime, waitTime, isCallerRuns);
+                keepAliveTime, waitTime, isCallerRuns, queueType, queueCapacity, threadMode);
     }
 
     /**
@@ -45,6 +95,24 @@ public class ThreadPool {
         return executor.getName();
     }
 
+    /**
+     * 线程池类型 getter
+     *
+     * @return 线程池类型
+     */
+    public PoolType getType() {
+        return PoolType.STANDARD;
+    }
+
+    /**
+     * 工作线程模式 getter
+     *
+     * @return 实际生效的工作线程模式
+     */
+    public ThreadMode getThreadMode() {
+        return executor.getThreadMode();
+    }
+
     /**
      * 内核线程数 getter
      *
@@ -72,10 +140,25 @@ public class ThreadPool {
         return this.executor.getMaximumPoolSize();
     }
 
+    /**
+     * 最大线程数 setter, 同步调整准入许可数
+     *
+     * @param maximumPoolSize 最大线程数
+     */
     public void setMaximumPoolSize(int maximumPoolSize) {
         this.executor.setMaximumPoolSize(maximumPoolSize);
     }
 
+    /**
+     * 同时设置内核线程数与最大线程数
+     *
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 最大线程数
+     */
+    public void setPoolSize(int corePoolSize, int maximumPoolSize) {
+        this.executor.setPoolSize(corePoolSize, maximumPoolSize);
+    }
+
     /**
      * 最大空闲时间 getter
      *
@@ -103,6 +186,39 @@ public class ThreadPool {
         return executor.getWaitTime();
     }
 
+    /**
+     * 超时时间(单位秒) setter
+     *
+     * @param waitTime 超时时间(单位秒)
+     */
+    public void setTimeOut(long waitTime) {
+        executor.setWaitTime(waitTime);
+    }
+
+    /**
+     * 当线程池繁忙时是否由调用者自己执行
+     *
+     * @return 由调用者执行返回true
+     */
+    public boolean isCallerRuns() {
+        return executor.getHandler().isCallerRuns();
+    }
+
+    /**
+     * 一次性调整线程池参数(内核/最大线程数、空闲时长、等待时长、是否由调用者执行)
+     * 准入许可随最大线程数增减, 已被占用的许可不受影响
+     *
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 最大线程数
+     * @param keepAliveTime   线程空闲自动退出时长（秒）
+     * @param waitTime        等待超时时长（秒）
+     * @param isCallerRuns    当线程池繁忙时是否由调用者自己执行
+     */
+    public void reconfigure(int corePoolSize, int maximumPoolSize, long keepAliveTime, long waitTime,
+                            boolean isCallerRuns) {
+        executor.reconfigure(corePoolSize, maximumPoolSize, keepAliveTime, waitTime, isCallerRuns);
+    }
+
     /**
      * 拒绝请求次数 getter
      *
@@ -131,15 +247,21 @@ public class ThreadPool {
     }
 
     /**
-     * 等待执行任务数 getter
+     * 等待执行任务数(工作队列中的任务) getter
      *
      * @return 等待执行任务数
      */
     public int getQueueSize() {
-        if (executor.semaphore == null) {
-            return 0;
-        }
-        return executor.semaphore.getQueueLength();
+        return executor.getQueuedTaskCount();
+    }
+
+    /**
+     * 等待准入的调用者数(阻塞在信号量上) getter
+     *
+     * @return 等待准入的调用者数
+     */
+    public int getWaitingCallers() {
+        return executor.getWaitingCallerCount();
     }
 
     /**
@@ -160,6 +282,24 @@ public class ThreadPool {
         return this.executor.getActiveCount();
     }
 
+    /**
+     * 任务指标(准入等待、排队等待、执行时长直方图及失败数) getter
+     *
+     * @return 任务指标
+     */
+    public TaskMetrics getMetrics() {
+        return this.executor.getMetrics();
+    }
+
+    /**
+     * 完成任务数 getter
+     *
+     * @return 完成任务数
+     */
+    public long getCompletedTasks() {
+        return this.executor.getCompletedTaskCount();
+    }
+
     /**
      * 获取所有线程堆栈
      *
@@ -192,6 +332,139 @@ public class ThreadPool {
         this.executor.resume();
     }
 
+    /**
+     * 公平分配策略 getter
+     *
+     * @return 公平分配策略, 未开启时返回null
+     */
+    public FairShare getFairShare() {
+        return this.executor.getFairShare();
+    }
+
+    /**
+     * 开启或关闭公平分配模式
+     *
+     * @param fairShare 公平分配策略, 为null时关闭
+     */
+    public void setFairShare(FairShare fairShare) {
+        this.executor.setFairShare(fairShare);
+    }
+
+    /**
+     * 公平分配模式下各键的拒绝请求次数
+     *
+     * @return 键 -> 拒绝请求次数
+     */
+    public Map<String, Long> getKeyRejectedTimes() {
+        return executor.getHandler().getKeyRejectedTimes();
+    }
+
+    /**
+     * 是否将提交线程的上下文(MDC、请求、安全等)传递到工作线程
+     *
+     * @return 传递返回true
+     */
+    public boolean isPropagateContext() {
+        return this.executor.isPropagateContext();
+    }
+
+    /**
+     * 开启或关闭上下文传递
+     *
+     * @param propagateContext 是否传递
+     */
+    public void setPropagateContext(boolean propagateContext) {
+        this.executor.setPropagateContext(propagateContext);
+    }
+
+    /**
+     * 自动调优器 getter
+     *
+     * @return 自动调优器, 未开启时返回null
+     */
+    public ThreadPoolAutoTuner getAutoTuner() {
+        return autoTuner;
+    }
+
+    /**
+     * 开启自动调优, 替换并停止已有的调优器
+     *
+     * @param autoTuner 自动调优器, 为null时关闭自动调优
+     */
+    public synchronized void setAutoTuner(ThreadPoolAutoTuner autoTuner) {
+        if (this.autoTuner != null) {
+            this.autoTuner.stop();
+        }
+        this.autoTuner = autoTuner;
+        if (autoTuner != null) {
+            autoTuner.start();
+        }
+    }
+
+    /**
+     * 关闭线程池: 停止自动调优, 不再接收新任务, 已接收的任务继续执行完
+     */
+    public void shutdown() {
+        setAutoTuner(null);
+        setStuckTaskDetector(null);
+        this.executor.shutdown();
+    }
+
+    /**
+     * 是否已关闭
+     *
+     * @return 已关闭返回true
+     */
+    public boolean isShutdown() {
+        return this.executor.isShutdown();
+    }
+
+    /**
+     * 立即关闭线程池: 中断执行中的任务, 返回尚未执行的任务
+     *
+     * @return 尚未执行的任务
+     */
+    public List<Runnable> shutdownNow() {
+        setAutoTuner(null);
+        setStuckTaskDetector(null);
+        return this.executor.shutdownNow();
+    }
+
+    /**
+     * 等待关闭后的线程池执行完所有任务
+     *
+     * @param timeout 最长等待时长
+     * @param unit    时长单位
+     * @return 全部执行完返回true, 超时返回false
+     * @throws InterruptedException 等待时被中断
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * 关闭后是否所有任务都已执行完
+     *
+     * @return 已终止返回true
+     */
+    public boolean isTerminated() {
+        return this.executor.isTerminated();
+    }
+
+    /**
+     * 执行中任务登记表
+     */
+    RunningTasks runningTasks() {
+        return this.executor.runningTasks;
+    }
+
+    /**
+     * 线程工厂
+     */
+    ShayleeThreadFactory threadFactory() {
+        return this.executor.getThreadFactory();
+    }
+
     /**
      * 提交请求线程池
      *
@@ -212,4 +485,105 @@ public class ThreadPool {
         return this.executor.submit(c);
     }
 
+    /**
+     * 执行任务(经过暂停检查及准入控制)
+     *
+     * @param r Runnable请求
+     */
+    public void execute(Runnable r) {
+        this.executor.execute(r);
+    }
+
+    /**
+     * 按公平分配的键执行任务(经过暂停检查及该键的配额准入)
+     *
+     * @param r        Runnable请求
+     * @param shareKey 公平分配的键(租户、接口等); 未开启公平分配时忽略
+     */
+    public void execute(Runnable r, String shareKey) {
+        this.executor.execute(r, shareKey);
+    }
+
+    /**
+     * 按公平分配的键提交请求
+     *
+     * @param c        Callable请求
+     * @param shareKey 公平分配的键(租户、接口等); 未开启公平分配时忽略
+     * @param <T>      结果类型
+     * @return Future对象
+     */
+    public <T> Future<T> submit(Callable<T> c, String shareKey) {
+        FutureTask<T> task = new FutureTask<>(c);
+        execute(task, shareKey);
+        return task;
+    }
+
+    /**
+     * 按公平分配的键异步执行有返回值的任务, 被拒绝时返回以RejectedExecutionException结束的CompletableFuture
+     *
+     * @param supplier 任务
+     * @param shareKey 公平分配的键(租户、接口等); 未开启公平分配时忽略
+     * @param <T>      结果类型
+     * @return CompletableFuture对象
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, String shareKey) {
+        AsyncTask<T> task = new AsyncTask<>(supplier::get);
+        try {
+            execute(task, shareKey);
+        } catch (RejectedExecutionException e) {
+            task.completeExceptionally(e);
+        }
+        return task;
+    }
+
+    /**
+     * 按优先级及截止时间执行任务
+     * 使用PRIORITY工作队列时按优先级(数值越大越优先)、截止时间(越早越优先)排序, 其它队列仍按提交顺序;
+     * 开始执行时已过截止时间的任务被丢弃, 计入过期任务数而不是拒绝次数
+     *
+     * @param r        Runnable请求
+     * @param priority 优先级, 默认0
+     * @param timeout  从提交起的截止时长, 小于等于0时没有截止时间
+     * @param unit     截止时长单位
+     */
+    public void execute(Runnable r, int priority, long timeout, TimeUnit unit) {
+        execute(new PriorityTask(r, priority, PriorityTask.deadline(timeout, unit), getMetrics()));
+    }
+
+    /**
+     * 按优先级及截止时间提交请求, 过期丢弃时Future被取消
+     *
+     * @param c        Callable请求
+     * @param priority 优先级, 默认0
+     * @param timeout  从提交起的截止时长, 小于等于0时没有截止时间
+     * @param unit     截止时长单位
+     * @param <T>      结果类型
+     * @return Future对象
+     */
+    public <T> Future<T> submit(Callable<T> c, int priority, long timeout, TimeUnit unit) {
+        FutureTask<T> task = new FutureTask<>(c);
+        execute(task, priority, timeout, unit);
+        return task;
+    }
+
+    /**
+     * 按优先级及截止时间异步执行有返回值的任务, 过期丢弃时CompletableFuture被取消
+     *
+     * @param supplier 任务
+     * @param priority 优先级, 默认0
+     * @param timeout  从提交起的截止时长, 小于等于0时没有截止时间
+     * @param unit     截止时长单位
+     * @param <T>      结果类型
+     * @return CompletableFuture对象
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, int priority, long timeout, TimeUnit unit) {
+        AsyncTask<T> task = new AsyncTask<>(supplier::get);
+        try {
+            execute(task, priority, timeout, unit);
+        } catch (RejectedExecutionException e) {
+            task.completeExceptionally(e);
+        }
+        return task;
+    }
+
 }
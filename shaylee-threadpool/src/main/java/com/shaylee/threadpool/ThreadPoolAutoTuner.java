@@ -0,0 +1,251 @@
+package com.shaylee.threadpool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池自动调优器
+ * 功能说明： 定时采样活动线程数、拒绝次数、等待准入的调用者数、任务排队及执行时长,
+ * 在配置的上下限内按AIMD方式调整线程池大小: 繁忙时按步长加性扩容, 持续空闲时按比例乘性缩容;
+ * 任务执行时长相对基线明显变长时(下游已饱和)暂停扩容, 避免加线程放大拥塞
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ThreadPoolAutoTuner implements Runnable {
+    private static Logger logger = LoggerFactory.getLogger(ThreadPoolAutoTuner.class);
+
+    /**
+     * 所有调优器共用的采样线程
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, ShayleeThreadPoolExecutor.POOL_NAME_PREFIX + "-auto-tuner");
+        t.setDaemon(true);
+        return t;
+    });
+    /**
+     * 执行时长超过基线该倍数时视为下游饱和
+     */
+    private static final double RUN_TIME_TOLERANCE = 2.0D;
+
+    /**
+     * 被调优的线程池
+     */
+    private final ThreadPool threadPool;
+    /**
+     * 最大线程数下限
+     */
+    private final int minPoolSize;
+    /**
+     * 最大线程数上限
+     */
+    private final int maxPoolSize;
+    /**
+     * 采样间隔(秒)
+     */
+    private final long intervalSeconds;
+    /**
+     * 扩容步长
+     */
+    private final int step;
+    /**
+     * 缩容比例
+     */
+    private final double backoffRatio;
+    /**
+     * 平均排队时长阈值(纳秒)
+     */
+    private final long queueWaitThresholdNanos;
+    /**
+     * 高利用率阈值
+     */
+    private final double highUtilization;
+    /**
+     * 低利用率阈值
+     */
+    private final double lowUtilization;
+    /**
+     * 连续空闲多少次采样后缩容
+     */
+    private final int idleSamples;
+
+    private long lastRejected;
+    private long lastCompleted;
+    private long lastQueueWaitNanos;
+    private long lastRunNanos;
+    /**
+     * 平均执行时长基线(纳秒), 取观察到的最小值并缓慢上浮
+     */
+    private double baselineRunNanos;
+    private int idleCount;
+    private ScheduledFuture<?> future;
+
+    /**
+     * 构造
+     *
+     * @param threadPool               被调优的线程池
+     * @param minPoolSize              最大线程数下限
+     * @param maxPoolSize              最大线程数上限
+     * @param intervalSeconds          采样间隔(秒)
+     * @param step                     扩容步长
+     * @param backoffRatio             缩容比例(0~1)
+     * @param queueWaitThresholdMillis 平均排队时长阈值(毫秒)
+     * @param highUtilization          高利用率阈值(0~1)
+     * @param lowUtilization           低利用率阈值(0~1)
+     * @param idleSamples              连续空闲多少次采样后缩容
+     */
+    public ThreadPoolAutoTuner(ThreadPool threadPool, int minPoolSize, int maxPoolSize, long intervalSeconds,
+                               int step, double backoffRatio, long queueWaitThresholdMillis,
+                               double highUtilization, double lowUtilization, int idleSamples) {
+        this.threadPool = threadPool;
+        this.minPoolSize = Math.max(2, minPoolSize);
+        this.maxPoolSize = Math.max(this.minPoolSize, maxPoolSize);
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.step = Math.max(1, step);
+        this.backoffRatio = backoffRatio > 0 && backoffRatio < 1 ? backoffRatio : 0.75D;
+        this.queueWaitThresholdNanos = TimeUnit.MILLISECONDS.toNanos(queueWaitThresholdMillis);
+        this.highUtilization = highUtilization;
+        this.lowUtilization = lowUtilization;
+        this.idleSamples = Math.max(1, idleSamples);
+    }
+
+    /**
+     * 是否与另一调优器配置相同, 相同时热更新不必替换(替换会丢失执行时长基线及空闲计数)
+     *
+     * @param other 另一调优器
+     * @return 相同返回true
+     */
+    public boolean sameConfig(ThreadPoolAutoTuner other) {
+        return other != null && minPoolSize == other.minPoolSize && maxPoolSize == other.maxPoolSize
+                && intervalSeconds == other.intervalSeconds && step == other.step
+                && Double.compare(backoffRatio, other.backoffRatio) == 0
+                && queueWaitThresholdNanos == other.queueWaitThresholdNanos
+                && Double.compare(highUtilization, other.highUtilization) == 0
+                && Double.compare(lowUtilization, other.lowUtilization) == 0
+                && idleSamples == other.idleSamples;
+    }
+
+    /**
+     * 开始定时调优
+     */
+    public synchronized void start() {
+        if (future != null) {
+            return;
+        }
+        ShayleeThreadPoolExecutor executor = threadPool.getExecutor();
+        lastRejected = threadPool.getRejectedTimes();
+        lastCompleted = executor.getCompletedTaskCount();
+        lastQueueWaitNanos = executor.getTotalQueueWaitNanos();
+        lastRunNanos = executor.getTotalRunNanos();
+        future = SCHEDULER.scheduleWithFixedDelay(this, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        logger.info("auto tune the threadpool[{}] between {} and {} threads", threadPool.getPoolName(),
+                minPoolSize, maxPoolSize);
+    }
+
+    /**
+     * 停止定时调优
+     */
+    public synchronized void stop() {
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            tune();
+        } catch (Throwable e) {
+            logger.error("auto tune the threadpool[" + threadPool.getPoolName() + "] failed", e);
+        }
+    }
+
+    /**
+     * 一次采样及调整
+     */
+    private void tune() {
+        ShayleeThreadPoolExecutor executor = threadPool.getExecutor();
+        if (executor.isShutdown() || executor.isPaused()) {
+            return;
+        }
+        long rejected = threadPool.getRejectedTimes();
+        long completed = executor.getCompletedTaskCount();
+        long queueWaitNanos = executor.getTotalQueueWaitNanos();
+        long runNanos = executor.getTotalRunNanos();
+        long rejectedDelta = rejected - lastRejected;
+        long completedDelta = completed - lastCompleted;
+        long avgQueueWaitNanos = completedDelta > 0 ? (queueWaitNanos - lastQueueWaitNanos) / completedDelta : 0;
+        long avgRunNanos = completedDelta > 0 ? (runNanos - lastRunNanos) / completedDelta : 0;
+        lastRejected = rejected;
+        lastCompleted = completed;
+        lastQueueWaitNanos = queueWaitNanos;
+        lastRunNanos = runNanos;
+
+        if (avgRunNanos > 0) {
+            // 基线取最小值, 并每次上浮1%以适应业务本身的变化
+            baselineRunNanos = baselineRunNanos <= 0 ? avgRunNanos
+                    : Math.min(avgRunNanos, baselineRunNanos * 1.01D);
+        }
+
+        int current = executor.getMaximumPoolSize();
+        double utilization = (double) executor.getActiveCount() / current;
+        int waitingCallers = executor.getWaitingCallerCount();
+        boolean overloaded = rejectedDelta > 0 || waitingCallers > 0
+                || avgQueueWaitNanos > queueWaitThresholdNanos || utilization >= highUtilization;
+        boolean idle = rejectedDelta == 0 && waitingCallers == 0
+                && avgQueueWaitNanos <= queueWaitThresholdNanos / 2 && utilization <= lowUtilization;
+
+        int target = current;
+        if (overloaded) {
+            idleCount = 0;
+            if (baselineRunNanos > 0 && avgRunNanos > baselineRunNanos * RUN_TIME_TOLERANCE) {
+                logger.debug("threadpool[{}] is busy but task run time grew from {}ns to {}ns, hold size {}",
+                        threadPool.getPoolName(), (long) baselineRunNanos, avgRunNanos, current);
+            } else {
+                target = Math.min(maxPoolSize, current + step);
+            }
+        } else if (idle) {
+            if (++idleCount >= idleSamples) {
+                idleCount = 0;
+                target = Math.max(minPoolSize, (int) (current * backoffRatio));
+            }
+        } else {
+            idleCount = 0;
+        }
+
+        if (target != current) {
+            resize(executor, target);
+            logger.info("auto tune the threadpool[{}] max size {} -> {} (utilization: {}, rejected: {}, "
+                            + "waiting: {}, avgQueueWait: {}ms, avgRun: {}ms)", threadPool.getPoolName(), current,
+                    target, String.format("%.2f", utilization), rejectedDelta, waitingCallers,
+                    TimeUnit.NANOSECONDS.toMillis(avgQueueWaitNanos), TimeUnit.NANOSECONDS.toMillis(avgRunNanos));
+        }
+    }
+
+    /**
+     * 调整线程池大小
+     * 同步移交队列只调整最大线程数; 缓存队列只有在队列满时才会超过内核线程数, 因此内核线程数随之调整
+     *
+     * @param executor 线程池执行器
+     * @param target   目标最大线程数
+     */
+    private void resize(ShayleeThreadPoolExecutor executor, int target) {
+        int core = executor.getQueueType().isBuffered() ? target : Math.min(executor.getCorePoolSize(), target);
+        executor.setPoolSize(core, target);
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+}
@@ -19,6 +19,10 @@ public class ThreadStack {
      * 线程名
      */
     private String name;
+    /**
+     * 线程状态
+     */
+    private String state;
     /**
      * 堆栈信息
      */
@@ -0,0 +1,112 @@
+package com.shaylee.threadpool.config;
+
+import com.shaylee.threadpool.PoolType;
+import com.shaylee.threadpool.properties.ThreadPoolManagerProperties;
+import com.shaylee.threadpool.spring.ShayleeTaskExecutor;
+import com.shaylee.threadpool.spring.ShayleeTaskScheduler;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import java.util.Map;
+
+/**
+ * Title: 线程池Spring Bean注册
+ * 功能说明： 开启thread-manager.async.enabled时, 按启动时的配置把每个线程池以线程池名注册为TaskExecutor(定时线程池为TaskScheduler),
+ * 以便@Async("poolName")、@Scheduled使用; 注册后Spring Boot不再创建默认的执行器/调度器, 需指定默认的taskExecutor/taskScheduler.
+ * 热更新新增的线程池不会注册为Bean, 可通过ThreadPoolManager获取
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ThreadPoolBeanRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * 配置前缀
+     */
+    private static final String PREFIX = "thread-manager";
+    /**
+     * @Async未指定执行器时Spring查找的Bean名
+     */
+    static final String DEFAULT_TASK_EXECUTOR = "taskExecutor";
+    /**
+     * @Scheduled未指定调度器时Spring查找的Bean名
+     */
+    static final String DEFAULT_TASK_SCHEDULER = "taskScheduler";
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        ThreadPoolManagerProperties properties = Binder.get(environment)
+                .bind(PREFIX, ThreadPoolManagerProperties.class).orElse(null);
+        if (properties == null || properties.getThreadpool() == null) {
+            return;
+        }
+        ThreadPoolManagerProperties.AsyncProperties async = properties.getAsync();
+        if (async == null || !async.isEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, ThreadPoolManagerProperties.PoolProperties> entry : properties.getThreadpool().entrySet()) {
+            String poolName = entry.getKey();
+            if (registry.containsBeanDefinition(poolName) || registry.isAlias(poolName)) {
+                logger.warn("the bean[" + poolName + "] already exists, the threadpool is not registered as TaskExecutor");
+                continue;
+            }
+            Class<?> beanClass = entry.getValue().getType() == PoolType.SCHEDULED
+                    ? ShayleeTaskScheduler.class : ShayleeTaskExecutor.class;
+            RootBeanDefinition definition = new RootBeanDefinition(beanClass);
+            ConstructorArgumentValues args = definition.getConstructorArgumentValues();
+            args.addIndexedArgumentValue(0, poolName);
+            args.addIndexedArgumentValue(1, new RuntimeBeanReference("allThreadPools"));
+            registry.registerBeanDefinition(poolName, definition);
+        }
+        if (StringUtils.isBlank(async.getDefaultExecutor())) {
+            logger.warn("thread-manager.async.default-executor is not set, Spring Boot will not create the default "
+                    + "applicationTaskExecutor and @Async without a qualifier falls back to SimpleAsyncTaskExecutor");
+        }
+        registerDefault(registry, async.getDefaultExecutor(), DEFAULT_TASK_EXECUTOR);
+        registerDefault(registry, async.getDefaultScheduler(), DEFAULT_TASK_SCHEDULER);
+    }
+
+    /**
+     * 把线程池注册为Spring默认的执行器/调度器, 替换已有的同名Bean或别名
+     */
+    private void registerDefault(BeanDefinitionRegistry registry, String poolName, String alias) {
+        if (StringUtils.isBlank(poolName)) {
+            return;
+        }
+        if (!registry.containsBeanDefinition(poolName)) {
+            logger.warn("the threadpool[" + poolName + "] is not registered, can not be the default " + alias);
+            return;
+        }
+        if (registry.isAlias(alias)) {
+            registry.removeAlias(alias);
+        } else if (registry.containsBeanDefinition(alias)) {
+            logger.info("the bean[" + alias + "] is replaced by the threadpool[" + poolName + "]");
+            registry.removeBeanDefinition(alias);
+        }
+        registry.registerAlias(poolName, alias);
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+    }
+}
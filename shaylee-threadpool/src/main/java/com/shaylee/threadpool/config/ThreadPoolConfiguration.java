@@ -1,16 +1,30 @@
 package com.shaylee.threadpool.config;
 
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.FairShare;
+import com.shaylee.threadpool.ForkJoinThreadPool;
+import com.shaylee.threadpool.PoolType;
+import com.shaylee.threadpool.QueueType;
+import com.shaylee.threadpool.ScheduledThreadPool;
+import com.shaylee.threadpool.StuckTaskDetector;
+import com.shaylee.threadpool.ThreadMode;
 import com.shaylee.threadpool.ThreadPool;
+import com.shaylee.threadpool.ThreadPoolAutoTuner;
+import com.shaylee.threadpool.context.TaskContextPropagator;
+import com.shaylee.threadpool.context.ThreadPoolContexts;
 import com.shaylee.threadpool.manager.ThreadPoolManager;
 import com.shaylee.threadpool.properties.ThreadPoolManagerProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Title: 线程池配置
@@ -26,51 +40,65 @@ public class ThreadPoolConfiguration {
     @Autowired
     ThreadPoolManagerProperties threadPoolManagerProperties;
 
-    @Bean("threadPools")
-    public Map<String, ThreadPool> threadPoolMap() {
+    /**
+     * 以Spring Bean声明的上下文传递器
+     */
+    @Autowired(required = false)
+    List<TaskContextPropagator> taskContextPropagators;
+
+    @Bean("allThreadPools")
+    public Map<String, AbstractThreadPool> allThreadPoolMap() {
+        if (taskContextPropagators != null) {
+            taskContextPropagators.forEach(ThreadPoolContexts::register);
+        }
         logger.info("initThreadPool begin...");
-        Map<String, ThreadPool> threadPoolMap = this.initThreadPool();
+        Map<String, AbstractThreadPool> threadPoolMap = this.initThreadPool();
         logger.info("initThreadPool end...");
         return threadPoolMap;
     }
 
+    /**
+     * 标准线程池容器, 是所有线程池容器的只读视图(不含工作窃取等其它类型的线程池)
+     */
+    @Bean("threadPools")
+    public Map<String, ThreadPool> threadPoolMap() {
+        Map<String, AbstractThreadPool> allThreadPools = allThreadPoolMap();
+        return allThreadPools == null ? null : ThreadPoolManager.standardPools(allThreadPools);
+    }
+
+    /**
+     * 把线程池注册为TaskExecutor/TaskScheduler, 需在其它Bean定义之前处理, 声明为static
+     */
+    @Bean
+    public static ThreadPoolBeanRegistrar threadPoolBeanRegistrar() {
+        return new ThreadPoolBeanRegistrar();
+    }
+
+    @Bean
+    public ThreadPoolRefresher threadPoolRefresher(Environment environment, ApplicationEventPublisher publisher) {
+        return new ThreadPoolRefresher(this, allThreadPoolMap(), threadPoolManagerProperties, environment, publisher);
+    }
+
+    @Bean
+    public ThreadPoolLifecycle threadPoolLifecycle() {
+        return new ThreadPoolLifecycle(allThreadPoolMap(), threadPoolManagerProperties);
+    }
+
     /**
      * 初始化线程池
+     * 线程池容器支持并发读写, 热更新时可以增删线程池
      */
-    private Map<String, ThreadPool> initThreadPool() {
+    private Map<String, AbstractThreadPool> initThreadPool() {
+        Map<String, AbstractThreadPool> threadPoolMap = new ConcurrentHashMap<>();
         Map<String, ThreadPoolManagerProperties.PoolProperties> threadpool = threadPoolManagerProperties.getThreadpool();
         if (threadpool == null) {
             logger.warn("no thread pool config found...");
-            return null;
+            return threadPoolMap;
         }
-        Map<String, ThreadPool> threadPoolMap = new LinkedHashMap<>(threadpool.size());
         for (Map.Entry<String, ThreadPoolManagerProperties.PoolProperties> threadPoolEntry : threadpool.entrySet()) {
-            ThreadPoolManagerProperties.PoolProperties poolProperties = threadPoolEntry.getValue();
             try {
-                // 池的核心大小，即最小值
-                int corePoolSize = poolProperties.getCorePoolSize();
-                // 池的最大个数
-                int maximumPoolSize = poolProperties.getMaxPoolSize();
-                if (maximumPoolSize < corePoolSize) {
-                    maximumPoolSize = corePoolSize;
-                }
-                // 线程空闲时长(单位：秒)
-                int keepAliveTime = poolProperties.getKeepAliveTime();
-                if (keepAliveTime <= 0) {
-                    keepAliveTime = 120;
-                }
-                // 最大等待时长(单位：秒)
-                int waitTime = poolProperties.getWaitTime();
-                if (waitTime < 0) {
-                    waitTime = 45;
-                }
-                // 当拒绝时是否由调用者执行
-                boolean isCallerRuns = poolProperties.getIsCallerRuns();
-                // 创建线程池
-                ThreadPool pool = ThreadPoolManager.createThreadPool(
-                        threadPoolEntry.getKey(), corePoolSize, maximumPoolSize,
-                        keepAliveTime, waitTime, isCallerRuns);
-                threadPoolMap.put(threadPoolEntry.getKey(), pool);
+                threadPoolMap.put(threadPoolEntry.getKey(),
+                        createThreadPool(threadPoolEntry.getKey(), threadPoolEntry.getValue()));
                 logger.info("init the threadpool[" + threadPoolEntry.getKey() + "] end");
             } catch (Exception e) {
                 logger.error("init the threadpool failed, poolCode=" + threadPoolEntry.getKey(), e);
@@ -78,4 +106,248 @@ public class ThreadPoolConfiguration {
         }
         return threadPoolMap;
     }
+
+    /**
+     * 按配置创建线程池
+     *
+     * @param poolName       线程池名称
+     * @param poolProperties 线程池配置
+     * @return 线程池
+     */
+    AbstractThreadPool createThreadPool(String poolName, ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        // 工作窃取线程池
+        if (poolProperties.getType() == PoolType.FORK_JOIN) {
+            ForkJoinThreadPool pool = initForkJoinPool(poolName, poolProperties);
+            pool.setPropagateContext(poolProperties.isPropagateContext());
+            pool.setStuckTaskDetector(createStuckTaskDetector(pool, poolProperties));
+            return pool;
+        }
+        // 定时线程池
+        if (poolProperties.getType() == PoolType.SCHEDULED) {
+            ScheduledThreadPool pool = initScheduledPool(poolName, poolProperties);
+            pool.setPropagateContext(poolProperties.isPropagateContext());
+            pool.setStuckTaskDetector(createStuckTaskDetector(pool, poolProperties));
+            return pool;
+        }
+        // 池的核心大小，即最小值
+        int corePoolSize = poolProperties.getCorePoolSize();
+        // 池的最大个数
+        int maximumPoolSize = maximumPoolSize(poolProperties);
+        // 线程空闲时长(单位：秒)
+        int keepAliveTime = keepAliveTime(poolProperties);
+        // 最大等待时长(单位：秒)
+        int waitTime = waitTime(poolProperties);
+        // 当拒绝时是否由调用者执行
+        boolean isCallerRuns = poolProperties.getIsCallerRuns();
+        // 工作队列类型及容量
+        QueueType queueType = poolProperties.getQueueType();
+        if (queueType == null) {
+            queueType = QueueType.SYNCHRONOUS;
+        }
+        int queueCapacity = poolProperties.getQueueCapacity() == null
+                ? QueueType.DEFAULT_CAPACITY : poolProperties.getQueueCapacity();
+        if (queueType == QueueType.PRIORITY && corePoolSize < maximumPoolSize) {
+            // 优先级队列不限长度, 不会因队列满而扩容, 内核线程数按最大线程数创建
+            logger.warn("the threadpool[" + poolName + "] uses PRIORITY queue, corePoolSize " + corePoolSize
+                    + " is raised to maximumPoolSize " + maximumPoolSize);
+        } else if (queueType.isBuffered() && corePoolSize == 0) {
+            // 缓存队列只有在队列满时才会创建超过内核数的线程
+            logger.warn("the threadpool[" + poolName + "] uses " + queueType
+                    + " queue with corePoolSize 0, tasks will run on a single thread until the queue is full");
+        }
+        // 工作线程模式
+        ThreadMode threadMode = poolProperties.getMode() == null ? ThreadMode.PLATFORM : poolProperties.getMode();
+        // 创建线程池
+        ThreadPool pool = ThreadPoolManager.createThreadPool(
+                poolName, corePoolSize, maximumPoolSize,
+                keepAliveTime, waitTime, isCallerRuns, queueType, queueCapacity, threadMode);
+        // 自动调优
+        pool.setAutoTuner(createAutoTuner(pool, poolProperties));
+        // 公平分配
+        pool.setFairShare(createFairShare(poolProperties));
+        // 上下文传递
+        pool.setPropagateContext(poolProperties.isPropagateContext());
+        // 卡死任务检测
+        pool.setStuckTaskDetector(createStuckTaskDetector(pool, poolProperties));
+        return pool;
+    }
+
+    /**
+     * 按新配置调整已有线程池
+     * 只调整与上次生效的配置不同的参数: 自动调优或Actuator调整过的线程数在对应配置未变化时保留;
+     * 内核/最大线程数、空闲时长、等待时长、是否由调用者执行一次性生效, 自动调优、公平分配及卡死任务检测在各自配置变化时替换;
+     * 线程池类型、工作队列、线程模式不能在运行期间调整, 需要重启才能生效
+     *
+     * @param threadPool     线程池
+     * @param previous       上次生效的线程池配置, 未知时为null(全部按新配置调整)
+     * @param poolProperties 新的线程池配置
+     */
+    void updateThreadPool(AbstractThreadPool threadPool, ThreadPoolManagerProperties.PoolProperties previous,
+                          ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        String poolName = threadPool.getPoolName();
+        PoolType type = poolProperties.getType() == null ? PoolType.STANDARD : poolProperties.getType();
+        if (type != threadPool.getType()) {
+            logger.warn("the type of threadpool[" + poolName + "] can not be changed at runtime, restart to apply");
+            return;
+        }
+        if (previous == null || previous.isPropagateContext() != poolProperties.isPropagateContext()) {
+            threadPool.setPropagateContext(poolProperties.isPropagateContext());
+        }
+        StuckTaskDetector detector = createStuckTaskDetector(threadPool, poolProperties);
+        StuckTaskDetector currentDetector = threadPool.getStuckTaskDetector();
+        if (detector == null ? currentDetector != null : !detector.sameConfig(currentDetector)) {
+            threadPool.setStuckTaskDetector(detector);
+        }
+        if (threadPool instanceof ForkJoinThreadPool) {
+            int waitTime = waitTime(poolProperties);
+            if (previous == null || waitTime != waitTime(previous)) {
+                ((ForkJoinThreadPool) threadPool).setTimeOut(waitTime);
+            }
+            return;
+        }
+        if (threadPool instanceof ScheduledThreadPool) {
+            int corePoolSize = scheduledPoolSize(poolProperties);
+            if (previous == null || corePoolSize != scheduledPoolSize(previous)) {
+                ((ScheduledThreadPool) threadPool).setCorePoolSize(corePoolSize);
+                logger.info("the threadpool[" + poolName + "] reconfigured: core=" + corePoolSize);
+            }
+            return;
+        }
+        ThreadPool pool = (ThreadPool) threadPool;
+        QueueType queueType = poolProperties.getQueueType() == null ? QueueType.SYNCHRONOUS : poolProperties.getQueueType();
+        ThreadMode threadMode = ThreadMode.effective(poolProperties.getMode());
+        if (queueType != pool.getExecutor().getQueueType() || threadMode != pool.getThreadMode()) {
+            logger.warn("the queueType/mode of threadpool[" + poolName + "] can not be changed at runtime, restart to apply");
+        }
+        int corePoolSize = poolProperties.getCorePoolSize();
+        int maximumPoolSize = maximumPoolSize(poolProperties);
+        int keepAliveTime = keepAliveTime(poolProperties);
+        int waitTime = waitTime(poolProperties);
+        boolean isCallerRuns = poolProperties.getIsCallerRuns();
+        if (previous == null || corePoolSize != previous.getCorePoolSize() || maximumPoolSize != maximumPoolSize(previous)
+                || keepAliveTime != keepAliveTime(previous) || waitTime != waitTime(previous)
+                || isCallerRuns != previous.getIsCallerRuns()) {
+            pool.reconfigure(corePoolSize, maximumPoolSize, keepAliveTime, waitTime, isCallerRuns);
+            logger.info("the threadpool[" + poolName + "] reconfigured: core=" + corePoolSize + ", max="
+                    + maximumPoolSize + ", keepAlive=" + keepAliveTime + ", waitTime=" + waitTime
+                    + ", callerRuns=" + isCallerRuns);
+        }
+        // 调优器的上下限依赖最大线程数的配置, 配置不变时保留原调优器(及其执行时长基线)
+        ThreadPoolAutoTuner autoTuner = createAutoTuner(pool, poolProperties);
+        ThreadPoolAutoTuner currentTuner = pool.getAutoTuner();
+        if (autoTuner == null ? currentTuner != null : !autoTuner.sameConfig(currentTuner)) {
+            pool.setAutoTuner(autoTuner);
+        }
+        FairShare fairShare = createFairShare(poolProperties);
+        FairShare current = pool.getFairShare();
+        if (fairShare == null ? current != null : !fairShare.sameConfig(current)) {
+            pool.setFairShare(fairShare);
+        }
+    }
+
+    /**
+     * 初始化工作窃取线程池
+     */
+    private ForkJoinThreadPool initForkJoinPool(String poolName, ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        // 并行度, 未配置时取CPU核数
+        int parallelism = poolProperties.getParallelism() == null || poolProperties.getParallelism() <= 0
+                ? Runtime.getRuntime().availableProcessors() : poolProperties.getParallelism();
+        // 最大等待时长(单位：秒)
+        int waitTime = waitTime(poolProperties);
+        int queueCapacity = poolProperties.getQueueCapacity() == null
+                ? QueueType.DEFAULT_CAPACITY : poolProperties.getQueueCapacity();
+        if (Boolean.TRUE.equals(poolProperties.getIsCallerRuns())) {
+            logger.warn("the fork-join threadpool[" + poolName + "] does not support caller runs, tasks will be rejected");
+        }
+        ThreadPoolManagerProperties.AutoTuneProperties autoTune = poolProperties.getAutoTune();
+        if (autoTune != null && autoTune.isEnabled()) {
+            logger.warn("the fork-join threadpool[" + poolName + "] does not support auto tune, ignored");
+        }
+        ThreadPoolManagerProperties.FairShareProperties fairShare = poolProperties.getFairShare();
+        if (fairShare != null && fairShare.isEnabled()) {
+            logger.warn("the fork-join threadpool[" + poolName + "] does not support fair share, ignored");
+        }
+        return ThreadPoolManager.createForkJoinPool(poolName, parallelism, waitTime, queueCapacity);
+    }
+
+    /**
+     * 初始化定时线程池
+     */
+    private ScheduledThreadPool initScheduledPool(String poolName, ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        int queueCapacity = poolProperties.getQueueCapacity() == null ? 0 : poolProperties.getQueueCapacity();
+        if (Boolean.TRUE.equals(poolProperties.getIsCallerRuns())) {
+            logger.warn("the scheduled threadpool[" + poolName + "] does not support caller runs, tasks will be rejected");
+        }
+        ThreadPoolManagerProperties.AutoTuneProperties autoTune = poolProperties.getAutoTune();
+        if (autoTune != null && autoTune.isEnabled()) {
+            logger.warn("the scheduled threadpool[" + poolName + "] does not support auto tune, ignored");
+        }
+        ThreadPoolManagerProperties.FairShareProperties fairShare = poolProperties.getFairShare();
+        if (fairShare != null && fairShare.isEnabled()) {
+            logger.warn("the scheduled threadpool[" + poolName + "] does not support fair share, ignored");
+        }
+        return ThreadPoolManager.createScheduledPool(poolName, scheduledPoolSize(poolProperties), queueCapacity);
+    }
+
+    /**
+     * 自动调优器, 未开启时返回null
+     */
+    private ThreadPoolAutoTuner createAutoTuner(ThreadPool pool, ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        ThreadPoolManagerProperties.AutoTuneProperties autoTune = poolProperties.getAutoTune();
+        if (autoTune == null || !autoTune.isEnabled()) {
+            return null;
+        }
+        int maxLimit = autoTune.getMaxPoolSize() == null ? maximumPoolSize(poolProperties) * 2 : autoTune.getMaxPoolSize();
+        return new ThreadPoolAutoTuner(pool, autoTune.getMinPoolSize(), maxLimit,
+                autoTune.getInterval(), autoTune.getStep(), autoTune.getBackoffRatio(),
+                autoTune.getQueueWaitThreshold(), autoTune.getHighUtilization(),
+                autoTune.getLowUtilization(), autoTune.getIdleSamples());
+    }
+
+    /**
+     * 公平分配策略, 未开启时返回null
+     */
+    private FairShare createFairShare(ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        ThreadPoolManagerProperties.FairShareProperties fairShare = poolProperties.getFairShare();
+        if (fairShare == null || !fairShare.isEnabled()) {
+            return null;
+        }
+        return new FairShare(fairShare.getWeights(),
+                fairShare.getDefaultWeight() == null ? 1 : fairShare.getDefaultWeight());
+    }
+
+    /**
+     * 卡死任务检测器, 未开启时返回null
+     */
+    private StuckTaskDetector createStuckTaskDetector(AbstractThreadPool pool,
+                                                      ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        ThreadPoolManagerProperties.StuckTaskProperties stuckTask = poolProperties.getStuckTask();
+        if (stuckTask == null || !stuckTask.isEnabled()) {
+            return null;
+        }
+        return new StuckTaskDetector(pool, stuckTask.getThreshold(), stuckTask.getInterval(),
+                stuckTask.isInterrupt(), stuckTask.getStackDepth());
+    }
+
+    /**
+     * 定时线程池的线程数, 未配置时取1
+     */
+    private static int scheduledPoolSize(ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        Integer corePoolSize = poolProperties.getCorePoolSize();
+        return corePoolSize == null || corePoolSize <= 0 ? 1 : corePoolSize;
+    }
+
+    private static int maximumPoolSize(ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        return Math.max(poolProperties.getMaxPoolSize(), poolProperties.getCorePoolSize());
+    }
+
+    private static int keepAliveTime(ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        int keepAliveTime = poolProperties.getKeepAliveTime();
+        return keepAliveTime <= 0 ? 120 : keepAliveTime;
+    }
+
+    private static int waitTime(ThreadPoolManagerProperties.PoolProperties poolProperties) {
+        int waitTime = poolProperties.getWaitTime();
+        return waitTime < 0 ? 45 : waitTime;
+    }
 }
@@ -0,0 +1,36 @@
+package com.shaylee.threadpool.config;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.endpoint.ThreadPoolEndpoint;
+import com.shaylee.threadpool.manager.StaticsThreadPoolManager;
+import com.shaylee.threadpool.manager.ThreadPoolManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Title: 线程池Actuator端点配置(存在spring-boot-actuator时生效)
+ * 端点是否对外暴露由management.endpoints.web.exposure.include控制
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+@Configuration
+@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+public class ThreadPoolEndpointConfiguration {
+
+    @Bean
+    public ThreadPoolEndpoint threadPoolEndpoint(ThreadPoolManager threadPoolManager) {
+        return new ThreadPoolEndpoint(() -> {
+            Map<String, AbstractThreadPool> pools = new LinkedHashMap<>(StaticsThreadPoolManager.getAllPools());
+            if (threadPoolManager.getAllPools() != null) {
+                pools.putAll(threadPoolManager.getAllPools());
+            }
+            return pools;
+        });
+    }
+}
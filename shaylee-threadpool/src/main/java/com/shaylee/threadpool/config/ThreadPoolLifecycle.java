@@ -0,0 +1,132 @@
+package com.shaylee.threadpool.config;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.manager.StaticsThreadPoolManager;
+import com.shaylee.threadpool.properties.ThreadPoolManagerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: 线程池生命周期
+ * 功能说明： 应用停止时先停止所有线程池接收新任务(暂停中的线程池同时恢复以便排空), 再按各线程池的截止时长等待
+ * 排队及执行中的任务完成; 到期仍未完成的线程池记录未完成任务数后强制关闭, 尚未执行的Future任务被取消
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ThreadPoolLifecycle implements SmartLifecycle {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * 在Web容器停止接收请求之后停止
+     */
+    private static final int PHASE = Integer.MAX_VALUE - 2048;
+    /**
+     * 强制关闭后等待工作线程响应中断的时长(秒)
+     */
+    private static final long FORCE_TIMEOUT_SECONDS = 5;
+
+    private final Map<String, AbstractThreadPool> threadPools;
+    private final ThreadPoolManagerProperties properties;
+    private volatile boolean running;
+
+    public ThreadPoolLifecycle(Map<String, AbstractThreadPool> threadPools, ThreadPoolManagerProperties properties) {
+        this.threadPools = threadPools;
+        this.properties = properties;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Map<String, AbstractThreadPool> pools = new LinkedHashMap<>(StaticsThreadPoolManager.getAllPools());
+        if (threadPools != null) {
+            pools.putAll(threadPools);
+        }
+        // 先停止所有线程池的准入再统一等待, 总耗时为最长的截止时长而不是累加
+        for (AbstractThreadPool pool : pools.values()) {
+            pool.shutdown();
+        }
+        long begin = System.nanoTime();
+        for (Map.Entry<String, AbstractThreadPool> entry : pools.entrySet()) {
+            String poolName = entry.getKey();
+            AbstractThreadPool pool = entry.getValue();
+            long timeout = TimeUnit.SECONDS.toNanos(getShutdownTimeout(poolName));
+            try {
+                if (pool.awaitTermination(timeout - (System.nanoTime() - begin), TimeUnit.NANOSECONDS)) {
+                    logger.info("the threadpool[" + poolName + "] drained");
+                    continue;
+                }
+                forceShutdown(poolName, pool);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                forceShutdown(poolName, pool);
+            }
+        }
+    }
+
+    /**
+     * 强制关闭: 中断执行中的任务, 丢弃并取消排队中的任务
+     */
+    private void forceShutdown(String poolName, AbstractThreadPool pool) {
+        int active = pool.getActiveThread();
+        List<Runnable> dropped = pool.shutdownNow();
+        for (Runnable task : dropped) {
+            if (task instanceof Future) {
+                ((Future<?>) task).cancel(false);
+            }
+        }
+        logger.warn("the threadpool[" + poolName + "] was not drained in time, " + active
+                + " running tasks interrupted, " + dropped.size() + " queued tasks dropped");
+        try {
+            if (!pool.awaitTermination(FORCE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.error("the threadpool[" + poolName + "] did not terminate, "
+                        + pool.getActiveThread() + " tasks ignore interruption");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 线程池排空任务的截止时长(秒), 未单独配置时使用全局配置
+     */
+    private long getShutdownTimeout(String poolName) {
+        Map<String, ThreadPoolManagerProperties.PoolProperties> threadpool = properties.getThreadpool();
+        ThreadPoolManagerProperties.PoolProperties poolProperties = threadpool == null ? null : threadpool.get(poolName);
+        if (poolProperties != null && poolProperties.getShutdownTimeout() != null) {
+            return Math.max(0, poolProperties.getShutdownTimeout());
+        }
+        return properties.getShutdownTimeout() == null ? 30 : Math.max(0, properties.getShutdownTimeout());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
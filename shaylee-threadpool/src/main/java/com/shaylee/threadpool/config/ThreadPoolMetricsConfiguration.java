@@ -0,0 +1,58 @@
+package com.shaylee.threadpool.config;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.manager.StaticsThreadPoolManager;
+import com.shaylee.threadpool.manager.ThreadPoolManager;
+import com.shaylee.threadpool.metrics.ThreadPoolMeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Title: 线程池指标配置(存在Micrometer时生效)
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+@Configuration
+@ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+public class ThreadPoolMetricsConfiguration {
+
+    @Bean
+    public ThreadPoolMeterBinder threadPoolMeterBinder(ThreadPoolManager threadPoolManager) {
+        return new ThreadPoolMeterBinder(() -> {
+            Map<String, AbstractThreadPool> pools = new LinkedHashMap<>(StaticsThreadPoolManager.getAllPools());
+            if (threadPoolManager.getAllPools() != null) {
+                pools.putAll(threadPoolManager.getAllPools());
+            }
+            return pools;
+        });
+    }
+
+    /**
+     * 热更新新建/移除线程池时同步注册/注销指标
+     */
+    @Bean
+    public ApplicationListener<ThreadPoolRefreshedEvent> threadPoolMeterRefreshListener(
+            ThreadPoolMeterBinder threadPoolMeterBinder, ThreadPoolManager threadPoolManager) {
+        return new ApplicationListener<ThreadPoolRefreshedEvent>() {
+            @Override
+            public void onApplicationEvent(ThreadPoolRefreshedEvent event) {
+                for (String poolName : event.getRemovedPools()) {
+                    threadPoolMeterBinder.unbindPool(poolName);
+                }
+                for (String poolName : event.getCreatedPools()) {
+                    AbstractThreadPool pool = threadPoolManager.getAllPools().get(poolName);
+                    if (pool != null) {
+                        threadPoolMeterBinder.bindPool(pool);
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.shaylee.threadpool.config;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Title: 线程池热更新事件
+ * 功能说明： 热更新新建或移除了线程池后发布, 供指标等组件同步注册/注销
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ThreadPoolRefreshedEvent extends ApplicationEvent {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 新建的线程池名称
+     */
+    private final List<String> createdPools;
+    /**
+     * 移除的线程池名称
+     */
+    private final List<String> removedPools;
+
+    public ThreadPoolRefreshedEvent(Object source, List<String> createdPools, List<String> removedPools) {
+        super(source);
+        this.createdPools = Collections.unmodifiableList(createdPools);
+        this.removedPools = Collections.unmodifiableList(removedPools);
+    }
+
+    public List<String> getCreatedPools() {
+        return createdPools;
+    }
+
+    public List<String> getRemovedPools() {
+        return removedPools;
+    }
+}
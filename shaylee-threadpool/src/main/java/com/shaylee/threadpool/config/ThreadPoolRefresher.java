@@ -0,0 +1,210 @@
+package com.shaylee.threadpool.config;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.ShayleeThreadPoolExecutor;
+import com.shaylee.threadpool.properties.ThreadPoolManagerProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.boot.env.PropertySourceLoader;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title: 线程池热更新
+ * 功能说明： 收到变更了thread-manager配置的配置中心刷新事件(EnvironmentChangeEvent)或监听的配置文件被修改时, 重新绑定thread-manager配置:
+ * 已有线程池按与上次生效配置的差异一次性调整参数, 新增的线程池立即创建, 删除的线程池不再接收新任务并在执行完已接收的任务后关闭
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ThreadPoolRefresher implements ApplicationListener<ApplicationEvent>, InitializingBean, DisposableBean {
+    private Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * 配置中心刷新事件(spring-cloud-context), 按类名判断以免引入依赖
+     */
+    private static final String ENVIRONMENT_CHANGE_EVENT =
+            "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+    /**
+     * 配置前缀
+     */
+    private static final String PREFIX = "thread-manager";
+
+    private final ThreadPoolConfiguration configuration;
+    private final Map<String, AbstractThreadPool> threadPools;
+    private final ThreadPoolManagerProperties.RefreshProperties refreshProperties;
+    private final Environment environment;
+    private final ApplicationEventPublisher publisher;
+    /**
+     * 各线程池上次生效的配置
+     */
+    private final Map<String, ThreadPoolManagerProperties.PoolProperties> appliedProperties = new HashMap<>();
+    /**
+     * 配置文件监听线程, 未配置文件时为null
+     */
+    private ScheduledExecutorService watcher;
+    /**
+     * 配置文件最后修改时间
+     */
+    private long lastModified;
+
+    public ThreadPoolRefresher(ThreadPoolConfiguration configuration, Map<String, AbstractThreadPool> threadPools,
+                               ThreadPoolManagerProperties properties, Environment environment,
+                               ApplicationEventPublisher publisher) {
+        this.configuration = configuration;
+        this.threadPools = threadPools;
+        this.refreshProperties = properties == null || properties.getRefresh() == null
+                ? new ThreadPoolManagerProperties.RefreshProperties() : properties.getRefresh();
+        this.environment = environment;
+        this.publisher = publisher;
+        if (properties != null && properties.getThreadpool() != null) {
+            appliedProperties.putAll(properties.getThreadpool());
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        String file = refreshProperties.getFile();
+        if (!refreshProperties.isEnabled() || file == null || file.isEmpty()) {
+            return;
+        }
+        File configFile = new File(file);
+        lastModified = configFile.lastModified();
+        long interval = refreshProperties.getInterval() == null || refreshProperties.getInterval() <= 0
+                ? 5 : refreshProperties.getInterval();
+        watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, ShayleeThreadPoolExecutor.POOL_NAME_PREFIX + "-config-watcher");
+            t.setDaemon(true);
+            return t;
+        });
+        watcher.scheduleWithFixedDelay(() -> checkFile(configFile), interval, interval, TimeUnit.SECONDS);
+        logger.info("watching the threadpool config file " + configFile.getAbsolutePath());
+    }
+
+    @Override
+    public void destroy() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (refreshProperties.isEnabled() && ENVIRONMENT_CHANGE_EVENT.equals(event.getClass().getName())
+                && containsPoolKeys(event)) {
+            refresh(Binder.get(environment).bind(PREFIX, ThreadPoolManagerProperties.class).orElse(null));
+        }
+    }
+
+    /**
+     * 刷新事件变更的配置项是否包含thread-manager配置; 无法取得变更项时按包含处理
+     */
+    private static boolean containsPoolKeys(ApplicationEvent event) {
+        Object keys;
+        try {
+            keys = event.getClass().getMethod("getKeys").invoke(event);
+        } catch (ReflectiveOperationException e) {
+            return true;
+        }
+        if (!(keys instanceof Collection)) {
+            return true;
+        }
+        for (Object key : (Collection<?>) keys) {
+            // 环境变量形式为THREAD_MANAGER_XXX
+            String name = String.valueOf(key).toLowerCase();
+            if (name.startsWith(PREFIX + ".") || name.startsWith(PREFIX.replace('-', '_') + "_")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 配置文件被修改时重新加载
+     */
+    private void checkFile(File configFile) {
+        try {
+            long modified = configFile.lastModified();
+            if (modified == 0 || modified == lastModified) {
+                return;
+            }
+            lastModified = modified;
+            String name = configFile.getName();
+            PropertySourceLoader loader = name.endsWith(".yml") || name.endsWith(".yaml")
+                    ? new YamlPropertySourceLoader() : new PropertiesPropertySourceLoader();
+            List<PropertySource<?>> sources = loader.load(name, new FileSystemResource(configFile));
+            Binder binder = new Binder(ConfigurationPropertySources.from(sources));
+            refresh(binder.bind(PREFIX, ThreadPoolManagerProperties.class).orElse(null));
+        } catch (Exception e) {
+            logger.error("reload the threadpool config file failed, file=" + configFile, e);
+        }
+    }
+
+    /**
+     * 按新配置刷新线程池
+     * 新配置中没有线程池列表时不做任何调整, 避免配置读取异常时误关闭所有线程池
+     *
+     * @param properties 新配置
+     */
+    public synchronized void refresh(ThreadPoolManagerProperties properties) {
+        Map<String, ThreadPoolManagerProperties.PoolProperties> threadpool =
+                properties == null ? null : properties.getThreadpool();
+        if (threadpool == null || threadpool.isEmpty()) {
+            logger.warn("no thread pool config found in the refreshed config, ignored");
+            return;
+        }
+        List<String> created = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, ThreadPoolManagerProperties.PoolProperties> entry : threadpool.entrySet()) {
+            String poolName = entry.getKey();
+            try {
+                AbstractThreadPool pool = threadPools.get(poolName);
+                if (pool == null) {
+                    threadPools.put(poolName, configuration.createThreadPool(poolName, entry.getValue()));
+                    created.add(poolName);
+                    logger.info("create the threadpool[" + poolName + "] on refresh");
+                } else {
+                    configuration.updateThreadPool(pool, appliedProperties.get(poolName), entry.getValue());
+                }
+                appliedProperties.put(poolName, entry.getValue());
+            } catch (Exception e) {
+                logger.error("refresh the threadpool failed, poolCode=" + poolName, e);
+            }
+        }
+        for (String poolName : new ArrayList<>(threadPools.keySet())) {
+            if (!threadpool.containsKey(poolName)) {
+                AbstractThreadPool pool = threadPools.remove(poolName);
+                appliedProperties.remove(poolName);
+                // 不再接收新任务, 已接收的任务执行完后线程池关闭
+                pool.shutdown();
+                removed.add(poolName);
+                logger.info("remove the threadpool[" + poolName + "] on refresh, draining "
+                        + (pool.getActiveThread() + pool.getQueueSize()) + " tasks");
+            }
+        }
+        if (!created.isEmpty() || !removed.isEmpty()) {
+            publisher.publishEvent(new ThreadPoolRefreshedEvent(this, created, removed));
+        }
+    }
+}
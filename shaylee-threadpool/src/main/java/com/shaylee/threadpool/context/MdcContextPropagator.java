@@ -0,0 +1,42 @@
+package com.shaylee.threadpool.context;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+
+/**
+ * SLF4J MDC上下文传递(链路ID等通常保存在MDC中)
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class MdcContextPropagator implements TaskContextPropagator {
+
+    @Override
+    public Object capture() {
+        return MDC.getCopyOfContextMap();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object restore(Object captured) {
+        Map<String, String> backup = MDC.getCopyOfContextMap();
+        set((Map<String, String>) captured);
+        return backup;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void reset(Object backup) {
+        set((Map<String, String>) backup);
+    }
+
+    private static void set(Map<String, String> context) {
+        if (context == null || context.isEmpty()) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.shaylee.threadpool.context;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Spring RequestContextHolder上下文传递
+ * 注意: 请求结束后请求属性即失效, 异步任务只应在请求处理期间读取
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class RequestContextPropagator implements TaskContextPropagator {
+
+    @Override
+    public Object capture() {
+        return RequestContextHolder.getRequestAttributes();
+    }
+
+    @Override
+    public Object restore(Object captured) {
+        RequestAttributes backup = RequestContextHolder.getRequestAttributes();
+        set((RequestAttributes) captured);
+        return backup;
+    }
+
+    @Override
+    public void reset(Object backup) {
+        set((RequestAttributes) backup);
+    }
+
+    private static void set(RequestAttributes attributes) {
+        if (attributes == null) {
+            RequestContextHolder.resetRequestAttributes();
+        } else {
+            RequestContextHolder.setRequestAttributes(attributes);
+        }
+    }
+}
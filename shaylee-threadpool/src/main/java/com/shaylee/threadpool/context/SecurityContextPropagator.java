@@ -0,0 +1,41 @@
+package com.shaylee.threadpool.context;
+
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Spring SecurityContextHolder上下文传递
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class SecurityContextPropagator implements TaskContextPropagator {
+
+    @Override
+    public Object capture() {
+        SecurityContext context = SecurityContextHolder.getContext();
+        // 未登录时不传递, 执行时清空即可
+        return context.getAuthentication() == null ? null : context;
+    }
+
+    @Override
+    public Object restore(Object captured) {
+        SecurityContext backup = SecurityContextHolder.getContext();
+        set((SecurityContext) captured);
+        return backup.getAuthentication() == null ? null : backup;
+    }
+
+    @Override
+    public void reset(Object backup) {
+        set((SecurityContext) backup);
+    }
+
+    private static void set(SecurityContext context) {
+        if (context == null) {
+            SecurityContextHolder.clearContext();
+        } else {
+            SecurityContextHolder.setContext(context);
+        }
+    }
+}
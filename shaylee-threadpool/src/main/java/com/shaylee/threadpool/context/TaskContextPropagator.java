@@ -0,0 +1,36 @@
+package com.shaylee.threadpool.context;
+
+/**
+ * 任务上下文传递扩展点
+ * 功能说明： 提交任务时在调用者线程捕获线程上下文(MDC、链路、安全、租户等), 工作线程执行任务前恢复,
+ * 执行结束后在finally中还原为工作线程原来的上下文;
+ * 自定义实现可通过 ThreadPoolContexts.register、Spring Bean 或 META-INF/services 注册
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public interface TaskContextPropagator {
+
+    /**
+     * 在提交任务的线程捕获上下文
+     *
+     * @return 捕获的上下文, 可为null
+     */
+    Object capture();
+
+    /**
+     * 在工作线程执行任务前恢复捕获的上下文
+     *
+     * @param captured 捕获的上下文
+     * @return 工作线程原来的上下文, 任务结束后传给reset
+     */
+    Object restore(Object captured);
+
+    /**
+     * 任务结束后还原工作线程原来的上下文
+     *
+     * @param backup restore返回的原上下文
+     */
+    void reset(Object backup);
+}
@@ -0,0 +1,155 @@
+package com.shaylee.threadpool.context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.ServiceLoader;
+
+/**
+ * 任务上下文传递注册表
+ * 功能说明： 内置SLF4J MDC, 存在spring-web时传递RequestContextHolder, 存在spring-security时传递SecurityContextHolder;
+ * 每个任务只分配一个数组: 提交时保存捕获的上下文, 恢复后原地替换为工作线程原来的上下文供还原使用
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public final class ThreadPoolContexts {
+    private static Logger logger = LoggerFactory.getLogger(ThreadPoolContexts.class);
+
+    /**
+     * 已注册的上下文传递器(写时复制, 读取无锁)
+     */
+    private static volatile TaskContextPropagator[] propagators = new TaskContextPropagator[0];
+    /**
+     * 尚未恢复(或恢复失败)的位置标记, 还原时跳过
+     */
+    private static final Object NOT_RESTORED = new Object();
+
+    static {
+        register(new MdcContextPropagator());
+        if (isPresent("org.springframework.web.context.request.RequestContextHolder")) {
+            register(new RequestContextPropagator());
+        }
+        if (isPresent("org.springframework.security.core.context.SecurityContextHolder")) {
+            register(new SecurityContextPropagator());
+        }
+        for (TaskContextPropagator propagator : ServiceLoader.load(TaskContextPropagator.class)) {
+            register(propagator);
+        }
+    }
+
+    private ThreadPoolContexts() {
+    }
+
+    /**
+     * 注册上下文传递器, 同一类型只注册一次
+     *
+     * @param propagator 上下文传递器
+     */
+    public static synchronized void register(TaskContextPropagator propagator) {
+        TaskContextPropagator[] current = propagators;
+        for (TaskContextPropagator p : current) {
+            if (p.getClass() == propagator.getClass()) {
+                return;
+            }
+        }
+        TaskContextPropagator[] updated = new TaskContextPropagator[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = propagator;
+        propagators = updated;
+        logger.info("register task context propagator " + propagator.getClass().getName());
+    }
+
+    /**
+     * 注销上下文传递器
+     *
+     * @param type 上下文传递器类型
+     */
+    public static synchronized void unregister(Class<? extends TaskContextPropagator> type) {
+        TaskContextPropagator[] current = propagators;
+        int n = 0;
+        TaskContextPropagator[] updated = new TaskContextPropagator[current.length];
+        for (TaskContextPropagator p : current) {
+            if (p.getClass() != type) {
+                updated[n++] = p;
+            }
+        }
+        TaskContextPropagator[] trimmed = new TaskContextPropagator[n];
+        System.arraycopy(updated, 0, trimmed, 0, n);
+        propagators = trimmed;
+    }
+
+    /**
+     * 在提交任务的线程捕获所有上下文
+     *
+     * @return 捕获的上下文, 没有注册传递器时返回null
+     */
+    public static Object[] capture() {
+        TaskContextPropagator[] ps = propagators;
+        if (ps.length == 0) {
+            return null;
+        }
+        Object[] contexts = new Object[ps.length + 1];
+        // 最后一位保存捕获时的传递器, 避免执行前注册/注销导致错位
+        contexts[ps.length] = ps;
+        for (int i = 0; i < ps.length; i++) {
+            contexts[i] = ps[i].capture();
+        }
+        return contexts;
+    }
+
+    /**
+     * 在工作线程恢复捕获的上下文, 原地替换为工作线程原来的上下文
+     * 恢复前先标记为未恢复, 中途失败时reset只还原已恢复的上下文, 不会把捕获的上下文留在工作线程
+     *
+     * @param contexts capture返回的上下文
+     */
+    public static void restore(Object[] contexts) {
+        if (contexts == null) {
+            return;
+        }
+        TaskContextPropagator[] ps = (TaskContextPropagator[]) contexts[contexts.length - 1];
+        int i = 0;
+        try {
+            for (; i < ps.length; i++) {
+                contexts[i] = ps[i].restore(contexts[i]);
+            }
+        } catch (RuntimeException | Error e) {
+            Arrays.fill(contexts, i, ps.length, NOT_RESTORED);
+            throw e;
+        }
+    }
+
+    /**
+     * 任务结束后按相反顺序还原工作线程原来的上下文, 单个传递器失败不影响其它传递器
+     *
+     * @param contexts restore替换后的上下文
+     */
+    public static void reset(Object[] contexts) {
+        if (contexts == null) {
+            return;
+        }
+        TaskContextPropagator[] ps = (TaskContextPropagator[]) contexts[contexts.length - 1];
+        for (int i = ps.length - 1; i >= 0; i--) {
+            if (contexts[i] == NOT_RESTORED) {
+                continue;
+            }
+            try {
+                ps[i].reset(contexts[i]);
+            } catch (RuntimeException e) {
+                logger.error("reset the task context failed, propagator=" + ps[i].getClass().getName(), e);
+            }
+        }
+    }
+
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className, false, ThreadPoolContexts.class.getClassLoader());
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.shaylee.threadpool.endpoint;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.ScheduledThreadPool;
+import com.shaylee.threadpool.ThreadPool;
+import com.shaylee.threadpool.ThreadStack;
+import com.shaylee.threadpool.metrics.ThreadPoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Title: 线程池Actuator端点
+ * 功能说明： GET /actuator/threadpools 列出所有线程池的实时统计及时长分位数;
+ * GET /actuator/threadpools/{name} 查看单个线程池的配置、统计、各键拒绝数及卡死任务;
+ * GET /actuator/threadpools/{name}/stacks 多次采样繁忙工作线程的堆栈并按堆栈归并计数;
+ * POST /actuator/threadpools/{name} 暂停(pause)、恢复(resume)、调整线程数(resize)
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+@Endpoint(id = "threadpools")
+public class ThreadPoolEndpoint {
+    private static Logger logger = LoggerFactory.getLogger(ThreadPoolEndpoint.class);
+
+    /**
+     * 默认采样次数
+     */
+    static final int DEFAULT_SAMPLES = 10;
+    /**
+     * 最大采样次数
+     */
+    static final int MAX_SAMPLES = 100;
+    /**
+     * 默认采样间隔(毫秒)
+     */
+    static final long DEFAULT_INTERVAL_MILLIS = 100;
+    /**
+     * 最大采样间隔(毫秒)
+     */
+    static final long MAX_INTERVAL_MILLIS = 1000;
+
+    /**
+     * 空闲工作线程的堆栈特征: 在工作队列或工作窃取线程池中等待任务
+     */
+    private static final String[] IDLE_FRAMES = {
+            "java.util.concurrent.ThreadPoolExecutor.getTask(",
+            "java.util.concurrent.ForkJoinPool.awaitWork("
+    };
+
+    private final Supplier<Map<String, AbstractThreadPool>> poolsSupplier;
+
+    /**
+     * 构造
+     *
+     * @param poolsSupplier 线程池来源(动态, 热更新增删的线程池随之变化)
+     */
+    public ThreadPoolEndpoint(Supplier<Map<String, AbstractThreadPool>> poolsSupplier) {
+        this.poolsSupplier = poolsSupplier;
+    }
+
+    /**
+     * 所有线程池的统计快照
+     *
+     * @return 线程池名 -> 统计快照
+     */
+    @ReadOperation
+    public Map<String, ThreadPoolStats> threadPools() {
+        Map<String, ThreadPoolStats> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, AbstractThreadPool> entry : poolsSupplier.get().entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 单个线程池的配置及统计
+     *
+     * @param name 线程池名
+     * @return 线程池详情
+     */
+    @ReadOperation
+    public Map<String, Object> threadPool(@Selector String name) {
+        AbstractThreadPool pool = getThreadPool(name);
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("type", pool.getType());
+        detail.put("mode", pool.getThreadMode());
+        detail.put("waitTime", pool.getTimeOut());
+        detail.put("callerRuns", pool.isCallerRuns());
+        detail.put("propagateContext", pool.isPropagateContext());
+        if (pool instanceof ThreadPool) {
+            ThreadPool threadPool = (ThreadPool) pool;
+            detail.put("keepAliveTime", threadPool.getKeepAliveTime());
+            detail.put("autoTune", threadPool.getAutoTuner() != null);
+            detail.put("fairShare", threadPool.getFairShare() == null ? null : threadPool.getFairShare().getWeights());
+            detail.put("keyRejectedTimes", threadPool.getKeyRejectedTimes());
+        }
+        detail.put("stats", pool.getStats());
+        detail.put("stuckTasks", pool.getStuckTasks());
+        return detail;
+    }
+
+    /**
+     * 采样繁忙工作线程的堆栈, 相同堆栈归并并按出现次数倒序排列
+     *
+     * @param name           线程池名
+     * @param view           视图, 目前只支持stacks
+     * @param samples        采样次数, 默认10, 最多100
+     * @param intervalMillis 采样间隔(毫秒), 默认100, 最多1000
+     * @return 归并后的堆栈
+     */
+    @ReadOperation
+    public Map<String, Object> sampleStacks(@Selector String name, @Selector String view,
+                                            @Nullable Integer samples, @Nullable Long intervalMillis) {
+        if (!"stacks".equals(view)) {
+            throw new InvalidEndpointRequestException("Unknown view: " + view, "Unknown view: " + view);
+        }
+        AbstractThreadPool pool = getThreadPool(name);
+        int count = samples == null || samples <= 0 ? DEFAULT_SAMPLES : Math.min(samples, MAX_SAMPLES);
+        long interval = intervalMillis == null || intervalMillis < 0
+                ? DEFAULT_INTERVAL_MILLIS : Math.min(intervalMillis, MAX_INTERVAL_MILLIS);
+        Map<String, StackSample> merged = new LinkedHashMap<>();
+        int busySamples = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && interval > 0) {
+                try {
+                    Thread.sleep(interval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            for (ThreadStack stack : pool.getAllThreadStacks()) {
+                if (isIdle(stack)) {
+                    continue;
+                }
+                busySamples++;
+                merged.computeIfAbsent(stack.getStack(), StackSample::new).add(stack);
+            }
+        }
+        List<StackSample> stacks = new ArrayList<>(merged.values());
+        stacks.sort((a, b) -> Integer.compare(b.getCount(), a.getCount()));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("samples", count);
+        result.put("intervalMillis", interval);
+        result.put("busySamples", busySamples);
+        result.put("stacks", stacks);
+        return result;
+    }
+
+    /**
+     * 管理操作
+     *
+     * @param name            线程池名
+     * @param action          pause、resume、resize
+     * @param corePoolSize    resize时的内核线程数, 为空时不变
+     * @param maximumPoolSize resize时的最大线程数, 为空时不变
+     * @return 操作后的统计快照
+     */
+    @WriteOperation
+    public ThreadPoolStats operate(@Selector String name, String action,
+                                   @Nullable Integer corePoolSize, @Nullable Integer maximumPoolSize) {
+        AbstractThreadPool pool = getThreadPool(name);
+        try {
+            if ("pause".equals(action)) {
+                pool.pause();
+            } else if ("resume".equals(action)) {
+                pool.resume();
+            } else if ("resize".equals(action)) {
+                resize(pool, corePoolSize, maximumPoolSize);
+            } else {
+                throw new InvalidEndpointRequestException("Unknown action: " + action, "Unknown action: " + action);
+            }
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+        logger.warn("the threadpool[{}] {} by actuator, core={}, max={}", name, action,
+                pool.getCorePoolSize(), pool.getMaximumPoolSize());
+        return pool.getStats();
+    }
+
+    /**
+     * 调整线程数, 开启自动调优或热更新时, 之后的调优及配置刷新会覆盖手工调整;
+     * 定时线程池只能调整内核线程数, 工作窃取线程池的并行度不能调整
+     */
+    private void resize(AbstractThreadPool pool, Integer corePoolSize, Integer maximumPoolSize) {
+        if (pool instanceof ScheduledThreadPool) {
+            int core = corePoolSize == null ? pool.getCorePoolSize() : corePoolSize;
+            if (core <= 0 || (maximumPoolSize != null && maximumPoolSize != core)) {
+                throw new IllegalArgumentException("Invalid pool size of the scheduled pool: core=" + core
+                        + ", max=" + maximumPoolSize);
+            }
+            ((ScheduledThreadPool) pool).setCorePoolSize(core);
+            return;
+        }
+        if (!(pool instanceof ThreadPool)) {
+            throw new IllegalArgumentException("The " + pool.getType() + " threadpool can not be resized");
+        }
+        ThreadPool threadPool = (ThreadPool) pool;
+        int core = corePoolSize == null ? threadPool.getCorePoolSize() : corePoolSize;
+        int max = maximumPoolSize == null ? threadPool.getMaximumPoolSize() : maximumPoolSize;
+        if (core < 0 || max <= 0 || core > max) {
+            throw new IllegalArgumentException("Invalid pool size: core=" + core + ", max=" + max);
+        }
+        if (threadPool.getAutoTuner() != null) {
+            logger.warn("the threadpool[{}] is auto tuned, the manual resize may be overridden", threadPool.getPoolName());
+        }
+        if (max == threadPool.getMaximumPoolSize()) {
+            threadPool.setCorePoolSize(core);
+        } else {
+            threadPool.setPoolSize(core, max);
+        }
+    }
+
+    private AbstractThreadPool getThreadPool(String name) {
+        AbstractThreadPool pool = poolsSupplier.get().get(name);
+        if (pool == null) {
+            throw new InvalidEndpointRequestException("Unknown threadpool: " + name, "Unknown threadpool: " + name);
+        }
+        return pool;
+    }
+
+    private static boolean isIdle(ThreadStack stack) {
+        String frames = stack.getStack();
+        if (frames == null) {
+            return true;
+        }
+        for (String idle : IDLE_FRAMES) {
+            if (frames.contains(idle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 归并后的堆栈
+     */
+    public static class StackSample {
+        private final String stack;
+        private final TreeSet<String> threads = new TreeSet<>();
+        private final TreeSet<String> states = new TreeSet<>();
+        private int count;
+
+        StackSample(String stack) {
+            this.stack = stack;
+        }
+
+        void add(ThreadStack threadStack) {
+            count++;
+            threads.add(threadStack.getName());
+            if (threadStack.getState() != null) {
+                states.add(threadStack.getState());
+            }
+        }
+
+        public String getStack() {
+            return stack;
+        }
+
+        public TreeSet<String> getThreads() {
+            return threads;
+        }
+
+        public TreeSet<String> getStates() {
+            return states;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+}
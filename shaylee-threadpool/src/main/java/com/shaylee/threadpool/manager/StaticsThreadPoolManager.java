@@ -1,5 +1,10 @@
 package com.shaylee.threadpool.manager;
 
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.ForkJoinThreadPool;
+import com.shaylee.threadpool.QueueType;
+import com.shaylee.threadpool.ScheduledThreadPool;
+import com.shaylee.threadpool.ThreadMode;
 import com.shaylee.threadpool.ThreadPool;
 
 import java.util.Map;
@@ -14,7 +19,9 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class StaticsThreadPoolManager {
 
-    private static Map<String, ThreadPool> threadPools = new ConcurrentHashMap<>();
+    private static Map<String, AbstractThreadPool> threadPools = new ConcurrentHashMap<>();
+
+    private static Map<String, ThreadPool> standardPools = ThreadPoolManager.standardPools(threadPools);
 
     /**
      * 创建线程池
@@ -35,21 +42,123 @@ public class StaticsThreadPoolManager {
     }
 
     /**
-     * 根据线程池名称获取线程池
+     * 创建线程池
      *
-     * @param poolName 线程池名称
+     * @param poolName        线程池名称
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 繁忙时最大线程数
+     * @param keepAliveTime   线程空闲自动退出时长（秒）
+     * @param waitTime        等待超时时长（秒）
+     * @param queueType       工作队列类型
+     * @param queueCapacity   工作队列容量
+     * @return 线程池
+     */
+    public static ThreadPool createThreadPool(String poolName, int corePoolSize, int maximumPoolSize,
+                                              long keepAliveTime, long waitTime, boolean isCallerRuns,
+                                              QueueType queueType, int queueCapacity) {
+        return createThreadPool(poolName, corePoolSize, maximumPoolSize, keepAliveTime, waitTime,
+                isCallerRuns, queueType, queueCapacity, ThreadMode.PLATFORM);
+    }
+
+    /**
+     * 创建线程池
+     *
+     * @param poolName        线程池名称
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 繁忙时最大线程数(虚拟线程模式下即最大并发数)
+     * @param keepAliveTime   线程空闲自动退出时长（秒）
+     * @param waitTime        等待超时时长（秒）
+     * @param queueType       工作队列类型
+     * @param queueCapacity   工作队列容量
+     * @param threadMode      工作线程模式
+     * @return 线程池
+     */
+    public static ThreadPool createThreadPool(String poolName, int corePoolSize, int maximumPoolSize,
+                                              long keepAliveTime, long waitTime, boolean isCallerRuns,
+                                              QueueType queueType, int queueCapacity, ThreadMode threadMode) {
+        ThreadPool threadPool = new ThreadPool(poolName, corePoolSize, maximumPoolSize,
+                keepAliveTime, waitTime, isCallerRuns, queueType, queueCapacity, threadMode);
+        threadPools.put(poolName, threadPool);
+        return threadPool;
+    }
+
+    /**
+     * 创建工作窃取线程池
+     *
+     * @param poolName      线程池名称
+     * @param parallelism   并行度
+     * @param waitTime      等待超时时长（秒）
+     * @param queueCapacity 排队任务数上限
      * @return 线程池
      */
+    public static ForkJoinThreadPool createForkJoinPool(String poolName, int parallelism, long waitTime,
+                                                        int queueCapacity) {
+        ForkJoinThreadPool threadPool = new ForkJoinThreadPool(poolName, parallelism, waitTime, queueCapacity);
+        threadPools.put(poolName, threadPool);
+        return threadPool;
+    }
+
+    /**
+     * 创建定时线程池
+     *
+     * @param poolName      线程池名称
+     * @param corePoolSize  线程数
+     * @param queueCapacity 排队任务数上限
+     * @return 线程池
+     */
+    public static ScheduledThreadPool createScheduledPool(String poolName, int corePoolSize, int queueCapacity) {
+        ScheduledThreadPool threadPool = new ScheduledThreadPool(poolName, corePoolSize, queueCapacity);
+        threadPools.put(poolName, threadPool);
+        return threadPool;
+    }
+
+    /**
+     * 根据线程池名称获取标准线程池
+     *
+     * @param poolName 线程池名称
+     * @return 线程池, 不存在或不是标准线程池时返回null
+     */
     public static ThreadPool getThreadPool(String poolName) {
-        return threadPools.get(poolName);
+        return standardPools.get(poolName);
     }
 
     /**
-     * 获取所有线程池
+     * 根据线程池名称获取工作窃取线程池
      *
-     * @return 线程池Map容器
+     * @param poolName 线程池名称
+     * @return 线程池, 不存在或不是工作窃取线程池时返回null
+     */
+    public static ForkJoinThreadPool getForkJoinPool(String poolName) {
+        AbstractThreadPool threadPool = threadPools.get(poolName);
+        return threadPool instanceof ForkJoinThreadPool ? (ForkJoinThreadPool) threadPool : null;
+    }
+
+    /**
+     * 根据线程池名称获取定时线程池
+     *
+     * @param poolName 线程池名称
+     * @return 线程池, 不存在或不是定时线程池时返回null
+     */
+    public static ScheduledThreadPool getScheduledPool(String poolName) {
+        AbstractThreadPool threadPool = threadPools.get(poolName);
+        return threadPool instanceof ScheduledThreadPool ? (ScheduledThreadPool) threadPool : null;
+    }
+
+    /**
+     * 获取所有标准线程池
+     *
+     * @return 标准线程池Map容器
      */
     public static Map<String, ThreadPool> getThreadPools() {
+        return standardPools;
+    }
+
+    /**
+     * 获取所有类型的线程池
+     *
+     * @return 线程池Map容器
+     */
+    public static Map<String, AbstractThreadPool> getAllPools() {
         return threadPools;
     }
 
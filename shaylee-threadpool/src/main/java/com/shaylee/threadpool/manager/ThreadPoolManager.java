@@ -1,5 +1,11 @@
 package com.shaylee.threadpool.manager;
 
+import com.google.common.collect.Maps;
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.ForkJoinThreadPool;
+import com.shaylee.threadpool.QueueType;
+import com.shaylee.threadpool.ScheduledThreadPool;
+import com.shaylee.threadpool.ThreadMode;
 import com.shaylee.threadpool.ThreadPool;
 import org.springframework.stereotype.Component;
 
@@ -21,6 +27,9 @@ public class ThreadPoolManager {
     @Resource(name = "threadPools")
     private Map<String, ThreadPool> threadPools;
 
+    @Resource(name = "allThreadPools")
+    private Map<String, AbstractThreadPool> allThreadPools;
+
     /**
      * 创建线程池
      *
@@ -38,21 +47,128 @@ public class ThreadPoolManager {
     }
 
     /**
-     * 根据线程池名称获取线程池
+     * 创建线程池
      *
-     * @param poolName 线程池名称
+     * @param poolName        线程池名称
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 繁忙时最大线程数
+     * @param keepAliveTime   线程空闲自动退出时长（秒）
+     * @param waitTime        等待超时时长（秒）
+     * @param queueType       工作队列类型
+     * @param queueCapacity   工作队列容量
+     * @return 线程池
+     */
+    public static ThreadPool createThreadPool(String poolName, int corePoolSize, int maximumPoolSize,
+                                              long keepAliveTime, long waitTime, boolean isCallerRuns,
+                                              QueueType queueType, int queueCapacity) {
+        return createThreadPool(poolName, corePoolSize, maximumPoolSize, keepAliveTime, waitTime,
+                isCallerRuns, queueType, queueCapacity, ThreadMode.PLATFORM);
+    }
+
+    /**
+     * 创建线程池
+     *
+     * @param poolName        线程池名称
+     * @param corePoolSize    内核线程数
+     * @param maximumPoolSize 繁忙时最大线程数(虚拟线程模式下即最大并发数)
+     * @param keepAliveTime   线程空闲自动退出时长（秒）
+     * @param waitTime        等待超时时长（秒）
+     * @param queueType       工作队列类型
+     * @param queueCapacity   工作队列容量
+     * @param threadMode      工作线程模式
+     * @return 线程池
+     */
+    public static ThreadPool createThreadPool(String poolName, int corePoolSize, int maximumPoolSize,
+                                              long keepAliveTime, long waitTime, boolean isCallerRuns,
+                                              QueueType queueType, int queueCapacity, ThreadMode threadMode) {
+        return new ThreadPool(poolName, corePoolSize, maximumPoolSize,
+                keepAliveTime, waitTime, isCallerRuns, queueType, queueCapacity, threadMode);
+    }
+
+    /**
+     * 创建工作窃取线程池
+     *
+     * @param poolName      线程池名称
+     * @param parallelism   并行度
+     * @param waitTime      等待超时时长（秒）
+     * @param queueCapacity 排队任务数上限
+     * @return 线程池
+     */
+    public static ForkJoinThreadPool createForkJoinPool(String poolName, int parallelism, long waitTime,
+                                                        int queueCapacity) {
+        return new ForkJoinThreadPool(poolName, parallelism, waitTime, queueCapacity);
+    }
+
+    /**
+     * 创建定时线程池
+     *
+     * @param poolName      线程池名称
+     * @param corePoolSize  线程数
+     * @param queueCapacity 排队任务数上限
      * @return 线程池
      */
+    public static ScheduledThreadPool createScheduledPool(String poolName, int corePoolSize, int queueCapacity) {
+        return new ScheduledThreadPool(poolName, corePoolSize, queueCapacity);
+    }
+
+    /**
+     * 根据线程池名称获取标准线程池
+     *
+     * @param poolName 线程池名称
+     * @return 线程池, 不存在或不是标准线程池时返回null
+     */
     public ThreadPool getThreadPool(String poolName) {
         return threadPools.get(poolName);
     }
 
     /**
-     * 获取所有线程池
+     * 根据线程池名称获取工作窃取线程池
      *
-     * @return 线程池Map容器
+     * @param poolName 线程池名称
+     * @return 线程池, 不存在或不是工作窃取线程池时返回null
+     */
+    public ForkJoinThreadPool getForkJoinPool(String poolName) {
+        AbstractThreadPool threadPool = allThreadPools.get(poolName);
+        return threadPool instanceof ForkJoinThreadPool ? (ForkJoinThreadPool) threadPool : null;
+    }
+
+    /**
+     * 根据线程池名称获取定时线程池
+     *
+     * @param poolName 线程池名称
+     * @return 线程池, 不存在或不是定时线程池时返回null
+     */
+    public ScheduledThreadPool getScheduledPool(String poolName) {
+        AbstractThreadPool threadPool = allThreadPools.get(poolName);
+        return threadPool instanceof ScheduledThreadPool ? (ScheduledThreadPool) threadPool : null;
+    }
+
+    /**
+     * 获取所有标准线程池
+     *
+     * @return 标准线程池Map容器
      */
     public Map<String, ThreadPool> getThreadPools() {
         return threadPools;
     }
+
+    /**
+     * 获取所有类型的线程池
+     *
+     * @return 线程池Map容器
+     */
+    public Map<String, AbstractThreadPool> getAllPools() {
+        return allThreadPools;
+    }
+
+    /**
+     * 线程池容器中标准线程池的只读视图, 随容器增删线程池变化
+     *
+     * @param threadPools 线程池容器
+     * @return 标准线程池视图
+     */
+    public static Map<String, ThreadPool> standardPools(Map<String, AbstractThreadPool> threadPools) {
+        return Maps.transformValues(Maps.filterValues(threadPools, threadPool -> threadPool instanceof ThreadPool),
+                threadPool -> (ThreadPool) threadPool);
+    }
 }
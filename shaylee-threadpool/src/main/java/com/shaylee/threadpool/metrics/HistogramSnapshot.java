@@ -0,0 +1,46 @@
+package com.shaylee.threadpool.metrics;
+
+import lombok.Data;
+
+/**
+ * 时长直方图快照(时长单位：毫秒)
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+@Data
+public class HistogramSnapshot {
+    /**
+     * 统计窗口内记录次数
+     */
+    private long count;
+    /**
+     * 累计记录次数
+     */
+    private long totalCount;
+    /**
+     * 累计平均值
+     */
+    private double mean;
+    /**
+     * 历史最大值
+     */
+    private double max;
+    /**
+     * 50分位
+     */
+    private double p50;
+    /**
+     * 90分位
+     */
+    private double p90;
+    /**
+     * 99分位
+     */
+    private double p99;
+    /**
+     * 99.9分位
+     */
+    private double p999;
+}
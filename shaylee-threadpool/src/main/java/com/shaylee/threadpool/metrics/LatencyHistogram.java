@@ -0,0 +1,263 @@
+package com.shaylee.threadpool.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 时长直方图
+ * 功能说明： HDR风格的对数-线性分桶(微秒精度, 相对误差约6%), 记录只做一次数组原子自增;
+ * 分位数基于滑动时间窗口(最近 1~2 个窗口), 累计次数与总时长基于全部记录
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class LatencyHistogram {
+    /**
+     * 每个2的幂区间细分的子桶位数
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * 线性区间上限(微秒), 小于该值每微秒一个桶
+     */
+    private static final int LINEAR_LIMIT = SUB_BUCKET_COUNT << 1;
+    /**
+     * 最大可记录的指数(2^40微秒约12天), 超出记入最后一个桶
+     */
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT
+            + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+    /**
+     * 默认统计窗口(秒)
+     */
+    public static final long DEFAULT_WINDOW_SECONDS = 60;
+
+    /**
+     * 当前窗口与上一窗口
+     */
+    private final AtomicLongArray[] windows = {
+            new AtomicLongArray(BUCKET_COUNT), new AtomicLongArray(BUCKET_COUNT)};
+    private final long windowNanos;
+    private final long createdNanos;
+    private final AtomicLong nextRotateNanos;
+    private volatile int current = 0;
+    /**
+     * 累计记录次数
+     */
+    private final LongAdder totalCount = new LongAdder();
+    /**
+     * 累计时长(纳秒)
+     */
+    private final LongAdder totalNanos = new LongAdder();
+    /**
+     * 历史最大值(纳秒)
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram() {
+        this(DEFAULT_WINDOW_SECONDS);
+    }
+
+    /**
+     * 构造
+     *
+     * @param windowSeconds 统计窗口(秒)
+     */
+    public LatencyHistogram(long windowSeconds) {
+        this.windowNanos = TimeUnit.SECONDS.toNanos(Math.max(1, windowSeconds));
+        this.createdNanos = System.nanoTime();
+        this.nextRotateNanos = new AtomicLong(createdNanos + windowNanos);
+    }
+
+    /**
+     * 记录一次时长
+     *
+     * @param nanos 时长(纳秒)
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        rotateIfNeeded();
+        windows[current].incrementAndGet(bucketIndex(nanos / 1000));
+        totalCount.increment();
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * 累计记录次数
+     *
+     * @return 累计记录次数
+     */
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * 累计时长
+     *
+     * @return 累计时长(纳秒)
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * 统计窗口长度
+     *
+     * @return 统计窗口(秒)
+     */
+    public long getWindowSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(windowNanos);
+    }
+
+    /**
+     * 滑动窗口覆盖的实际时长(当前窗口已过时长 + 上一窗口)
+     *
+     * @return 覆盖时长(秒)
+     */
+    public double getSpanSeconds() {
+        long now = System.nanoTime();
+        long start = Math.max(createdNanos, nextRotateNanos.get() - 2 * windowNanos);
+        return Math.max(1L, now - start) / 1_000_000_000D;
+    }
+
+    /**
+     * 获取滑动窗口内的快照
+     *
+     * @return 直方图快照
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = mergeWindows();
+        long count = sum(counts);
+        HistogramSnapshot snapshot = new HistogramSnapshot();
+        snapshot.setCount(count);
+        long total = getTotalCount();
+        snapshot.setTotalCount(total);
+        snapshot.setMean(total == 0 ? 0 : getTotalNanos() / (double) total / 1_000_000D);
+        snapshot.setMax(maxNanos.get() / 1_000_000D);
+        snapshot.setP50(percentile(counts, count, 0.5D));
+        snapshot.setP90(percentile(counts, count, 0.9D));
+        snapshot.setP99(percentile(counts, count, 0.99D));
+        snapshot.setP999(percentile(counts, count, 0.999D));
+        return snapshot;
+    }
+
+    /**
+     * 计算滑动窗口内的分位数
+     *
+     * @param quantile 分位(0~1)
+     * @return 分位值(毫秒)
+     */
+    public double percentile(double quantile) {
+        long[] counts = mergeWindows();
+        return percentile(counts, sum(counts), quantile);
+    }
+
+    /**
+     * 合并当前窗口与上一窗口的计数
+     */
+    private long[] mergeWindows() {
+        rotateIfNeeded();
+        long[] counts = new long[BUCKET_COUNT];
+        for (AtomicLongArray window : windows) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += window.get(i);
+            }
+        }
+        return counts;
+    }
+
+    private static long sum(long[] counts) {
+        long sum = 0;
+        for (long c : counts) {
+            sum += c;
+        }
+        return sum;
+    }
+
+    /**
+     * 取分位所在桶的上界, 不超过历史最大值
+     */
+    private double percentile(long[] counts, long count, double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        int index = counts.length - 1;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                index = i;
+                break;
+            }
+        }
+        return Math.min(bucketUpperMicros(index) / 1000D, maxNanos.get() / 1_000_000D);
+    }
+
+    /**
+     * 窗口到期时切换窗口, 并清空将被复用的旧窗口
+     */
+    private void rotateIfNeeded() {
+        long now = System.nanoTime();
+        long next = nextRotateNanos.get();
+        if (now - next < 0) {
+            return;
+        }
+        long newNext = now + windowNanos;
+        if (!nextRotateNanos.compareAndSet(next, newNext)) {
+            return;
+        }
+        int expired = current ^ 1;
+        AtomicLongArray window = windows[expired];
+        // 超过两个窗口没有记录时两个窗口都已过期
+        if (now - next >= windowNanos) {
+            clear(windows[current]);
+        }
+        clear(window);
+        current = expired;
+    }
+
+    private static void clear(AtomicLongArray window) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            window.set(i, 0);
+        }
+    }
+
+    /**
+     * 计算微秒值所在的桶
+     */
+    static int bucketIndex(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    /**
+     * 桶的上界(微秒)
+     */
+    static long bucketUpperMicros(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int exponent = offset / SUB_BUCKET_COUNT + SUB_BUCKET_BITS + 1;
+        int sub = offset % SUB_BUCKET_COUNT;
+        long step = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (sub + 1) * step - 1;
+    }
+}
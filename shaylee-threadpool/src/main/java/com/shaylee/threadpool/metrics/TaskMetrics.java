@@ -0,0 +1,130 @@
+package com.shaylee.threadpool.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程池任务指标
+ * 功能说明： 汇总准入等待、排队等待、执行时长直方图以及失败、过期、卡死任务数, 各类线程池共用
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class TaskMetrics {
+    /**
+     * 准入等待时长(阻塞在信号量上)
+     */
+    private final LatencyHistogram admissionWait = new LatencyHistogram();
+    /**
+     * 任务排队等待时长
+     */
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    /**
+     * 任务执行时长
+     */
+    private final LatencyHistogram execution = new LatencyHistogram();
+    /**
+     * 执行失败任务数
+     */
+    private final LongAdder failedTasks = new LongAdder();
+    /**
+     * 过了截止时间被丢弃的任务数
+     */
+    private final LongAdder expiredTasks = new LongAdder();
+    /**
+     * 执行时长超过阈值的任务数
+     */
+    private final LongAdder stuckTasks = new LongAdder();
+    /**
+     * 被中断的卡死任务数
+     */
+    private final LongAdder stuckInterrupted = new LongAdder();
+    /**
+     * 最近一次检测时仍在执行的卡死任务数
+     */
+    private volatile int currentStuckTasks;
+
+    public LatencyHistogram getAdmissionWait() {
+        return admissionWait;
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getExecution() {
+        return execution;
+    }
+
+    /**
+     * 记录一次执行失败
+     */
+    public void recordFailure() {
+        failedTasks.increment();
+    }
+
+    /**
+     * 执行失败任务数
+     *
+     * @return 执行失败任务数
+     */
+    public long getFailedTasks() {
+        return failedTasks.sum();
+    }
+
+    /**
+     * 记录一次过期丢弃
+     */
+    public void recordExpired() {
+        expiredTasks.increment();
+    }
+
+    /**
+     * 过了截止时间被丢弃的任务数
+     *
+     * @return 过期任务数
+     */
+    public long getExpiredTasks() {
+        return expiredTasks.sum();
+    }
+
+    /**
+     * 记录一个卡死任务
+     */
+    public void recordStuck() {
+        stuckTasks.increment();
+    }
+
+    /**
+     * 记录一次中断卡死任务
+     */
+    public void recordStuckInterrupted() {
+        stuckInterrupted.increment();
+    }
+
+    /**
+     * 执行时长超过阈值的任务数
+     *
+     * @return 卡死任务数
+     */
+    public long getStuckTasks() {
+        return stuckTasks.sum();
+    }
+
+    /**
+     * 被中断的卡死任务数
+     *
+     * @return 被中断的卡死任务数
+     */
+    public long getStuckInterrupted() {
+        return stuckInterrupted.sum();
+    }
+
+    public int getCurrentStuckTasks() {
+        return currentStuckTasks;
+    }
+
+    public void setCurrentStuckTasks(int currentStuckTasks) {
+        this.currentStuckTasks = currentStuckTasks;
+    }
+}
@@ -0,0 +1,139 @@
+package com.shaylee.threadpool.metrics;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 线程池Micrometer指标
+ * 功能说明： 为每个线程池注册线程数、队列、完成/失败/拒绝计数以及准入等待、排队、执行时长分位数指标,
+ * 所有指标以 pool 标签区分线程池
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ThreadPoolMeterBinder implements MeterBinder {
+    public static final String METRIC_PREFIX = "threadpool";
+    public static final String TAG_POOL = "pool";
+    private static final double[] PERCENTILES = {0.5D, 0.99D, 0.999D};
+
+    /**
+     * 线程池容器
+     */
+    private final Supplier<Map<String, AbstractThreadPool>> threadPools;
+
+    public ThreadPoolMeterBinder(Supplier<Map<String, AbstractThreadPool>> threadPools) {
+        this.threadPools = threadPools;
+    }
+
+    /**
+     * 已绑定的指标注册器, 热更新新建线程池时向其注册
+     */
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registries.add(registry);
+        Map<String, AbstractThreadPool> pools = threadPools.get();
+        if (pools == null) {
+            return;
+        }
+        for (AbstractThreadPool pool : pools.values()) {
+            bindTo(registry, pool);
+        }
+    }
+
+    /**
+     * 向所有已绑定的注册器注册新建线程池的指标
+     *
+     * @param pool 线程池
+     */
+    public void bindPool(AbstractThreadPool pool) {
+        for (MeterRegistry registry : registries) {
+            bindTo(registry, pool);
+        }
+    }
+
+    /**
+     * 从所有已绑定的注册器注销已移除线程池的指标
+     *
+     * @param poolName 线程池名称
+     */
+    public void unbindPool(String poolName) {
+        for (MeterRegistry registry : registries) {
+            for (Meter meter : registry.getMeters()) {
+                Meter.Id id = meter.getId();
+                if (id.getName().startsWith(METRIC_PREFIX + ".") && poolName.equals(id.getTag(TAG_POOL))) {
+                    registry.remove(meter);
+                }
+            }
+        }
+    }
+
+    /**
+     * 注册单个线程池的指标
+     *
+     * @param registry 指标注册器
+     * @param pool     线程池
+     */
+    public static void bindTo(MeterRegistry registry, AbstractThreadPool pool) {
+        String name = pool.getPoolName();
+
+        Gauge.builder(METRIC_PREFIX + ".threads.core", pool, AbstractThreadPool::getCorePoolSize)
+                .tag(TAG_POOL, name).description("core pool size").register(registry);
+        Gauge.builder(METRIC_PREFIX + ".threads.max", pool, AbstractThreadPool::getMaximumPoolSize)
+                .tag(TAG_POOL, name).description("maximum pool size").register(registry);
+        Gauge.builder(METRIC_PREFIX + ".threads.current", pool, AbstractThreadPool::getThreadNumber)
+                .tag(TAG_POOL, name).description("current pool size").register(registry);
+        Gauge.builder(METRIC_PREFIX + ".threads.active", pool, AbstractThreadPool::getActiveThread)
+                .tag(TAG_POOL, name).description("threads actively running tasks").register(registry);
+        Gauge.builder(METRIC_PREFIX + ".queue.size", pool, AbstractThreadPool::getQueueSize)
+                .tag(TAG_POOL, name).description("tasks waiting in the work queue").register(registry);
+        Gauge.builder(METRIC_PREFIX + ".admission.waiting", pool, AbstractThreadPool::getWaitingCallers)
+                .tag(TAG_POOL, name).description("callers blocked on the admission semaphore").register(registry);
+
+        FunctionCounter.builder(METRIC_PREFIX + ".tasks.completed", pool, AbstractThreadPool::getCompletedTasks)
+                .tag(TAG_POOL, name).description("completed tasks").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".tasks.failed", pool.getMetrics(), TaskMetrics::getFailedTasks)
+                .tag(TAG_POOL, name).description("tasks completed exceptionally").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".tasks.expired", pool.getMetrics(), TaskMetrics::getExpiredTasks)
+                .tag(TAG_POOL, name).description("tasks dropped after their deadline").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".tasks.stuck", pool.getMetrics(), TaskMetrics::getStuckTasks)
+                .tag(TAG_POOL, name).description("tasks running longer than the stuck threshold").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".tasks.stuck.interrupted", pool.getMetrics(), TaskMetrics::getStuckInterrupted)
+                .tag(TAG_POOL, name).description("stuck tasks interrupted by the detector").register(registry);
+        Gauge.builder(METRIC_PREFIX + ".tasks.stuck.current", pool.getMetrics(), TaskMetrics::getCurrentStuckTasks)
+                .tag(TAG_POOL, name).description("stuck tasks still running at the last check").register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".tasks.rejected", pool, AbstractThreadPool::getRejectedTimes)
+                .tag(TAG_POOL, name).description("rejected tasks").register(registry);
+
+        TaskMetrics metrics = pool.getMetrics();
+        bindHistogram(registry, name, "admission.wait", metrics.getAdmissionWait());
+        bindHistogram(registry, name, "queue.wait", metrics.getQueueWait());
+        bindHistogram(registry, name, "execution", metrics.getExecution());
+    }
+
+    private static void bindHistogram(MeterRegistry registry, String poolName, String metric,
+                                      LatencyHistogram histogram) {
+        String prefix = METRIC_PREFIX + ".task." + metric;
+        FunctionCounter.builder(prefix + ".count", histogram, LatencyHistogram::getTotalCount)
+                .tag(TAG_POOL, poolName).register(registry);
+        FunctionCounter.builder(prefix + ".total", histogram, h -> h.getTotalNanos() / 1_000_000D)
+                .tag(TAG_POOL, poolName).baseUnit("milliseconds").register(registry);
+        for (double percentile : PERCENTILES) {
+            TimeGauge.builder(prefix + ".percentile", histogram, TimeUnit.MILLISECONDS, h -> h.percentile(percentile))
+                    .tag(TAG_POOL, poolName).tag("phi", String.valueOf(percentile)).register(registry);
+        }
+    }
+}
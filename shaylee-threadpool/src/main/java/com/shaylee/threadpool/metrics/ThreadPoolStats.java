@@ -0,0 +1,86 @@
+package com.shaylee.threadpool.metrics;
+
+import lombok.Data;
+
+/**
+ * 线程池统计快照
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+@Data
+public class ThreadPoolStats {
+    /**
+     * 线程池名
+     */
+    private String poolName;
+    /**
+     * 内核线程数
+     */
+    private int corePoolSize;
+    /**
+     * 最大线程数
+     */
+    private int maximumPoolSize;
+    /**
+     * 当前线程数
+     */
+    private int poolSize;
+    /**
+     * 活动线程数
+     */
+    private int activeCount;
+    /**
+     * 工作队列中等待执行的任务数
+     */
+    private int queueSize;
+    /**
+     * 阻塞在准入信号量上的调用者数
+     */
+    private int waitingCallers;
+    /**
+     * 是否暂停
+     */
+    private boolean paused;
+    /**
+     * 累计完成任务数
+     */
+    private long completedTasks;
+    /**
+     * 累计失败任务数
+     */
+    private long failedTasks;
+    /**
+     * 累计过期丢弃任务数
+     */
+    private long expiredTasks;
+    /**
+     * 累计卡死(执行时长超过阈值)任务数
+     */
+    private long stuckTasks;
+    /**
+     * 当前仍在执行的卡死任务数
+     */
+    private int currentStuckTasks;
+    /**
+     * 累计拒绝请求次数
+     */
+    private long rejectedTasks;
+    /**
+     * 统计窗口内每秒完成任务数
+     */
+    private double throughput;
+    /**
+     * 准入等待时长(阻塞在信号量上的时长)
+     */
+    private HistogramSnapshot admissionWait;
+    /**
+     * 排队等待时长
+     */
+    private HistogramSnapshot queueWait;
+    /**
+     * 执行时长
+     */
+    private HistogramSnapshot execution;
+}
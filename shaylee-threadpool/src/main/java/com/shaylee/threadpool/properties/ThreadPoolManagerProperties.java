@@ -1,11 +1,16 @@
 package com.shaylee.threadpool.properties;
 
+import com.shaylee.threadpool.PoolType;
+import com.shaylee.threadpool.QueueType;
+import com.shaylee.threadpool.ShayleeThreadFactory;
+import com.shaylee.threadpool.ThreadMode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -26,10 +31,65 @@ public class ThreadPoolManagerProperties {
      * 线程池列表
      */
     Map<String, PoolProperties> threadpool;
+    /**
+     * 应用停止时每个线程池排空任务的最长等待时长(单位：秒), 线程池可单独配置
+     */
+    private Integer shutdownTimeout = 30;
+    /**
+     * 热更新配置
+     */
+    private RefreshProperties refresh = new RefreshProperties();
+    /**
+     * Spring @Async/@Scheduled集成配置
+     */
+    private AsyncProperties async = new AsyncProperties();
+
+    @Getter
+    @Setter
+    public static class AsyncProperties {
+        /**
+         * 是否把线程池以线程池名注册为TaskExecutor/TaskScheduler Bean, 默认关闭;
+         * 开启后Spring Boot不再创建默认的applicationTaskExecutor/taskScheduler, 应同时配置defaultExecutor/defaultScheduler
+         */
+        private boolean enabled = false;
+        /**
+         * @Async未指定执行器时使用的线程池名, 为空时保持Spring的默认执行器
+         */
+        private String defaultExecutor;
+        /**
+         * @Scheduled使用的定时线程池名, 为空时保持Spring的默认调度器
+         */
+        private String defaultScheduler;
+    }
+
+    @Getter
+    @Setter
+    public static class RefreshProperties {
+        /**
+         * 是否开启热更新(配置中心刷新EnvironmentChangeEvent及监听配置文件)
+         */
+        private boolean enabled = true;
+        /**
+         * 监听的配置文件(yml/yaml/properties), 内容为完整的thread-manager配置, 为空时不监听
+         */
+        private String file;
+        /**
+         * 检查配置文件是否修改的间隔(单位：秒)
+         */
+        private Integer interval = 5;
+    }
 
     @Getter
     @Setter
     public static class PoolProperties {
+        /**
+         * 线程池类型: standard(默认)、fork-join、scheduled
+         */
+        private PoolType type = PoolType.STANDARD;
+        /**
+         * 工作窃取线程池的并行度(默认为CPU核数)
+         */
+        private Integer parallelism;
         /**
          * 池的核心大小，即最小值
          */
@@ -50,5 +110,125 @@ public class ThreadPoolManagerProperties {
          * 当线程池繁忙时是否由调用者自己执行
          */
         private Boolean isCallerRuns;
+        /**
+         * 工作队列类型: synchronous(默认)、array、linked、priority
+         */
+        private QueueType queueType = QueueType.SYNCHRONOUS;
+        /**
+         * 工作队列容量(同步移交队列忽略此项)
+         */
+        private Integer queueCapacity = QueueType.DEFAULT_CAPACITY;
+        /**
+         * 工作线程模式: platform(默认)、virtual(JDK 21+, 不支持时退化为platform)
+         */
+        private ThreadMode mode = ThreadMode.PLATFORM;
+        /**
+         * 是否将提交线程的上下文(MDC、请求、安全等)传递到工作线程, 默认关闭;
+         * 开启后请求属性只应在请求处理期间读取, 请求结束后即失效
+         */
+        private boolean propagateContext = false;
+        /**
+         * 应用停止时排空任务的最长等待时长(单位：秒), 为空时使用全局配置
+         */
+        private Integer shutdownTimeout;
+        /**
+         * 自动调优配置
+         */
+        private AutoTuneProperties autoTune = new AutoTuneProperties();
+        /**
+         * 公平分配配置
+         */
+        private FairShareProperties fairShare = new FairShareProperties();
+        /**
+         * 卡死任务检测配置
+         */
+        private StuckTaskProperties stuckTask = new StuckTaskProperties();
+    }
+
+    @Getter
+    @Setter
+    public static class StuckTaskProperties {
+        /**
+         * 是否开启卡死任务检测
+         */
+        private boolean enabled = false;
+        /**
+         * 执行时长阈值(单位：毫秒)
+         */
+        private Long threshold = 60000L;
+        /**
+         * 扫描间隔(单位：秒)
+         */
+        private Integer interval = 10;
+        /**
+         * 是否中断卡死任务所在线程
+         */
+        private boolean interrupt = false;
+        /**
+         * 抓取堆栈的最大深度
+         */
+        private Integer stackDepth = ShayleeThreadFactory.DEFAULT_STACK_DEPTH;
+    }
+
+    @Getter
+    @Setter
+    public static class FairShareProperties {
+        /**
+         * 是否开启公平分配
+         */
+        private boolean enabled = false;
+        /**
+         * 各键(租户、接口等)的权重
+         */
+        private Map<String, Integer> weights = new LinkedHashMap<>();
+        /**
+         * 默认键的权重, 未配置权重的键共用默认键的配额
+         */
+        private Integer defaultWeight = 1;
+    }
+
+    @Getter
+    @Setter
+    public static class AutoTuneProperties {
+        /**
+         * 是否开启自动调优
+         */
+        private boolean enabled = false;
+        /**
+         * 最大线程数下限
+         */
+        private Integer minPoolSize = 2;
+        /**
+         * 最大线程数上限(默认为maxPoolSize的2倍)
+         */
+        private Integer maxPoolSize;
+        /**
+         * 采样间隔(单位：秒)
+         */
+        private Integer interval = 10;
+        /**
+         * 扩容步长
+         */
+        private Integer step = 2;
+        /**
+         * 缩容比例
+         */
+        private Double backoffRatio = 0.75D;
+        /**
+         * 平均排队时长阈值(单位：毫秒)
+         */
+        private Long queueWaitThreshold = 100L;
+        /**
+         * 高利用率阈值
+         */
+        private Double highUtilization = 0.85D;
+        /**
+         * 低利用率阈值
+         */
+        private Double lowUtilization = 0.3D;
+        /**
+         * 连续空闲多少次采样后缩容
+         */
+        private Integer idleSamples = 3;
     }
 }
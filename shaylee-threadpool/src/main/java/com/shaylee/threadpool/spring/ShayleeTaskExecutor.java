@@ -0,0 +1,113 @@
+package com.shaylee.threadpool.spring;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Spring TaskExecutor适配类
+ * 功能说明： 把配置的线程池以线程池名注册为Spring Bean, 可通过@Async("poolName")选择线程池,
+ * 任务经过线程池的暂停检查、准入控制及监控; 每次执行时按名称取线程池, 热更新重建线程池后仍然生效
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ShayleeTaskExecutor implements AsyncListenableTaskExecutor {
+    /**
+     * 线程池名
+     */
+    private final String poolName;
+    /**
+     * 线程池容器
+     */
+    private final Map<String, AbstractThreadPool> threadPools;
+
+    /**
+     * 构造
+     *
+     * @param poolName    线程池名
+     * @param threadPools 线程池容器
+     */
+    public ShayleeTaskExecutor(String poolName, Map<String, AbstractThreadPool> threadPools) {
+        this.poolName = poolName;
+        this.threadPools = threadPools;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * 当前的线程池
+     *
+     * @return 线程池
+     * @throws TaskRejectedException 线程池不存在(已被热更新删除)
+     */
+    public AbstractThreadPool getThreadPool() {
+        AbstractThreadPool threadPool = threadPools.get(poolName);
+        if (threadPool == null) {
+            throw new TaskRejectedException("The threadpool[" + poolName + "] does not exist");
+        }
+        return threadPool;
+    }
+
+    /**
+     * 执行任务, 被拒绝时抛出TaskRejectedException(RejectedExecutionException的子类)
+     */
+    @Override
+    public void execute(Runnable task) {
+        AbstractThreadPool threadPool = getThreadPool();
+        try {
+            threadPool.execute(task);
+        } catch (TaskRejectedException e) {
+            throw e;
+        } catch (RejectedExecutionException e) {
+            throw new TaskRejectedException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 线程池自身有准入等待时长, 忽略startTimeout
+     */
+    @Override
+    public void execute(Runnable task, long startTimeout) {
+        execute(task);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> future = new FutureTask<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public ListenableFuture<?> submitListenable(Runnable task) {
+        ListenableFutureTask<Object> future = new ListenableFutureTask<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+        ListenableFutureTask<T> future = new ListenableFutureTask<>(task);
+        execute(future);
+        return future;
+    }
+}
@@ -0,0 +1,121 @@
+package com.shaylee.threadpool.spring;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.ScheduledThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
+
+/**
+ * Spring TaskScheduler适配类
+ * 功能说明： 把定时线程池以线程池名注册为Spring Bean, 供@Scheduled及@Async("poolName")使用;
+ * Trigger(cron等)的计算委托给Spring的ConcurrentTaskScheduler, 任务失败计入线程池的失败数并继续调度
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ShayleeTaskScheduler extends ShayleeTaskExecutor implements TaskScheduler {
+    private static Logger logger = LoggerFactory.getLogger(ShayleeTaskScheduler.class);
+
+    /**
+     * 当前线程池对应的Spring调度器, 热更新重建线程池后重新创建
+     */
+    private volatile Delegate delegate;
+
+    /**
+     * 构造
+     *
+     * @param poolName    线程池名
+     * @param threadPools 线程池容器
+     */
+    public ShayleeTaskScheduler(String poolName, Map<String, AbstractThreadPool> threadPools) {
+        super(poolName, threadPools);
+    }
+
+    /**
+     * 当前线程池对应的Spring调度器
+     */
+    private ConcurrentTaskScheduler scheduler() {
+        AbstractThreadPool threadPool = getThreadPool();
+        if (!(threadPool instanceof ScheduledThreadPool)) {
+            throw new TaskRejectedException("The threadpool[" + getPoolName() + "] is not a scheduled pool");
+        }
+        Delegate current = this.delegate;
+        if (current == null || current.threadPool != threadPool) {
+            current = new Delegate((ScheduledThreadPool) threadPool);
+            this.delegate = current;
+        }
+        return current.scheduler;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+        return translate(() -> scheduler().schedule(task, trigger));
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+        return translate(() -> scheduler().schedule(task, startTime));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+        return translate(() -> scheduler().scheduleAtFixedRate(task, startTime, period));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+        return translate(() -> scheduler().scheduleAtFixedRate(task, period));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+        return translate(() -> scheduler().scheduleWithFixedDelay(task, startTime, delay));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+        return translate(() -> scheduler().scheduleWithFixedDelay(task, delay));
+    }
+
+    /**
+     * 被拒绝时按Spring的约定抛出TaskRejectedException
+     */
+    private static ScheduledFuture<?> translate(Supplier<ScheduledFuture<?>> schedule) {
+        try {
+            return schedule.get();
+        } catch (TaskRejectedException e) {
+            throw e;
+        } catch (RejectedExecutionException e) {
+            throw new TaskRejectedException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 线程池及其Spring调度器
+     */
+    private static final class Delegate {
+        private final ScheduledThreadPool threadPool;
+        private final ConcurrentTaskScheduler scheduler;
+
+        Delegate(ScheduledThreadPool threadPool) {
+            this.threadPool = threadPool;
+            this.scheduler = new ConcurrentTaskScheduler(threadPool.getScheduledExecutor());
+            // 异常被Spring的错误处理器吞掉, 在这里计入失败数, 周期任务继续调度
+            this.scheduler.setErrorHandler(e -> {
+                threadPool.getMetrics().recordFailure();
+                logger.error("The scheduled task failed in pool " + threadPool.getPoolName(), e);
+            });
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.shaylee.threadpool.config;
+
+import com.shaylee.threadpool.AbstractThreadPool;
+import com.shaylee.threadpool.FairShare;
+import com.shaylee.threadpool.PoolType;
+import com.shaylee.threadpool.ThreadPool;
+import com.shaylee.threadpool.ThreadPoolAutoTuner;
+import com.shaylee.threadpool.properties.ThreadPoolManagerProperties.PoolProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Title: 线程池配置热更新测试
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class ThreadPoolConfigurationTest {
+    private final ThreadPoolConfiguration configuration = new ThreadPoolConfiguration();
+    private final List<AbstractThreadPool> pools = new ArrayList<>();
+
+    @AfterEach
+    public void shutdown() {
+        pools.forEach(AbstractThreadPool::shutdown);
+    }
+
+    @Test
+    public void tunerKeptWhenOnlyOtherSettingsChange() {
+        PoolProperties previous = properties();
+        ThreadPool pool = create(previous);
+        ThreadPoolAutoTuner tuner = pool.getAutoTuner();
+        assertNotNull(tuner);
+
+        PoolProperties updated = properties();
+        updated.setKeepAliveTime(300);
+        configuration.updateThreadPool(pool, previous, updated);
+        // 调优器保留(及其执行时长基线), 其它参数照常生效
+        assertSame(tuner, pool.getAutoTuner());
+        assertEquals(300L, pool.getKeepAliveTime());
+    }
+
+    @Test
+    public void tunerReplacedWhenItsSettingsChange() {
+        PoolProperties previous = properties();
+        ThreadPool pool = create(previous);
+        ThreadPoolAutoTuner tuner = pool.getAutoTuner();
+
+        PoolProperties updated = properties();
+        updated.getAutoTune().setMaxPoolSize(32);
+        configuration.updateThreadPool(pool, previous, updated);
+        assertNotSame(tuner, pool.getAutoTuner());
+        assertEquals(32, pool.getAutoTuner().getMaxPoolSize());
+
+        PoolProperties disabled = properties();
+        disabled.getAutoTune().setEnabled(false);
+        configuration.updateThreadPool(pool, updated, disabled);
+        assertNull(pool.getAutoTuner());
+    }
+
+    @Test
+    public void tunedSizeKeptWhenSizeConfigUnchanged() {
+        PoolProperties previous = properties();
+        ThreadPool pool = create(previous);
+        // 自动调优或Actuator调整过的线程数
+        pool.setPoolSize(4, 12);
+
+        PoolProperties updated = properties();
+        updated.getFairShare().setEnabled(true);
+        configuration.updateThreadPool(pool, previous, updated);
+        assertEquals(12, pool.getMaximumPoolSize());
+        assertNotNull(pool.getFairShare());
+
+        PoolProperties resized = properties();
+        resized.getFairShare().setEnabled(true);
+        resized.setMaxPoolSize(6);
+        configuration.updateThreadPool(pool, updated, resized);
+        assertEquals(6, pool.getMaximumPoolSize());
+    }
+
+    @Test
+    public void unknownPreviousAppliesEverything() {
+        PoolProperties properties = properties();
+        ThreadPool pool = create(properties);
+        pool.setPoolSize(4, 12);
+        configuration.updateThreadPool(pool, null, properties);
+        assertEquals(4, pool.getCorePoolSize());
+        assertEquals(8, pool.getMaximumPoolSize());
+    }
+
+    @Test
+    public void fairShareReplacedOnlyWhenChanged() {
+        PoolProperties previous = properties();
+        previous.getFairShare().setEnabled(true);
+        previous.getFairShare().getWeights().put("vip", 3);
+        ThreadPool pool = create(previous);
+        FairShare fairShare = pool.getFairShare();
+        assertNotNull(fairShare);
+
+        PoolProperties same = properties();
+        same.getFairShare().setEnabled(true);
+        same.getFairShare().getWeights().put("vip", 3);
+        same.setWaitTime(5);
+        configuration.updateThreadPool(pool, previous, same);
+        assertSame(fairShare, pool.getFairShare());
+        assertEquals(5L, pool.getTimeOut());
+
+        PoolProperties changed = properties();
+        changed.getFairShare().setEnabled(true);
+        changed.getFairShare().getWeights().put("vip", 5);
+        configuration.updateThreadPool(pool, same, changed);
+        assertNotSame(fairShare, pool.getFairShare());
+    }
+
+    @Test
+    public void typeChangeNeedsRestart() {
+        PoolProperties previous = properties();
+        ThreadPool pool = create(previous);
+        PoolProperties updated = properties();
+        updated.setType(PoolType.FORK_JOIN);
+        updated.setMaxPoolSize(16);
+        configuration.updateThreadPool(pool, previous, updated);
+        assertEquals(PoolType.STANDARD, pool.getType());
+        assertEquals(8, pool.getMaximumPoolSize());
+    }
+
+    private ThreadPool create(PoolProperties properties) {
+        ThreadPool pool = (ThreadPool) configuration.createThreadPool("test-pool", properties);
+        pools.add(pool);
+        return pool;
+    }
+
+    private static PoolProperties properties() {
+        PoolProperties properties = new PoolProperties();
+        properties.setCorePoolSize(4);
+        properties.setMaxPoolSize(8);
+        properties.setKeepAliveTime(60);
+        properties.setWaitTime(1);
+        properties.setIsCallerRuns(false);
+        properties.getAutoTune().setEnabled(true);
+        properties.getAutoTune().setInterval(3600);
+        return properties;
+    }
+}
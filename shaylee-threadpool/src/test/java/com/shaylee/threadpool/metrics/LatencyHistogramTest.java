@@ -0,0 +1,99 @@
+package com.shaylee.threadpool.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Title: 时长直方图测试
+ * Project: shaylee-framework
+ *
+ * @author Adrian
+ * @date 2020-03-13
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void linearBucketsHoldOneMicrosecond() {
+        for (long micros = 0; micros < 32; micros++) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            assertEquals(micros, index);
+            assertEquals(micros, LatencyHistogram.bucketUpperMicros(index));
+        }
+    }
+
+    @Test
+    public void bucketBoundsContainValue() {
+        int previous = -1;
+        for (long micros = 0; micros < 1L << 22; micros += micros < 4096 ? 1 : 97) {
+            int index = LatencyHistogram.bucketIndex(micros);
+            // 桶下标随时长单调不减, 时长落在上一个桶上界与本桶上界之间
+            assertTrue(index >= previous, "index decreased at " + micros);
+            assertTrue(LatencyHistogram.bucketUpperMicros(index) >= micros, "upper bound below " + micros);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.bucketUpperMicros(index - 1) < micros, "lower bound above " + micros);
+            }
+            previous = index;
+        }
+    }
+
+    @Test
+    public void relativeErrorWithinSubBucket() {
+        for (long micros = 32; micros < 1L << 30; micros = micros * 3 / 2 + 1) {
+            long upper = LatencyHistogram.bucketUpperMicros(LatencyHistogram.bucketIndex(micros));
+            // 每个2的幂区间16个子桶, 相对误差不超过1/16
+            assertTrue((upper - micros) * 16 <= micros, "error too large at " + micros + ": " + upper);
+        }
+    }
+
+    @Test
+    public void powerOfTwoStartsNewBucket() {
+        for (int exponent = 5; exponent < 39; exponent++) {
+            long micros = 1L << exponent;
+            assertEquals(micros - 1, LatencyHistogram.bucketUpperMicros(LatencyHistogram.bucketIndex(micros) - 1));
+        }
+    }
+
+    @Test
+    public void hugeValuesGoToLastBucket() {
+        int last = LatencyHistogram.bucketIndex(Long.MAX_VALUE);
+        assertEquals(last, LatencyHistogram.bucketIndex(1L << 40));
+        assertTrue(LatencyHistogram.bucketIndex((1L << 40) - 1) <= last);
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(1000, histogram.getTotalCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500500), histogram.getTotalNanos());
+        assertEquals(500D, histogram.percentile(0.5D), 500D / 16);
+        assertEquals(900D, histogram.percentile(0.9D), 900D / 16);
+        assertEquals(990D, histogram.percentile(0.99D), 990D / 16);
+        // 分位值不超过历史最大值
+        assertEquals(1000D, histogram.percentile(1D), 0D);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500.5D, snapshot.getMean(), 1e-9);
+        assertEquals(1000D, snapshot.getMax(), 0D);
+        assertTrue(snapshot.getP50() <= snapshot.getP90());
+        assertTrue(snapshot.getP90() <= snapshot.getP99());
+        assertTrue(snapshot.getP99() <= snapshot.getP999());
+    }
+
+    @Test
+    public void emptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0D, histogram.percentile(0.99D), 0D);
+        histogram.record(-5);
+        assertEquals(1, histogram.getTotalCount());
+        assertEquals(0, histogram.getTotalNanos());
+        assertEquals(0D, histogram.percentile(0.5D), 0D);
+    }
+}